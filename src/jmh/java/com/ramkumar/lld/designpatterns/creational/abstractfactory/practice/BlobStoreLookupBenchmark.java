@@ -0,0 +1,87 @@
+package com.ramkumar.lld.designpatterns.creational.abstractfactory.practice;
+
+import com.ramkumar.lld.designpatterns.creational.abstractfactory.practice.CloudInfrastructurePractice.BlobStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point lookups over 20 buckets × 5,000 keys with long shared prefixes
+ * ("builds/2024/<n>/bundle.jar"), in ns per lookup.
+ *
+ *   joinedKeyHashMap — the old layout: HashMap<bucket + "/" + key, value>,
+ *                      one concatenated String per lookup
+ *   blobStoreSize    — BlobStore.size(bucket, key): two hash probes, no copy-out
+ *
+ * With -prof gc (enabled by main()), gc.alloc.rate.norm shows the per-lookup
+ * key allocation the BlobStore avoids.
+ *   java -jar target/benchmarks.jar BlobStoreLookupBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BlobStoreLookupBenchmark {
+
+    private static final int BUCKETS    = 20;
+    private static final int PER_BUCKET = 5_000;
+
+    private String[]            bucketNames;
+    private String[][]          keys;
+    private Map<String, String> flat;
+    private BlobStore           store;
+    private int                 next;
+
+    @Setup
+    public void setUp() {
+        bucketNames = new String[BUCKETS];
+        keys        = new String[BUCKETS][PER_BUCKET];
+        flat        = new HashMap<>();
+        store       = new BlobStore();
+        for (int b = 0; b < BUCKETS; b++) {
+            bucketNames[b] = "service-" + b + "-artifacts";
+            for (int k = 0; k < PER_BUCKET; k++) {
+                keys[b][k] = "builds/2024/" + k + "/bundle.jar";
+                flat.put(bucketNames[b] + "/" + keys[b][k], "x");
+                store.put(bucketNames[b], keys[b][k], new byte[] { 'x' });
+            }
+        }
+    }
+
+    @Benchmark
+    public int joinedKeyHashMap() {
+        int i = next++, b = Math.floorMod(i, BUCKETS), k = Math.floorMod(i * 31, PER_BUCKET);
+        return flat.get(bucketNames[b] + "/" + keys[b][k]).length();
+    }
+
+    @Benchmark
+    public long blobStoreSize() {
+        int i = next++, b = Math.floorMod(i, BUCKETS), k = Math.floorMod(i * 31, PER_BUCKET);
+        return store.size(bucketNames[b], keys[b][k]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BlobStoreLookupBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,66 @@
+package com.ramkumar.lld.designpatterns.creational.builder.code;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building one HttpRequest with two headers and a body.
+ *
+ *   freshBuilder  — new Builder(...) per request: builder + header buffer + product
+ *   pooledBuilder — Builder.pooled(...): product + its exact-size header array only
+ *
+ * The number to read is gc.alloc.rate.norm (bytes per operation) from the GC
+ * profiler, which main() enables. From the CLI:
+ *   java -jar target/benchmarks.jar HttpRequestBuilderBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HttpRequestBuilderBenchmark {
+
+    private final String method = "POST";
+    private final String url    = "https://api.example.com/orders";
+    private final String body   = "{\"sku\":\"A-1\",\"qty\":2}";
+
+    @Benchmark
+    public Object freshBuilder() {
+        return new HttpRequestDemo.HttpRequest.Builder(method, url)
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer abc123")
+                .body(body)
+                .build();
+    }
+
+    @Benchmark
+    public Object pooledBuilder() {
+        return HttpRequestDemo.HttpRequest.Builder.pooled(method, url)
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer abc123")
+                .body(body)
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(HttpRequestBuilderBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,120 @@
+package com.ramkumar.lld.designpatterns.creational.factorymethod.practice;
+
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.PaymentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fee quotes per microsecond, where one quote is every gateway's fee for one
+ * cart total. Each invocation quotes the same 1,024 cart totals.
+ *
+ *   calculateFeePerGateway — PaymentService.calculateFee() for each gateway
+ *                            (prints; System.out is discarded during the run)
+ *   cachedQuote            — FeeQuoteService.quote(amount); the totals fit the
+ *                            4,096-slot cache, so this is mostly cache hits
+ *   uncachedQuote          — same, with a 1-slot cache: every quote is computed
+ *   bulkQuote              — FeeQuoteService.quote(double[], double[])
+ *
+ *   java -jar target/benchmarks.jar FeeQuoteBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FeeQuoteBenchmark {
+
+    private static final int CARTS = 1_024;
+
+    private List<PaymentService> services;
+    private FeeQuoteDemo.FeeQuoteService cached;
+    private FeeQuoteDemo.FeeQuoteService uncached;
+    private double[] totals;
+    private double[] out;
+    private PrintStream console;
+
+    @Setup
+    public void setUp() {
+        services = FeeQuoteDemo.allGateways();
+        cached   = new FeeQuoteDemo.FeeQuoteService(services, 4_096);
+        uncached = new FeeQuoteDemo.FeeQuoteService(services, 1);
+        totals   = new double[CARTS];
+        for (int i = 0; i < CARTS; i++) {
+            totals[i] = 10 + (i * 37 % 500) + (i % 100) / 100.0;   // all ≥ $10: every gateway applies
+        }
+        out = new double[CARTS * services.size()];
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(console);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CARTS)
+    public double calculateFeePerGateway() {
+        double sum = 0;
+        for (double total : totals) {
+            for (PaymentService service : services) {
+                sum += service.calculateFee(total);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CARTS)
+    public double cachedQuote() {
+        double sum = 0;
+        for (double total : totals) {
+            sum += cached.quote(total).fee(0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CARTS)
+    public double uncachedQuote() {
+        double sum = 0;
+        for (double total : totals) {
+            sum += uncached.quote(total).fee(0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CARTS)
+    public double[] bulkQuote() {
+        cached.quote(totals, out);
+        return out;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(FeeQuoteBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
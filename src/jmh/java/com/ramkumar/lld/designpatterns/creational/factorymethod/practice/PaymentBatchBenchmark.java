@@ -0,0 +1,101 @@
+package com.ramkumar.lld.designpatterns.creational.factorymethod.practice;
+
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.BankTransferPaymentService;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.PayPalPaymentService;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.PaymentRequest;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.PaymentResult;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.PaymentService;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.StripePaymentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settlement throughput in payments per microsecond: 1,000 payments for each
+ * of Stripe, PayPal and Bank Transfer per invocation.
+ *
+ *   chargeEach     — one PaymentService.charge() per payment, gateway by gateway
+ *   settleBatched  — PaymentBatchDemo.SettlementJob: chargeBatch() per gateway,
+ *                    gateways in parallel on virtual threads
+ *
+ * Both paths print log lines; System.out is discarded during the run.
+ *   java -jar target/benchmarks.jar PaymentBatchBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PaymentBatchBenchmark {
+
+    private static final int PER_GATEWAY = 1_000;
+    private static final int PAYMENTS    = 3 * PER_GATEWAY;
+
+    private Map<PaymentService, List<PaymentRequest>> batch;
+    private PaymentBatchDemo.SettlementJob job;
+    private PrintStream console;
+
+    @Setup
+    public void setUp() {
+        batch = new LinkedHashMap<>();
+        for (PaymentService service : new PaymentService[] {
+                new StripePaymentService(), new PayPalPaymentService(), new BankTransferPaymentService() }) {
+            batch.put(service, PaymentBatchDemo.requests("r", PER_GATEWAY, 30.0, "USD"));
+        }
+        job = new PaymentBatchDemo.SettlementJob();
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(console);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAYMENTS)
+    public int chargeEach() {
+        int charged = 0;
+        for (Map.Entry<PaymentService, List<PaymentRequest>> e : batch.entrySet()) {
+            for (PaymentRequest request : e.getValue()) {
+                e.getKey().charge(request.getAmount(), request.getCurrency());
+                charged++;
+            }
+        }
+        return charged;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAYMENTS)
+    public Map<PaymentService, List<PaymentResult>> settleBatched() throws InterruptedException {
+        return job.settle(batch);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PaymentBatchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,68 @@
+package com.ramkumar.lld.designpatterns.creational.factorymethod.practice;
+
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.PaymentService;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.StripePaymentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The charge path's cost with and without processor construction, in ns per
+ * charge. processPayment() is called directly: charge()'s println would
+ * dominate both numbers.
+ *
+ *   sharedProcessor   — PaymentService.processor(), created once and shared
+ *   processorPerCall  — createProcessor() on every charge, as before
+ *
+ * Four threads share one service, so sharedProcessor also pays for the
+ * contended AtomicInteger that keeps transaction IDs unique.
+ *   java -jar target/benchmarks.jar PaymentChargePathBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class PaymentChargePathBenchmark {
+
+    private PaymentService service;
+
+    @Setup
+    public void setUp() {
+        service = new StripePaymentService();
+        service.processor();
+    }
+
+    @Benchmark
+    public String sharedProcessor() {
+        return service.processor().processPayment(25.0, "USD");
+    }
+
+    @Benchmark
+    public String processorPerCall() {
+        return service.createProcessor().processPayment(25.0, "USD");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PaymentChargePathBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
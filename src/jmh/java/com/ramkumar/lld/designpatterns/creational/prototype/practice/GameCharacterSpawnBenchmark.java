@@ -0,0 +1,77 @@
+package com.ramkumar.lld.designpatterns.creational.prototype.practice;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spawn rate for GameCharacter clones with an 8-item inventory.
+ *
+ *   copyOnWriteClone — clone() only; the inventory stays shared with the template
+ *   cloneThenWrite   — clone() plus one removeItem(), which takes the private
+ *                      copy that every clone used to make up front
+ *
+ * Throughput is spawns per microsecond; with -prof gc (enabled by main()),
+ * gc.alloc.rate.norm shows the bytes each spawn allocates.
+ *   java -jar target/benchmarks.jar GameCharacterSpawnBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameCharacterSpawnBenchmark {
+
+    private GameCharacterPractice.Warrior template;
+
+    @Setup
+    public void setUp() {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));   // addItem() logs
+        try {
+            template = new GameCharacterPractice.Warrior("orc-warrior", 12, 180);
+            for (String item : new String[] { "Rusty Axe", "Hide Armor", "Torch", "Rations",
+                                              "Rope", "Flint", "Bone Charm", "Gold Pouch" }) {
+                template.addItem(item);
+            }
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    @Benchmark
+    public Object copyOnWriteClone() {
+        return template.clone();
+    }
+
+    @Benchmark
+    public Object cloneThenWrite() {
+        GameCharacterPractice.Warrior mob = template.clone();
+        mob.removeItem("Gold Pouch");
+        return mob;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(GameCharacterSpawnBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,80 @@
+package com.ramkumar.lld.designpatterns.creational.singleton.code;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady-state getInstance() throughput for the six variants in ApplicationConfigDemo.
+ *
+ * Every variant is already initialised after warm-up, so this measures the
+ * cost of the access path alone — and how it scales when many threads hit it:
+ *
+ *   Eager / Holder / Enum — a static final read; the JIT can constant-fold it
+ *   DCL / LockFree (CAS)  — one volatile read
+ *   Synchronized          — a monitor enter/exit on every call; contends with threads
+ *
+ * Run main() to sweep 1, 2, 4 … N threads, or pick a count from the CLI:
+ *   java -jar target/benchmarks.jar SingletonAccessBenchmark -t 8
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SingletonAccessBenchmark {
+
+    @Benchmark
+    public Object eager() {
+        return ApplicationConfigDemo.EagerConfig.getInstance();
+    }
+
+    @Benchmark
+    public Object synchronizedMethod() {
+        return ApplicationConfigDemo.SynchronizedConfig.getInstance();
+    }
+
+    @Benchmark
+    public Object doubleCheckedLocking() {
+        return ApplicationConfigDemo.DCLConfig.getInstance();
+    }
+
+    @Benchmark
+    public Object holder() {
+        return ApplicationConfigDemo.HolderConfig.getInstance();
+    }
+
+    @Benchmark
+    public Object enumSingleton() {
+        return ApplicationConfigDemo.EnumConfig.INSTANCE;
+    }
+
+    @Benchmark
+    public Object lockFreeCas() {
+        return ApplicationConfigDemo.LockFreeConfig.getInstance();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            Options options = new OptionsBuilder()
+                    .include(SingletonAccessBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.ramkumar.lld.designpatterns.creational.singleton.code;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold-start latency: the very first getInstance() call in a fresh JVM.
+ *
+ * SingleShotTime with no warm-up and one measurement per fork means each
+ * sample includes class loading, static initialisation and the constructor
+ * (which prints, as in the demo). Twenty forks give a usable distribution.
+ * Steady-state cost is covered by SingletonAccessBenchmark.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+@State(Scope.Benchmark)
+public class SingletonColdStartBenchmark {
+
+    @Benchmark
+    public Object eager() {
+        return ApplicationConfigDemo.EagerConfig.getInstance();
+    }
+
+    @Benchmark
+    public Object synchronizedMethod() {
+        return ApplicationConfigDemo.SynchronizedConfig.getInstance();
+    }
+
+    @Benchmark
+    public Object doubleCheckedLocking() {
+        return ApplicationConfigDemo.DCLConfig.getInstance();
+    }
+
+    @Benchmark
+    public Object holder() {
+        return ApplicationConfigDemo.HolderConfig.getInstance();
+    }
+
+    @Benchmark
+    public Object enumSingleton() {
+        return ApplicationConfigDemo.EnumConfig.INSTANCE;
+    }
+
+    @Benchmark
+    public Object lockFreeCas() {
+        return ApplicationConfigDemo.LockFreeConfig.getInstance();
+    }
+}
@@ -1,11 +1,15 @@
 package com.ramkumar.lld.designpatterns.creational.abstractfactory.practice;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Practice Exercise — Abstract Factory Pattern (Creational)
@@ -52,8 +56,8 @@ import java.util.NoSuchElementException;
  *     - Validates bucket not null/blank → IllegalArgumentException
  *     - Validates key not null/blank → IllegalArgumentException
  *     - Validates data not null → IllegalArgumentException("data must not be null")
- *     - Stores data in-memory keyed by bucket + "/" + key
- *     - Prints: "[<Tag>] Uploaded <bucket>/<key> (<data.length()> bytes)"
+ *     - Stores the UTF-8 bytes of data in the storage's BlobStore
+ *     - Prints: "[<Tag>] Uploaded <bucket>/<key> (<byte count> bytes)"
  *
  *   String download(String bucket, String key)
  *     - Validates bucket and key not null/blank → IllegalArgumentException
@@ -62,6 +66,25 @@ import java.util.NoSuchElementException;
  *   String getProviderName()
  *     - Returns "AWS", "Azure", or "GCP"
  *
+ *   void uploadBytes(String bucket, String key, byte[] data)
+ *   byte[] downloadBytes(String bucket, String key)
+ *     - Same rules as upload/download, for binary payloads
+ *
+ *   List<String> list(String bucket, String prefix)
+ *     - Keys in bucket starting with prefix, ascending; "" lists every key
+ *     - An unknown bucket lists as empty
+ *
+ * ── STORAGE ENGINE: BlobStore ───────────────────────────────────────────
+ *
+ *   All three ObjectStorage products delegate to a BlobStore: a thread-safe,
+ *   two-level index bucket → key → byte[]. Each storage gets its own by
+ *   default; pass one BlobStore to all three constructors to use them as a
+ *   single local stand-in for every provider (e.g. in load tests).
+ *     - No bucket + "/" + key string is built per call, so ("a", "b/c") and
+ *       ("a/b", "c") are different objects
+ *     - Payloads are copied in and out — callers cannot mutate stored data
+ *     - objectCount() / totalBytes() report the current contents
+ *
  * ── ABSTRACT PRODUCT C: ManagedDatabase ─────────────────────────────────
  *
  *   void createTable(String tableName)
@@ -164,12 +187,17 @@ public class CloudInfrastructurePractice {
 
 
     // =========================================================================
-    // ── TODO 2: Declare the ObjectStorage interface (3 methods)
+    // ── TODO 2: Declare the ObjectStorage interface (6 methods)
     // =========================================================================
     interface ObjectStorage {
         void upload(String bucket, String key, String data);
         String download(String bucket, String key);
         String getProviderName();
+
+        // ── Binary payloads and listing (see STORAGE ENGINE above) ──
+        void uploadBytes(String bucket, String key, byte[] data);
+        byte[] downloadBytes(String bucket, String key);
+        List<String> list(String bucket, String prefix);
     }
 
 
@@ -194,6 +222,131 @@ public class CloudInfrastructurePractice {
     }
 
 
+    // =========================================================================
+    // BlobStore — concurrent storage engine shared by every ObjectStorage
+    // =========================================================================
+    /**
+     * Two-level index: bucket → (key → bytes). Buckets live in a
+     * ConcurrentHashMap, and each bucket holds its objects in another one, so
+     * get/put are two hash probes. A per-bucket ConcurrentSkipListSet of keys,
+     * touched only when a key is added or removed, serves list(bucket, prefix)
+     * as a sorted range scan. No bucket + "/" + key string is built on any
+     * path except the not-found message.
+     *
+     * Payloads are copied on the way in and on the way out, so callers may
+     * reuse their buffers and cannot change a stored object. Buckets are never
+     * removed once created, which keeps put() free of remove/recreate races.
+     */
+    static final class BlobStore {
+
+        private static final class Bucket {
+            final ConcurrentHashMap<String, byte[]> objects    = new ConcurrentHashMap<>();
+            final ConcurrentSkipListSet<String>     sortedKeys = new ConcurrentSkipListSet<>();
+        }
+
+        private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+        private final LongAdder objects = new LongAdder();
+        private final LongAdder bytes   = new LongAdder();
+
+        void put(String bucket, String key, byte[] data) {
+            validate(bucket, key);
+            if (data == null) {
+                throw new IllegalArgumentException("data must not be null");
+            }
+            byte[] copy = data.clone();
+            Bucket b = buckets.computeIfAbsent(bucket, name -> new Bucket());
+            byte[][] previous = new byte[1][];
+            b.objects.compute(key, (k, old) -> {              // per-key lock keeps sortedKeys in step
+                if (old == null) b.sortedKeys.add(k);
+                previous[0] = old;
+                return copy;
+            });
+            if (previous[0] == null) {
+                objects.increment();
+            }
+            bytes.add(copy.length - (previous[0] == null ? 0 : previous[0].length));
+        }
+
+        byte[] get(String bucket, String key) {
+            return find(bucket, key).clone();
+        }
+
+        /** Size of the stored object without copying it. */
+        int size(String bucket, String key) {
+            return find(bucket, key).length;
+        }
+
+        boolean contains(String bucket, String key) {
+            validate(bucket, key);
+            Bucket b = buckets.get(bucket);
+            return b != null && b.objects.containsKey(key);
+        }
+
+        /** Removes the object; returns false if it was not there. */
+        boolean delete(String bucket, String key) {
+            validate(bucket, key);
+            Bucket b = buckets.get(bucket);
+            if (b == null) {
+                return false;
+            }
+            byte[][] removed = new byte[1][];
+            b.objects.computeIfPresent(key, (k, old) -> {
+                b.sortedKeys.remove(k);
+                removed[0] = old;
+                return null;
+            });
+            if (removed[0] == null) {
+                return false;
+            }
+            objects.decrement();
+            bytes.add(-removed[0].length);
+            return true;
+        }
+
+        /** Keys in the bucket starting with prefix, in ascending order ("" lists all). */
+        List<String> list(String bucket, String prefix) {
+            if (bucket == null || bucket.isBlank()) {
+                throw new IllegalArgumentException("bucket must not be null or blank");
+            }
+            if (prefix == null) {
+                throw new IllegalArgumentException("prefix must not be null");
+            }
+            Bucket b = buckets.get(bucket);
+            if (b == null) {
+                return List.of();
+            }
+            List<String> result = new ArrayList<>();
+            for (String key : b.sortedKeys.tailSet(prefix, true)) {
+                if (!key.startsWith(prefix)) break;
+                result.add(key);
+            }
+            return Collections.unmodifiableList(result);
+        }
+
+        long objectCount() { return objects.sum(); }
+        long totalBytes()  { return bytes.sum(); }
+
+        private byte[] find(String bucket, String key) {
+            validate(bucket, key);
+            Bucket b = buckets.get(bucket);
+            byte[] data = b == null ? null : b.objects.get(key);
+            if (data == null) {
+                throw new NoSuchElementException(bucket + "/" + key + " not found");
+            }
+            return data;
+        }
+
+        private static void validate(String bucket, String key) {
+            if (bucket == null || bucket.isBlank()) {
+                throw new IllegalArgumentException("bucket must not be null or blank");
+            }
+            if (key == null || key.isBlank()) {
+                throw new IllegalArgumentException("key must not be null or blank");
+            }
+        }
+    }
+
+
     // =========================================================================
     // ── TODO 5: Implement AWSComputeInstance
     //            - Tag: "EC2", ID: String.format("aws-i-%05d", ++counter)
@@ -245,11 +398,24 @@ public class CloudInfrastructurePractice {
     // =========================================================================
     // ── TODO 6: Implement AWSS3Storage
     //            - Tag: "S3"
-    //            - In-memory map: Map<String, String> store (key = bucket+"/"+key)
+    //            - Delegates to a BlobStore (its own, or one passed in)
     //            - getProviderName: "AWS"
     // =========================================================================
     static class AWSS3Storage implements ObjectStorage{
-        Map<String, String> storageData = new HashMap<>();
+        private final BlobStore store;
+
+        AWSS3Storage() {
+            this(new BlobStore());
+        }
+
+        /** Shares one engine, e.g. a single BlobStore behind all three providers in a load test. */
+        AWSS3Storage(BlobStore store) {
+            if(store == null) {
+                throw new IllegalArgumentException("Store cannot be null!!");
+            }
+            this.store = store;
+        }
+
         @Override
         public void upload(String bucket, String key, String data){
             if(bucket == null || bucket.isBlank()){
@@ -261,22 +427,24 @@ public class CloudInfrastructurePractice {
             if(data == null || data.isBlank()) {
                 throw new IllegalArgumentException("Data cannot be null or blank!!");
             }
-            storageData.put(bucket + "/" + key, data);
-            System.out.printf("[S3] Uploaded %s/%s (%d bytes)%n\n", bucket, key, data.length());
+            uploadBytes(bucket, key, data.getBytes(StandardCharsets.UTF_8));
         }
         @Override
         public String download(String bucket, String key) {
-            if(bucket == null || bucket.isBlank()) {
-                throw new IllegalArgumentException("Bucket cannot be null or blank");
-            }
-            if(key == null || key.isBlank()){
-                throw new IllegalArgumentException("Key cannot be null or blank");
-            }
-
-            if(!storageData.containsKey(bucket + "/" + key)){
-                throw new NoSuchElementException("bucket + key not found");
-            }
-            return storageData.get(bucket + "/" + key);
+            return new String(store.get(bucket, key), StandardCharsets.UTF_8);
+        }
+        @Override
+        public void uploadBytes(String bucket, String key, byte[] data) {
+            store.put(bucket, key, data);
+            System.out.printf("[S3] Uploaded %s/%s (%d bytes)%n\n", bucket, key, data.length);
+        }
+        @Override
+        public byte[] downloadBytes(String bucket, String key) {
+            return store.get(bucket, key);
+        }
+        @Override
+        public List<String> list(String bucket, String prefix) {
+            return store.list(bucket, prefix);
         }
         @Override
         public String getProviderName() {
@@ -403,11 +571,24 @@ public class CloudInfrastructurePractice {
     // =========================================================================
     // ── TODO 10: Implement AzureBlobStorage
     //             - Tag: "Blob"
-    //             - In-memory map: same structure as AWSS3Storage
+    //             - Delegates to a BlobStore, same as AWSS3Storage
     //             - getProviderName: "Azure"
     // =========================================================================
     static class AzureBlobStorage implements ObjectStorage{
-        Map<String, String> storageData = new HashMap<>();
+        private final BlobStore store;
+
+        AzureBlobStorage() {
+            this(new BlobStore());
+        }
+
+        /** Shares one engine, e.g. a single BlobStore behind all three providers in a load test. */
+        AzureBlobStorage(BlobStore store) {
+            if(store == null) {
+                throw new IllegalArgumentException("Store cannot be null!!");
+            }
+            this.store = store;
+        }
+
         @Override
         public void upload(String bucket, String key, String data){
             if(bucket == null || bucket.isBlank()){
@@ -419,22 +600,24 @@ public class CloudInfrastructurePractice {
             if(data == null || data.isBlank()) {
                 throw new IllegalArgumentException("Data cannot be null or blank!!");
             }
-            storageData.put(bucket + "/" + key, data);
-            System.out.printf("[Blob] Uploaded %s/%s (%d bytes)%n\n", bucket, key, data.length());
+            uploadBytes(bucket, key, data.getBytes(StandardCharsets.UTF_8));
         }
         @Override
         public String download(String bucket, String key) {
-            if(bucket == null || bucket.isBlank()) {
-                throw new IllegalArgumentException("Bucket cannot be null or blank");
-            }
-            if(key == null || key.isBlank()){
-                throw new IllegalArgumentException("Key cannot be null or blank");
-            }
-
-            if(!storageData.containsKey(bucket + "/" + key)){
-                throw new NoSuchElementException("bucket + key not found");
-            }
-            return storageData.get(bucket + "/" + key);
+            return new String(store.get(bucket, key), StandardCharsets.UTF_8);
+        }
+        @Override
+        public void uploadBytes(String bucket, String key, byte[] data) {
+            store.put(bucket, key, data);
+            System.out.printf("[Blob] Uploaded %s/%s (%d bytes)%n\n", bucket, key, data.length);
+        }
+        @Override
+        public byte[] downloadBytes(String bucket, String key) {
+            return store.get(bucket, key);
+        }
+        @Override
+        public List<String> list(String bucket, String prefix) {
+            return store.list(bucket, prefix);
         }
         @Override
         public String getProviderName() {
@@ -562,11 +745,24 @@ public class CloudInfrastructurePractice {
     // =========================================================================
     // ── TODO 14: Implement GCPCloudStorage
     //             - Tag: "GCS"
-    //             - In-memory map: same structure
+    //             - Delegates to a BlobStore, same as AWSS3Storage
     //             - getProviderName: "GCP"
     // =========================================================================
     static class GCPCloudStorage implements ObjectStorage{
-        Map<String, String> storageData = new HashMap<>();
+        private final BlobStore store;
+
+        GCPCloudStorage() {
+            this(new BlobStore());
+        }
+
+        /** Shares one engine, e.g. a single BlobStore behind all three providers in a load test. */
+        GCPCloudStorage(BlobStore store) {
+            if(store == null) {
+                throw new IllegalArgumentException("Store cannot be null!!");
+            }
+            this.store = store;
+        }
+
         @Override
         public void upload(String bucket, String key, String data){
             if(bucket == null || bucket.isBlank()){
@@ -578,22 +774,24 @@ public class CloudInfrastructurePractice {
             if(data == null || data.isBlank()) {
                 throw new IllegalArgumentException("Data cannot be null or blank!!");
             }
-            storageData.put(bucket + "/" + key, data);
-            System.out.printf("[GCS] Uploaded %s/%s (%d bytes)%n\n", bucket, key, data.length());
+            uploadBytes(bucket, key, data.getBytes(StandardCharsets.UTF_8));
         }
         @Override
         public String download(String bucket, String key) {
-            if(bucket == null || bucket.isBlank()) {
-                throw new IllegalArgumentException("Bucket cannot be null or blank");
-            }
-            if(key == null || key.isBlank()){
-                throw new IllegalArgumentException("Key cannot be null or blank");
-            }
-
-            if(!storageData.containsKey(bucket + "/" + key)){
-                throw new NoSuchElementException("bucket + key not found");
-            }
-            return storageData.get(bucket + "/" + key);
+            return new String(store.get(bucket, key), StandardCharsets.UTF_8);
+        }
+        @Override
+        public void uploadBytes(String bucket, String key, byte[] data) {
+            store.put(bucket, key, data);
+            System.out.printf("[GCS] Uploaded %s/%s (%d bytes)%n\n", bucket, key, data.length);
+        }
+        @Override
+        public byte[] downloadBytes(String bucket, String key) {
+            return store.get(bucket, key);
+        }
+        @Override
+        public List<String> list(String bucket, String prefix) {
+            return store.list(bucket, prefix);
         }
         @Override
         public String getProviderName() {
@@ -0,0 +1,847 @@
+package com.ramkumar.lld.designpatterns.creational.abstractfactory.practice;
+
+import com.ramkumar.lld.designpatterns.creational.abstractfactory.practice.CloudInfrastructurePractice.ObjectStorage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Scenario D — A Disk-Backed, Memory-Mapped ObjectStorage
+ *
+ * Integration tests at realistic size need tens of GB of objects, far more
+ * than BlobStore (Scenario C) can hold on the heap. SegmentFileStorage keeps
+ * only the index in memory; payloads live in append-only segment files:
+ *
+ *   segment-00000001.dat  [rec][rec][rec]...   sealed  → mapped READ_ONLY
+ *   segment-00000002.dat  [rec][rec]...        sealed  → mapped READ_ONLY
+ *   segment-00000003.dat  [rec]...             active  → appended, read with pread
+ *
+ *   rec = type(1) bucketLen(2) keyLen(2) dataLen(4) bucket key data
+ *         type PUT carries the object; type DELETE (dataLen 0) is a tombstone
+ *
+ *   - Index: bucket → key → (segment, offset, length), same two-level shape
+ *     as BlobStore, rebuilt by scanning the segments on open. A torn record
+ *     at the end of the newest segment (crash mid-write) is truncated away.
+ *   - Reads of sealed segments copy straight out of the mapping; downloadTo()
+ *     uses FileChannel.transferTo, so the bytes never enter the Java heap.
+ *   - Writes are serialised by one lock; reads never take it.
+ *   - compact(minDeadRatio) rewrites the live records of every segment whose
+ *     overwritten/deleted share reaches minDeadRatio, forces the copies to
+ *     disk, then deletes those files. A tombstone is carried forward while its key is still deleted
+ *     and an older segment that may hold the deleted PUT survives, so deleted
+ *     objects stay deleted after a reopen — and re-uploaded ones stay live.
+ *   - Appends write at the segment's recorded size, never the channel's
+ *     implicit position; a failed append is truncated back off the file.
+ *
+ * Mapped segments are unmapped by the GC, not on delete; on Linux deleting a
+ * mapped file is fine, which is where these tests run.
+ */
+public class SegmentFileStorageDemo {
+
+    // =========================================================================
+    // SegmentFileStorage
+    // =========================================================================
+
+    static final class SegmentFileStorage implements ObjectStorage, AutoCloseable {
+
+        static final int MIN_SEGMENT_BYTES = 4 * 1024;
+        static final int MAX_SEGMENT_BYTES = 1 << 30;             // one MappedByteBuffer per segment
+
+        private static final byte PUT = 1, DELETE = 2;
+        private static final int  HEADER_BYTES   = 9;
+        private static final int  MAX_NAME_BYTES = 0xFFFF;
+
+        private static final class Segment {
+            final int         id;
+            final Path        path;
+            final FileChannel channel;
+            final AtomicLong  deadBytes = new AtomicLong();     // overwritten, deleted and tombstone records
+            volatile long     size;                             // append position; written under writeLock
+            volatile MappedByteBuffer map;                      // set once sealed
+
+            Segment(int id, Path path, FileChannel channel) {
+                this.id = id;
+                this.path = path;
+                this.channel = channel;
+            }
+        }
+
+        private static final class Location {
+            final Segment segment;
+            final int     recordOffset;
+            final int     recordLength;
+            final int     dataOffset;
+            final int     dataLength;
+
+            Location(Segment segment, int recordOffset, int recordLength, int dataLength) {
+                this.segment      = segment;
+                this.recordOffset = recordOffset;
+                this.recordLength = recordLength;
+                this.dataOffset   = recordOffset + recordLength - dataLength;
+                this.dataLength   = dataLength;
+            }
+        }
+
+        private static final class Bucket {
+            final ConcurrentHashMap<String, Location> objects    = new ConcurrentHashMap<>();
+            final ConcurrentSkipListSet<String>      sortedKeys = new ConcurrentSkipListSet<>();
+        }
+
+        private final Path directory;
+        private final int  maxSegmentBytes;
+        private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+        private final LongAdder objects = new LongAdder();
+
+        // writeLock serialises appends, index updates and compaction.
+        // segmentsLock: readers hold it shared while they touch a segment; closing a segment takes it exclusively.
+        private final ReentrantLock          writeLock    = new ReentrantLock();
+        private final ReentrantReadWriteLock segmentsLock = new ReentrantReadWriteLock();
+        private final List<Segment> segments = new ArrayList<>();  // ascending id
+        private Segment active;
+        private int     nextSegmentId = 1;
+        private volatile boolean closed;
+
+        /** Opens (or creates) the store in directory and rebuilds the index from its segments. */
+        SegmentFileStorage(Path directory, int maxSegmentBytes) throws IOException {
+            if (directory == null) {
+                throw new IllegalArgumentException("directory must not be null");
+            }
+            if (maxSegmentBytes < MIN_SEGMENT_BYTES || maxSegmentBytes > MAX_SEGMENT_BYTES) {
+                throw new IllegalArgumentException("maxSegmentBytes must be between " + MIN_SEGMENT_BYTES
+                        + " and " + MAX_SEGMENT_BYTES);
+            }
+            this.directory       = Files.createDirectories(directory);
+            this.maxSegmentBytes = maxSegmentBytes;
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(p -> p.getFileName().toString().matches("segment-\\d{8}\\.dat"))
+                               .sorted(Comparator.comparing(p -> p.getFileName().toString()))
+                               .toList();
+            }
+            for (int i = 0; i < files.size(); i++) {
+                Path path = files.get(i);
+                int id = Integer.parseInt(path.getFileName().toString().substring(8, 16));
+                Segment segment = new Segment(id, path, FileChannel.open(path, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE));
+                recover(segment, i == files.size() - 1);
+                seal(segment);
+                segments.add(segment);
+                nextSegmentId = id + 1;
+            }
+            active = newSegment();
+        }
+
+        // ── ObjectStorage ────────────────────────────────────────────────────
+
+        @Override
+        public void upload(String bucket, String key, String data) {
+            if (data == null) {
+                throw new IllegalArgumentException("data must not be null");
+            }
+            uploadBytes(bucket, key, data.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String download(String bucket, String key) {
+            return new String(downloadBytes(bucket, key), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void uploadBytes(String bucket, String key, byte[] data) {
+            byte[] bucketBytes = encodeName("bucket", bucket);
+            byte[] keyBytes    = encodeName("key", key);
+            if (data == null) {
+                throw new IllegalArgumentException("data must not be null");
+            }
+            int recordLength = HEADER_BYTES + bucketBytes.length + keyBytes.length;
+            if (data.length > maxSegmentBytes - recordLength) {
+                throw new IllegalArgumentException("object of " + data.length + " bytes does not fit a "
+                        + maxSegmentBytes + "-byte segment");
+            }
+            writeLock.lock();
+            try {
+                ensureOpen();
+                Location location = append(PUT, bucketBytes, keyBytes, data);
+                Bucket b = buckets.computeIfAbsent(bucket, name -> new Bucket());
+                Location previous = b.objects.put(key, location);
+                if (previous == null) {
+                    b.sortedKeys.add(key);
+                    objects.increment();
+                } else {
+                    previous.segment.deadBytes.addAndGet(previous.recordLength);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        @Override
+        public byte[] downloadBytes(String bucket, String key) {
+            validate(bucket, key);
+            segmentsLock.readLock().lock();
+            try {
+                ensureOpen();
+                Location location = find(bucket, key);
+                byte[] out = new byte[location.dataLength];
+                MappedByteBuffer map = location.segment.map;
+                if (map != null) {
+                    map.get(location.dataOffset, out);
+                } else {
+                    ByteBuffer dst = ByteBuffer.wrap(out);
+                    while (dst.hasRemaining()) {
+                        if (location.segment.channel.read(dst, location.dataOffset + dst.position()) < 0) {
+                            throw new IOException("unexpected end of " + location.segment.path);
+                        }
+                    }
+                }
+                return out;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                segmentsLock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public List<String> list(String bucket, String prefix) {
+            if (bucket == null || bucket.isBlank()) {
+                throw new IllegalArgumentException("bucket must not be null or blank");
+            }
+            if (prefix == null) {
+                throw new IllegalArgumentException("prefix must not be null");
+            }
+            Bucket b = buckets.get(bucket);
+            if (b == null) {
+                return List.of();
+            }
+            List<String> result = new ArrayList<>();
+            for (String key : b.sortedKeys.tailSet(prefix, true)) {
+                if (!key.startsWith(prefix)) break;
+                result.add(key);
+            }
+            return Collections.unmodifiableList(result);
+        }
+
+        @Override
+        public String getProviderName() {
+            return "Local";
+        }
+
+        // ── Beyond ObjectStorage ─────────────────────────────────────────────
+
+        /**
+         * Streams the object into target with FileChannel.transferTo — the
+         * bytes go file → target without a heap copy. target must be blocking.
+         * Returns the number of bytes written.
+         */
+        long downloadTo(String bucket, String key, WritableByteChannel target) throws IOException {
+            validate(bucket, key);
+            if (target == null) {
+                throw new IllegalArgumentException("target must not be null");
+            }
+            segmentsLock.readLock().lock();
+            try {
+                ensureOpen();
+                Location location = find(bucket, key);
+                long position = location.dataOffset, end = position + location.dataLength;
+                while (position < end) {
+                    position += location.segment.channel.transferTo(position, end - position, target);
+                }
+                return location.dataLength;
+            } finally {
+                segmentsLock.readLock().unlock();
+            }
+        }
+
+        /** Removes the object by appending a tombstone; returns false if it was not there. */
+        boolean delete(String bucket, String key) {
+            byte[] bucketBytes = encodeName("bucket", bucket);
+            byte[] keyBytes    = encodeName("key", key);
+            writeLock.lock();
+            try {
+                ensureOpen();
+                Bucket b = buckets.get(bucket);
+                Location previous = b == null ? null : b.objects.get(key);
+                if (previous == null) {
+                    return false;
+                }
+                Location tombstone = append(DELETE, bucketBytes, keyBytes, null);
+                tombstone.segment.deadBytes.addAndGet(tombstone.recordLength);
+                b.objects.remove(key);
+                b.sortedKeys.remove(key);
+                objects.decrement();
+                previous.segment.deadBytes.addAndGet(previous.recordLength);
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        /**
+         * Seals the active segment, then rewrites the live records of every
+         * segment whose dead share is at least minDeadRatio and deletes those
+         * files. Readers keep running; writers wait. Returns bytes reclaimed.
+         */
+        long compact(double minDeadRatio) throws IOException {
+            if (minDeadRatio < 0 || minDeadRatio > 1) {
+                throw new IllegalArgumentException("minDeadRatio must be between 0 and 1");
+            }
+            writeLock.lock();
+            try {
+                ensureOpen();
+                if (active.size > 0) {
+                    roll();
+                }
+                List<Segment> victims = new ArrayList<>();
+                for (Segment segment : segments) {
+                    if (segment != active
+                            && (segment.size == 0 || (double) segment.deadBytes.get() / segment.size >= minDeadRatio)) {
+                        victims.add(segment);
+                    }
+                }
+                if (victims.isEmpty()) {
+                    return 0;
+                }
+                long before = 0, copied = 0;
+                List<Segment> written = new ArrayList<>();       // every segment a copy landed in
+                for (Segment victim : victims) {
+                    before += victim.size;
+                    boolean olderSurvivor = false;               // may an older segment still hold a deleted PUT?
+                    for (Segment segment : segments) {
+                        if (segment.id < victim.id && !victims.contains(segment)) olderSurvivor = true;
+                    }
+                    MappedByteBuffer map = victim.map;
+                    int position = 0, end = (int) victim.size;
+                    while (position < end) {
+                        int length = recordLength(map, position, end);
+                        if (map.get(position) == PUT) {
+                            String bucket = readName(map, position + HEADER_BYTES, map.getShort(position + 1) & 0xFFFF);
+                            String key    = readName(map, position + HEADER_BYTES + (map.getShort(position + 1) & 0xFFFF),
+                                                     map.getShort(position + 3) & 0xFFFF);
+                            Bucket b = buckets.get(bucket);
+                            Location current = b == null ? null : b.objects.get(key);
+                            if (current != null && current.segment == victim && current.recordOffset == position) {
+                                Location moved = copy(victim, current);
+                                b.objects.put(key, moved);
+                                if (!written.contains(moved.segment)) written.add(moved.segment);
+                                copied += length;
+                            }
+                        } else if (olderSurvivor && !isLive(map, position)) {
+                            // Only while the key is still deleted: if it was uploaded again,
+                            // the copy would land after that newer PUT and delete it on reopen
+                            Location tombstone = copy(victim, new Location(victim, position, length, 0));
+                            tombstone.segment.deadBytes.addAndGet(length);
+                            if (!written.contains(tombstone.segment)) written.add(tombstone.segment);
+                            copied += length;
+                        }
+                        position += length;
+                    }
+                }
+                // The copies must be on disk before the originals go: otherwise a power loss here
+                // loses live objects and resurrects deleted ones
+                for (Segment segment : written) segment.channel.force(false);
+                segmentsLock.writeLock().lock();                 // waits for readers still inside a victim
+                try {
+                    segments.removeAll(victims);
+                    for (Segment victim : victims) victim.channel.close();
+                } finally {
+                    segmentsLock.writeLock().unlock();
+                }
+                for (Segment victim : victims) Files.delete(victim.path);
+                return before - copied;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        /** Forces the active segment to disk. */
+        void sync() throws IOException {
+            writeLock.lock();
+            try {
+                ensureOpen();
+                active.channel.force(false);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        long objectCount() { return objects.sum(); }
+
+        int segmentCount() {
+            segmentsLock.readLock().lock();
+            try {
+                return segments.size();
+            } finally {
+                segmentsLock.readLock().unlock();
+            }
+        }
+
+        long diskBytes() {
+            segmentsLock.readLock().lock();
+            try {
+                long total = 0;
+                for (Segment segment : segments) total += segment.size;
+                return total;
+            } finally {
+                segmentsLock.readLock().unlock();
+            }
+        }
+
+        long deadBytes() {
+            segmentsLock.readLock().lock();
+            try {
+                long total = 0;
+                for (Segment segment : segments) total += segment.deadBytes.get();
+                return total;
+            } finally {
+                segmentsLock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writeLock.lock();
+            try {
+                if (closed) return;
+                segmentsLock.writeLock().lock();
+                try {
+                    closed = true;
+                    for (Segment segment : segments) segment.channel.close();
+                    segments.clear();
+                } finally {
+                    segmentsLock.writeLock().unlock();
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        // ── Internals (writeLock held unless noted) ──────────────────────────
+
+        private Location append(byte type, byte[] bucket, byte[] key, byte[] data) throws IOException {
+            int dataLength   = data == null ? 0 : data.length;
+            int recordLength = HEADER_BYTES + bucket.length + key.length + dataLength;
+            Segment segment  = segmentFor(recordLength);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + bucket.length + key.length)
+                    .put(type).putShort((short) bucket.length).putShort((short) key.length).putInt(dataLength)
+                    .put(bucket).put(key)
+                    .flip();
+            ByteBuffer[] buffers = data == null ? new ByteBuffer[] { header }
+                                                : new ByteBuffer[] { header, ByteBuffer.wrap(data) };
+            long offset = segment.size, position = offset;
+            try {
+                for (ByteBuffer buffer : buffers) {
+                    while (buffer.hasRemaining()) {
+                        position += segment.channel.write(buffer, position);
+                    }
+                }
+            } catch (IOException e) {
+                discardTail(segment, offset, e);
+                throw e;
+            }
+            segment.size = offset + recordLength;
+            return new Location(segment, (int) offset, recordLength, dataLength);
+        }
+
+        // Moves one record file-to-file with transferTo, written at the target's recorded size
+        private Location copy(Segment from, Location record) throws IOException {
+            Segment to = segmentFor(record.recordLength);
+            long offset = to.size, done = 0;
+            try {
+                while (done < record.recordLength) {
+                    to.channel.position(offset + done);
+                    done += from.channel.transferTo(record.recordOffset + done, record.recordLength - done, to.channel);
+                }
+            } catch (IOException e) {
+                discardTail(to, offset, e);
+                throw e;
+            }
+            to.size = offset + record.recordLength;
+            return new Location(to, (int) offset, record.recordLength, record.dataLength);
+        }
+
+        // A half-written record would be read back as a torn tail (or worse, as
+        // the start of the next record), so cut the file back to the last good size
+        private static void discardTail(Segment segment, long size, IOException cause) {
+            try {
+                segment.channel.truncate(size);
+            } catch (IOException suppressed) {
+                cause.addSuppressed(suppressed);
+            }
+        }
+
+        // True if the key of the record at position is in the index (written since any tombstone)
+        private boolean isLive(MappedByteBuffer map, int position) {
+            int bucketLength = map.getShort(position + 1) & 0xFFFF;
+            String bucket = readName(map, position + HEADER_BYTES, bucketLength);
+            String key    = readName(map, position + HEADER_BYTES + bucketLength, map.getShort(position + 3) & 0xFFFF);
+            Bucket b = buckets.get(bucket);
+            return b != null && b.objects.containsKey(key);
+        }
+
+        private Segment segmentFor(int recordLength) throws IOException {
+            if (active.size > 0 && active.size + recordLength > maxSegmentBytes) {
+                roll();
+            }
+            return active;
+        }
+
+        private void roll() throws IOException {
+            seal(active);
+            active = newSegment();
+        }
+
+        private static void seal(Segment segment) throws IOException {
+            segment.map = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.size);
+        }
+
+        private Segment newSegment() throws IOException {
+            int id = nextSegmentId++;
+            Path path = directory.resolve(String.format("segment-%08d.dat", id));
+            Segment segment = new Segment(id, path, FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE));
+            segmentsLock.writeLock().lock();
+            try {
+                segments.add(segment);
+            } finally {
+                segmentsLock.writeLock().unlock();
+            }
+            return segment;
+        }
+
+        // Replays one segment into the index (constructor only)
+        private void recover(Segment segment, boolean newest) throws IOException {
+            long fileSize = segment.channel.size();
+            if (fileSize > MAX_SEGMENT_BYTES) {
+                throw new IllegalStateException(segment.path + " is larger than " + MAX_SEGMENT_BYTES + " bytes");
+            }
+            MappedByteBuffer map = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            int position = 0, end = (int) fileSize;
+            while (position < end) {
+                int length = recordLength(map, position, end);
+                if (length < 0) {
+                    if (!newest) {
+                        throw new IllegalStateException("corrupt record in " + segment.path + " at offset " + position);
+                    }
+                    segment.channel.truncate(position);           // torn write at the tail
+                    break;
+                }
+                int bucketLength = map.getShort(position + 1) & 0xFFFF;
+                String bucket = readName(map, position + HEADER_BYTES, bucketLength);
+                String key    = readName(map, position + HEADER_BYTES + bucketLength, map.getShort(position + 3) & 0xFFFF);
+                Bucket b = buckets.computeIfAbsent(bucket, name -> new Bucket());
+                Location previous;
+                if (map.get(position) == PUT) {
+                    previous = b.objects.put(key, new Location(segment, position, length, map.getInt(position + 5)));
+                    if (previous == null) {
+                        b.sortedKeys.add(key);
+                        objects.increment();
+                    }
+                } else {
+                    previous = b.objects.remove(key);
+                    if (previous != null) {
+                        b.sortedKeys.remove(key);
+                        objects.decrement();
+                    }
+                    segment.deadBytes.addAndGet(length);
+                }
+                if (previous != null) {
+                    previous.segment.deadBytes.addAndGet(previous.recordLength);
+                }
+                position += length;
+            }
+            segment.size = position;
+        }
+
+        // Length of the record at position, or -1 if it is torn or malformed
+        private static int recordLength(ByteBuffer map, int position, int end) {
+            if (end - position < HEADER_BYTES) return -1;
+            byte type = map.get(position);
+            int  dataLength = map.getInt(position + 5);
+            if ((type != PUT && type != DELETE) || dataLength < 0 || (type == DELETE && dataLength != 0)) return -1;
+            long length = (long) HEADER_BYTES + (map.getShort(position + 1) & 0xFFFF)
+                        + (map.getShort(position + 3) & 0xFFFF) + dataLength;
+            return position + length > end ? -1 : (int) length;
+        }
+
+        private static String readName(ByteBuffer map, int offset, int length) {
+            byte[] bytes = new byte[length];
+            map.get(offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private Location find(String bucket, String key) {
+            Bucket b = buckets.get(bucket);
+            Location location = b == null ? null : b.objects.get(key);
+            if (location == null) {
+                throw new NoSuchElementException(bucket + "/" + key + " not found");
+            }
+            return location;
+        }
+
+        private void ensureOpen() {
+            if (closed) {
+                throw new IllegalStateException("storage is closed");
+            }
+        }
+
+        private static byte[] encodeName(String what, String name) {
+            if (name == null || name.isBlank()) {
+                throw new IllegalArgumentException(what + " must not be null or blank");
+            }
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_NAME_BYTES) {
+                throw new IllegalArgumentException(what + " must be at most " + MAX_NAME_BYTES + " UTF-8 bytes");
+            }
+            return bytes;
+        }
+
+        private static void validate(String bucket, String key) {
+            if (bucket == null || bucket.isBlank()) {
+                throw new IllegalArgumentException("bucket must not be null or blank");
+            }
+            if (key == null || key.isBlank()) {
+                throw new IllegalArgumentException("key must not be null or blank");
+            }
+        }
+    }
+
+    // =========================================================================
+    // Main
+    // =========================================================================
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static byte[] payload(int seed, int length) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        Path dir = Files.createTempDirectory("segment-store-");
+
+        System.out.println("═══ Test 1: ObjectStorage round trip, overwrite, listing ═════");
+        SegmentFileStorage disk = new SegmentFileStorage(dir, 64 * 1024);
+        ObjectStorage storage = disk;                            // usable wherever an ObjectStorage is
+        storage.upload("app-configs", "payment-service/latest", "instance=aws-i-00001");
+        storage.upload("app-configs", "payment-service/latest", "instance=aws-i-00002");
+        storage.uploadBytes("assets", "logo.png", new byte[] { (byte) 0x89, 'P', 'N', 'G', 0 });
+        storage.upload("app-configs", "analytics/latest", "instance=gcp-gce-00001");
+        System.out.println("download: " + storage.download("app-configs", "payment-service/latest"));
+        System.out.println("list:     " + storage.list("app-configs", ""));
+        boolean missing = false;
+        try {
+            storage.download("assets", "nope.png");
+        } catch (NoSuchElementException e) {
+            missing = true;
+            System.out.println("Caught NSE: " + e.getMessage());
+        }
+        boolean t1 = "instance=aws-i-00002".equals(storage.download("app-configs", "payment-service/latest"))
+                  && storage.downloadBytes("assets", "logo.png")[1] == 'P'
+                  && storage.list("app-configs", "").equals(List.of("analytics/latest", "payment-service/latest"))
+                  && disk.objectCount() == 3 && disk.deadBytes() > 0 && missing
+                  && "Local".equals(storage.getProviderName());
+        System.out.println("Test 1 " + (t1 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 2: Reopen rebuilds the index; a torn tail is dropped ═");
+        for (int i = 0; i < 200; i++) {                          // ~1 MB over 64 KB segments
+            disk.uploadBytes("blobs", "obj-" + i, payload(i, 5_000));
+        }
+        disk.delete("assets", "logo.png");
+        disk.delete("blobs", "obj-7");
+        int segmentsBefore = disk.segmentCount();
+        disk.close();
+        Path newest;
+        try (Stream<Path> files = Files.list(dir)) {
+            newest = files.max(Comparator.comparing(p -> p.getFileName().toString())).orElseThrow();
+        }
+        Files.write(newest, new byte[] { 1, 0, 6 }, StandardOpenOption.APPEND);   // half a header: crash mid-write
+        disk = new SegmentFileStorage(dir, 64 * 1024);
+        boolean contentOk = true;
+        for (int i = 0; i < 200; i++) {
+            if (i != 7) contentOk &= Arrays.equals(disk.downloadBytes("blobs", "obj-" + i), payload(i, 5_000));
+        }
+        System.out.println("segments: " + segmentsBefore + ", objects after reopen: " + disk.objectCount()
+                + ", logo.png listed: " + disk.list("assets", "").contains("logo.png"));
+        boolean t2 = contentOk && disk.objectCount() == 3 + 200 - 2 && segmentsBefore > 10
+                  && disk.list("assets", "").isEmpty() && !disk.list("blobs", "obj-7").contains("obj-7")
+                  && "instance=aws-i-00002".equals(disk.download("app-configs", "payment-service/latest"));
+        System.out.println("Test 2 " + (t2 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 3: downloadTo streams through transferTo, not the heap ═");
+        disk.close();
+        deleteDirectory(dir);
+        dir = Files.createTempDirectory("segment-store-");
+        disk = new SegmentFileStorage(dir, 64 * 1024 * 1024);
+        byte[] big = payload(42, 16 * 1024 * 1024);
+        disk.uploadBytes("backups", "db.snapshot", big);
+        ByteArrayOutputStream viaChannel = new ByteArrayOutputStream(big.length);
+        disk.downloadTo("backups", "db.snapshot", Channels.newChannel(viaChannel));
+        long[] allocated = new long[2];
+        boolean copyOk = true;
+        Path target = dir.resolve("restore.tmp");
+        for (int round = 0; round < 3; round++) {
+            long a0 = THREADS.getCurrentThreadAllocatedBytes();
+            byte[] copy = disk.downloadBytes("backups", "db.snapshot");
+            long a1 = THREADS.getCurrentThreadAllocatedBytes();
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                disk.downloadTo("backups", "db.snapshot", out);
+            }
+            long a2 = THREADS.getCurrentThreadAllocatedBytes();
+            copyOk &= copy.length == big.length;
+            allocated[0] = a1 - a0;
+            allocated[1] = a2 - a1;
+        }
+        boolean fileMatches = Arrays.equals(Files.readAllBytes(target), big);
+        Files.delete(target);
+        System.out.printf("16 MB object — downloadBytes allocated %,d B, downloadTo(FileChannel) allocated %,d B%n",
+                allocated[0], allocated[1]);
+        boolean t3 = Arrays.equals(viaChannel.toByteArray(), big) && fileMatches && copyOk
+                  && allocated[0] >= big.length && allocated[1] < 64 * 1024;
+        System.out.println("Test 3 " + (t3 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 4: Compaction reclaims deleted objects, survives reopen ═");
+        disk.close();
+        deleteDirectory(dir);
+        dir = Files.createTempDirectory("segment-store-");
+        disk = new SegmentFileStorage(dir, 256 * 1024);
+        int count = 2_000;
+        for (int i = 0; i < count; i++) {
+            disk.uploadBytes("logs", String.format("2024/%04d.log", i), payload(i, 4_000));
+        }
+        for (int i = 0; i < count; i++) {
+            if (i % 4 != 0) disk.delete("logs", String.format("2024/%04d.log", i));   // keep every 4th
+        }
+        long diskBefore = disk.diskBytes();
+        int segmentsBeforeCompaction = disk.segmentCount();
+        long reclaimed = disk.compact(0.5);
+        long diskAfter = disk.diskBytes();
+        disk.close();
+        disk = new SegmentFileStorage(dir, 256 * 1024);
+        boolean survivorsOk = true;
+        for (int i = 0; i < count; i += 4) {
+            survivorsOk &= Arrays.equals(disk.downloadBytes("logs", String.format("2024/%04d.log", i)), payload(i, 4_000));
+        }
+        System.out.printf("disk %,d → %,d bytes (reclaimed %,d), segments %d → %d, objects after reopen %,d%n",
+                diskBefore, diskAfter, reclaimed, segmentsBeforeCompaction, disk.segmentCount(), disk.objectCount());
+
+        // delete → re-upload → compact the tombstone's segment: the new object must survive a reopen
+        Path reuploadDir = Files.createTempDirectory("segment-store-");
+        SegmentFileStorage reupload = new SegmentFileStorage(reuploadDir, 64 * 1024);
+        reupload.upload("cfg", "k", "v1");
+        reupload.uploadBytes("cfg", "filler", payload(1, 8_000));     // keeps segment 1 alive
+        reupload.compact(1.0);                                   // seals segment 1
+        reupload.delete("cfg", "k");                             // tombstone → segment 2
+        reupload.uploadBytes("cfg", "junk", payload(2, 100));
+        reupload.compact(1.0);                                   // seals segment 2
+        reupload.upload("cfg", "k", "v3");                       // segment 3
+        reupload.delete("cfg", "junk");                          // segment 2 is now all dead
+        reupload.compact(0.9);                                   // rewrites segment 2 only
+        String beforeReopen = reupload.download("cfg", "k");
+        reupload.close();
+        reupload = new SegmentFileStorage(reuploadDir, 64 * 1024);
+        String afterReopen = reupload.list("cfg", "").contains("k") ? reupload.download("cfg", "k") : "<deleted>";
+        reupload.close();
+        deleteDirectory(reuploadDir);
+        System.out.println("delete, re-upload, compact, reopen: k=" + beforeReopen + " → " + afterReopen);
+
+        boolean t4 = survivorsOk && disk.objectCount() == count / 4 && diskAfter < diskBefore / 3
+                  && reclaimed == diskBefore - diskAfter && disk.list("logs", "2024/0001").isEmpty()
+                  && disk.list("logs", "").size() == count / 4
+                  && "v3".equals(beforeReopen) && "v3".equals(afterReopen);
+        System.out.println("Test 4 " + (t4 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 5: Readers keep going while writes and compaction run ═");
+        int readers = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(readers);
+        CountDownLatch go = new CountDownLatch(1);
+        SegmentFileStorage shared = disk;
+        List<Future<Long>> reads = new ArrayList<>();
+        long deadline = System.nanoTime() + 1_000_000_000L;
+        for (int r = 0; r < readers; r++) {
+            int seed = r;
+            reads.add(pool.submit(() -> {
+                go.await();
+                Random random = new Random(seed);
+                long ok = 0;
+                while (System.nanoTime() < deadline) {
+                    int i = random.nextInt(count / 4) * 4;
+                    if (Arrays.equals(shared.downloadBytes("logs", String.format("2024/%04d.log", i)), payload(i, 4_000))) ok++;
+                    else throw new IllegalStateException("wrong bytes for " + i);
+                }
+                return ok;
+            }));
+        }
+        go.countDown();
+        int compactions = 0;
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < 50; i++) {
+                shared.uploadBytes("scratch", "tmp-" + i, payload(i, 4_000));
+                shared.delete("scratch", "tmp-" + i);
+            }
+            shared.compact(0.5);
+            compactions++;
+        }
+        long verifiedReads = 0;
+        for (Future<Long> f : reads) verifiedReads += f.get();
+        pool.shutdown();
+        System.out.printf("%,d verified reads across %d compactions, %d segment(s), %,d dead bytes left%n",
+                verifiedReads, compactions, disk.segmentCount(), disk.deadBytes());
+        boolean t5 = verifiedReads > 0 && compactions > 1 && disk.objectCount() == count / 4;
+        System.out.println("Test 5 " + (t5 ? "PASSED" : "FAILED"));
+
+        disk.close();
+        boolean closedRejects = false;
+        try {
+            disk.download("logs", "2024/0000.log");
+        } catch (IllegalStateException e) {
+            closedRejects = true;
+        }
+        deleteDirectory(dir);
+        System.out.println("\n(closed store rejects reads: " + closedRejects + ")");
+    }
+}
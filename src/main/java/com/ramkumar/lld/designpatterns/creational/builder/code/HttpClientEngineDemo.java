@@ -0,0 +1,1109 @@
+package com.ramkumar.lld.designpatterns.creational.builder.code;
+
+import com.ramkumar.lld.designpatterns.creational.builder.code.HttpRequestDemo.HttpRequest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scenario C: Pipelined HTTP/1.1 Client Engine
+ *
+ * HttpRequest is only a value object. HttpClientEngine executes it: send()
+ * returns a CompletableFuture and one selector thread does all the I/O, so
+ * thousands of requests in flight cost a handful of sockets, not threads.
+ *
+ *   - Connection pool per origin (host:port), capped at maxConnectionsPerOrigin.
+ *     Finished connections stay open (keep-alive) and are reused; idle ones
+ *     are closed after idleTimeoutMs.
+ *   - Pipelining: once every allowed connection is busy, further requests are
+ *     written behind the in-flight ones, up to maxPipelineDepth per connection.
+ *     HTTP/1.1 answers in request order, so each connection keeps a FIFO of
+ *     exchanges and the next parsed response belongs to the head.
+ *   - Only idempotent methods are pipelined (RFC 9112 §9.3.2). POST and PATCH
+ *     wait for an idle connection and nothing is queued behind them.
+ *   - timeoutMs is a deadline for the whole exchange, redirects included. A
+ *     request that times out while in flight poisons its connection (its
+ *     response would arrive ahead of the ones queued behind it), so the
+ *     connection is closed and the idempotent requests behind it are retried
+ *     once on another connection.
+ *   - followRedirects follows 301/302/303/307/308 up to 5 hops; 303, and
+ *     301/302 after a POST, switch to GET as browsers do. A hop to another
+ *     scheme, host or port drops Authorization and Cookie; a switch to GET
+ *     drops the body and its Content-Type / Content-Length.
+ *
+ * Plain http:// only — there is no TLS layer. LoopbackServer is a small
+ * in-process HTTP/1.1 server used by main() to exercise all of the above.
+ */
+public class HttpClientEngineDemo {
+
+    // =========================================================================
+    // HttpResponse — status, headers (lower-case names) and a UTF-8 body
+    // =========================================================================
+
+    static final class HttpResponse {
+
+        private final int                 status;
+        private final String              reason;
+        private final Map<String, String> headers;
+        private final String              body;
+
+        HttpResponse(int status, String reason, Map<String, String> headers, String body) {
+            this.status  = status;
+            this.reason  = reason;
+            this.headers = Collections.unmodifiableMap(headers);
+            this.body    = body;
+        }
+
+        public int                 getStatus()  { return status; }
+        public String              getReason()  { return reason; }
+        public Map<String, String> getHeaders() { return headers; }
+        public String              getBody()    { return body; }
+
+        public String header(String name) {
+            return headers.get(name.toLowerCase(Locale.ROOT));
+        }
+
+        @Override
+        public String toString() {
+            return "HttpResponse{" + status + " " + reason + ", body='" + body + "'}";
+        }
+    }
+
+    // =========================================================================
+    // ResponseParser — incremental: returns null until a full response is buffered
+    // =========================================================================
+
+    static final class ResponseParser {
+
+        private static final int MAX_HEADER_BYTES = 64 * 1024;
+
+        static final class Parsed {
+            final HttpResponse response;
+            final int          consumed;       // bytes of the buffer this response used
+            final boolean      close;          // server will not send anything after it
+
+            Parsed(HttpResponse response, int consumed, boolean close) {
+                this.response = response;
+                this.consumed = consumed;
+                this.close    = close;
+            }
+        }
+
+        private ResponseParser() { }
+
+        /**
+         * Parses one response from {@code buf[0, len)}. {@code headRequest} means
+         * there is no body whatever the headers say; {@code eof} completes a
+         * response whose body is delimited by the connection closing.
+         */
+        static Parsed tryParse(byte[] buf, int len, boolean headRequest, boolean eof) throws IOException {
+            int headerEnd = indexOf(buf, 0, len, "\r\n\r\n");
+            if (headerEnd < 0) {
+                if (len > MAX_HEADER_BYTES) {
+                    throw new IOException("response header exceeds " + MAX_HEADER_BYTES + " bytes");
+                }
+                return null;
+            }
+            String[] lines = new String(buf, 0, headerEnd, StandardCharsets.ISO_8859_1).split("\r\n");
+            String[] statusLine = lines[0].split(" ", 3);
+            if (statusLine.length < 2 || !statusLine[0].startsWith("HTTP/1.")) {
+                throw new IOException("malformed status line: " + lines[0]);
+            }
+            int status;
+            try {
+                status = Integer.parseInt(statusLine[1]);
+            } catch (NumberFormatException e) {
+                throw new IOException("malformed status code: " + statusLine[1], e);
+            }
+            String reason = statusLine.length > 2 ? statusLine[2] : "";
+
+            Map<String, String> headers = new HashMap<>();
+            for (int i = 1; i < lines.length; i++) {
+                int colon = lines[i].indexOf(':');
+                if (colon <= 0) {
+                    throw new IOException("malformed header line: " + lines[i]);
+                }
+                String name  = lines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT);
+                String value = lines[i].substring(colon + 1).trim();
+                headers.merge(name, value, (a, b) -> a + ", " + b);
+            }
+
+            String connection = headers.getOrDefault("connection", "");
+            boolean close = "close".equalsIgnoreCase(connection)
+                    || ("HTTP/1.0".equals(statusLine[0]) && !"keep-alive".equalsIgnoreCase(connection));
+
+            int bodyStart = headerEnd + 4;
+            if (headRequest || status / 100 == 1 || status == 204 || status == 304) {
+                return new Parsed(new HttpResponse(status, reason, headers, ""), bodyStart, close);
+            }
+            String transferEncoding = headers.get("transfer-encoding");
+            if (transferEncoding != null && transferEncoding.toLowerCase(Locale.ROOT).contains("chunked")) {
+                return parseChunked(buf, len, bodyStart, status, reason, headers, close);
+            }
+            String contentLength = headers.get("content-length");
+            if (contentLength != null) {
+                int length;
+                try {
+                    length = Integer.parseInt(contentLength);
+                } catch (NumberFormatException e) {
+                    throw new IOException("malformed Content-Length: " + contentLength, e);
+                }
+                if (length < 0) {
+                    throw new IOException("malformed Content-Length: " + contentLength);
+                }
+                if (len - bodyStart < length) {
+                    return null;
+                }
+                String body = new String(buf, bodyStart, length, StandardCharsets.UTF_8);
+                return new Parsed(new HttpResponse(status, reason, headers, body), bodyStart + length, close);
+            }
+            // No length at all — the body runs until the server closes the connection
+            if (!eof) {
+                return null;
+            }
+            String body = new String(buf, bodyStart, len - bodyStart, StandardCharsets.UTF_8);
+            return new Parsed(new HttpResponse(status, reason, headers, body), len, true);
+        }
+
+        private static Parsed parseChunked(byte[] buf, int len, int pos, int status, String reason,
+                                           Map<String, String> headers, boolean close) throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            while (true) {
+                int lineEnd = indexOf(buf, pos, len, "\r\n");
+                if (lineEnd < 0) {
+                    return null;
+                }
+                String sizeField = new String(buf, pos, lineEnd - pos, StandardCharsets.ISO_8859_1);
+                int semicolon = sizeField.indexOf(';');           // chunk extensions are ignored
+                int size;
+                try {
+                    size = Integer.parseInt((semicolon < 0 ? sizeField : sizeField.substring(0, semicolon)).trim(), 16);
+                } catch (NumberFormatException e) {
+                    throw new IOException("malformed chunk size: " + sizeField, e);
+                }
+                if (size < 0) {
+                    throw new IOException("malformed chunk size: " + sizeField);
+                }
+                pos = lineEnd + 2;
+                if (size == 0) {
+                    // Optional trailer fields, then an empty line
+                    int end = (len - pos >= 2 && buf[pos] == '\r' && buf[pos + 1] == '\n')
+                            ? pos + 2
+                            : indexOf(buf, pos, len, "\r\n\r\n") + 4;
+                    if (end < 4) {
+                        return null;
+                    }
+                    String text = body.toString(StandardCharsets.UTF_8);
+                    return new Parsed(new HttpResponse(status, reason, headers, text), end, close);
+                }
+                if (len - pos < size + 2) {
+                    return null;
+                }
+                body.write(buf, pos, size);
+                pos += size + 2;
+            }
+        }
+
+        private static int indexOf(byte[] buf, int from, int to, String pattern) {
+            outer:
+            for (int i = from; i <= to - pattern.length(); i++) {
+                for (int j = 0; j < pattern.length(); j++) {
+                    if (buf[i + j] != pattern.charAt(j)) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+    }
+
+    // =========================================================================
+    // HttpClientEngine — one selector thread, pooled keep-alive connections
+    // =========================================================================
+
+    static final class HttpClientEngine implements AutoCloseable {
+
+        private static final int  MAX_REDIRECTS = 5;
+        private static final long TICK_MS       = 10;       // deadline / idle checks run at least this often
+
+        // ── One exchange = one request and the future its response completes ──
+        private static final class Exchange {
+            final HttpRequest                     request;
+            final Target                          target;
+            final CompletableFuture<HttpResponse> future;
+            final long                            deadlineNanos;
+            final int                             redirectsLeft;
+            int                                   retries;
+
+            Exchange(HttpRequest request, Target target, CompletableFuture<HttpResponse> future,
+                     long deadlineNanos, int redirectsLeft) {
+                this.request       = request;
+                this.target        = target;
+                this.future        = future;
+                this.deadlineNanos = deadlineNanos;
+                this.redirectsLeft = redirectsLeft;
+            }
+
+            boolean idempotent() {
+                return switch (request.getMethod()) {
+                    case "GET", "HEAD", "PUT", "DELETE" -> true;
+                    default -> false;
+                };
+            }
+
+            boolean head() { return "HEAD".equals(request.getMethod()); }
+        }
+
+        // ── Where a URL points: socket address, Host header and request-target ──
+        private static final class Target {
+            final String host;
+            final int    port;
+            final String hostHeader;
+            final String requestTarget;
+
+            private Target(String host, int port, String hostHeader, String requestTarget) {
+                this.host          = host;
+                this.port          = port;
+                this.hostHeader    = hostHeader;
+                this.requestTarget = requestTarget;
+            }
+
+            static Target of(String url) {
+                URI uri = URI.create(url);
+                if (!"http".equalsIgnoreCase(uri.getScheme())) {
+                    throw new IllegalArgumentException("only http:// URLs are supported: " + url);
+                }
+                if (uri.getHost() == null) {
+                    throw new IllegalArgumentException("url has no host: " + url);
+                }
+                int port = uri.getPort() == -1 ? 80 : uri.getPort();
+                String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+                String requestTarget = uri.getRawQuery() == null ? path : path + "?" + uri.getRawQuery();
+                String hostHeader = uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + port;
+                return new Target(uri.getHost(), port, hostHeader, requestTarget);
+            }
+
+            String originKey() { return host + ":" + port; }
+        }
+
+        // ── Per-origin pool: open connections + requests waiting for one ──
+        private static final class Origin {
+            final InetSocketAddress     address;
+            final List<Connection>      connections = new ArrayList<>();
+            final ArrayDeque<Exchange>  waiting     = new ArrayDeque<>();
+
+            Origin(Target target) {
+                this.address = new InetSocketAddress(target.host, target.port);
+            }
+        }
+
+        private static final class Connection {
+            final Origin                origin;
+            final SocketChannel         channel;
+            final SelectionKey          key;
+            final ArrayDeque<Exchange>  inFlight = new ArrayDeque<>();
+            final ArrayDeque<ByteBuffer> writes  = new ArrayDeque<>();
+            byte[]  in = new byte[16 * 1024];
+            int     inLength;
+            boolean connected;
+            boolean closing;               // server sent Connection: close
+            boolean barrier;               // a non-idempotent request is in flight
+            int     requestsWritten;
+            long    idleSinceNanos = System.nanoTime();
+
+            Connection(Origin origin, SocketChannel channel, SelectionKey key, boolean connected) {
+                this.origin    = origin;
+                this.channel   = channel;
+                this.key       = key;
+                this.connected = connected;
+            }
+        }
+
+        private final int  maxConnectionsPerOrigin;
+        private final int  maxPipelineDepth;
+        private final long idleTimeoutNanos;
+
+        private final Selector                  selector;
+        private final Thread                    ioThread;
+        private final Queue<Exchange>           submitted = new ConcurrentLinkedQueue<>();
+        private final Map<String, Origin>       origins   = new HashMap<>();     // I/O thread only
+        private volatile boolean                closed;
+
+        // ── Metrics ──
+        private final LongAdder connectionsOpened = new LongAdder();
+        private final LongAdder requestsWritten   = new LongAdder();
+        private final LongAdder reusedWrites      = new LongAdder();   // written to a connection that had served before
+        private final LongAdder pipelinedWrites   = new LongAdder();   // written while another request was in flight
+        private final LongAdder timeouts          = new LongAdder();
+        private final LongAdder retries           = new LongAdder();
+
+        HttpClientEngine(int maxConnectionsPerOrigin, int maxPipelineDepth, long idleTimeoutMs) throws IOException {
+            if (maxConnectionsPerOrigin < 1) {
+                throw new IllegalArgumentException("maxConnectionsPerOrigin must be >= 1");
+            }
+            if (maxPipelineDepth < 1) {
+                throw new IllegalArgumentException("maxPipelineDepth must be >= 1");
+            }
+            if (idleTimeoutMs < 1) {
+                throw new IllegalArgumentException("idleTimeoutMs must be >= 1");
+            }
+            this.maxConnectionsPerOrigin = maxConnectionsPerOrigin;
+            this.maxPipelineDepth        = maxPipelineDepth;
+            this.idleTimeoutNanos        = idleTimeoutMs * 1_000_000L;
+            this.selector                = Selector.open();
+            this.ioThread                = new Thread(this::runLoop, "http-client-io");
+            this.ioThread.setDaemon(true);
+            this.ioThread.start();
+        }
+
+        /**
+         * Queues {@code request} and returns immediately. The future completes
+         * with the final response (after redirects) or fails with
+         * HttpTimeoutException / IOException. Safe to call from any thread.
+         */
+        CompletableFuture<HttpResponse> send(HttpRequest request) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IllegalStateException("engine is closed"));
+            }
+            Target target = Target.of(request.getUrl());
+            long deadline = System.nanoTime() + request.getTimeoutMs() * 1_000_000L;
+            Exchange exchange = new Exchange(request, target, new CompletableFuture<>(), deadline, MAX_REDIRECTS);
+            submitted.add(exchange);
+            if (closed && submitted.remove(exchange)) {
+                // close() won the race: shutdown() may already have drained the queue
+                exchange.future.completeExceptionally(new IllegalStateException("engine is closed"));
+                return exchange.future;
+            }
+            selector.wakeup();
+            return exchange.future;
+        }
+
+        long connectionsOpened() { return connectionsOpened.sum(); }
+        long requestsWritten()   { return requestsWritten.sum(); }
+        long reusedWrites()      { return reusedWrites.sum(); }
+        long pipelinedWrites()   { return pipelinedWrites.sum(); }
+        long timeouts()          { return timeouts.sum(); }
+        long retries()           { return retries.sum(); }
+
+        @Override
+        public void close() {
+            closed = true;
+            selector.wakeup();
+            try {
+                ioThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // ── I/O thread ──────────────────────────────────────────────────────
+
+        private void runLoop() {
+            try {
+                while (!closed) {
+                    selector.select(TICK_MS);
+                    Exchange next;
+                    while ((next = submitted.poll()) != null) {
+                        dispatch(next);
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection c = (Connection) key.attachment();
+                        try {
+                            if (key.isValid() && key.isConnectable()) {
+                                c.channel.finishConnect();
+                                c.connected = true;
+                                flushWrites(c);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                flushWrites(c);
+                            }
+                            if (key.isValid() && key.isReadable()) {
+                                read(c);
+                            }
+                        } catch (IOException e) {
+                            retire(c, e);
+                        } catch (RuntimeException e) {
+                            // A bug tripped by one response must not take down every other connection
+                            retire(c, new IOException("failed handling response", e));
+                        }
+                    }
+                    expire(System.nanoTime());
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                // fall through to shutdown()
+            } finally {
+                closed = true;                           // send() fails fast instead of queueing for a dead loop
+                shutdown();
+            }
+        }
+
+        private void dispatch(Exchange exchange) {
+            Origin origin = origins.computeIfAbsent(exchange.target.originKey(), k -> new Origin(exchange.target));
+            origin.waiting.add(exchange);
+            drain(origin);
+        }
+
+        /** Hands waiting requests to connections, in order, until none can take the head. */
+        private void drain(Origin origin) {
+            while (!origin.waiting.isEmpty()) {
+                Exchange head = origin.waiting.peek();
+                if (head.future.isDone()) {             // cancelled by the caller while waiting
+                    origin.waiting.poll();
+                    continue;
+                }
+                Connection c = pick(origin, head);
+                if (c == null && origin.connections.size() < maxConnectionsPerOrigin) {
+                    try {
+                        c = open(origin);
+                    } catch (IOException e) {
+                        origin.waiting.poll();
+                        head.future.completeExceptionally(e);
+                        continue;
+                    }
+                }
+                if (c == null) {
+                    return;                              // every connection is full; wait for a response
+                }
+                write(c, origin.waiting.poll());
+            }
+        }
+
+        /**
+         * An idle connection if there is one. Otherwise, only when the pool is at
+         * its cap, the least-loaded connection that may pipeline this request —
+         * a new parallel connection beats queuing behind a slow response.
+         */
+        private Connection pick(Origin origin, Exchange exchange) {
+            Connection best = null;
+            for (Connection c : origin.connections) {
+                if (c.closing) {
+                    continue;
+                }
+                if (c.inFlight.isEmpty()) {
+                    return c;
+                }
+                boolean canPipeline = exchange.idempotent() && !c.barrier && c.inFlight.size() < maxPipelineDepth;
+                if (canPipeline && (best == null || c.inFlight.size() < best.inFlight.size())) {
+                    best = c;
+                }
+            }
+            return origin.connections.size() < maxConnectionsPerOrigin ? null : best;
+        }
+
+        private Connection open(Origin origin) throws IOException {
+            SocketChannel channel = SocketChannel.open();
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                boolean connected = channel.connect(origin.address);
+                SelectionKey key = channel.register(selector, connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT);
+                Connection c = new Connection(origin, channel, key, connected);
+                key.attach(c);
+                origin.connections.add(c);
+                connectionsOpened.increment();
+                return c;
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        private void write(Connection c, Exchange exchange) {
+            if (!c.inFlight.isEmpty()) {
+                pipelinedWrites.increment();
+            }
+            if (c.requestsWritten > 0) {
+                reusedWrites.increment();
+            }
+            c.inFlight.add(exchange);
+            c.barrier |= !exchange.idempotent();
+            c.writes.add(encode(exchange));
+            c.requestsWritten++;
+            requestsWritten.increment();
+            if (c.connected) {
+                try {
+                    flushWrites(c);
+                } catch (IOException e) {
+                    retire(c, e);
+                }
+            }
+        }
+
+        private static ByteBuffer encode(Exchange exchange) {
+            HttpRequest request = exchange.request;
+            StringBuilder head = new StringBuilder(128)
+                    .append(request.getMethod()).append(' ').append(exchange.target.requestTarget)
+                    .append(" HTTP/1.1\r\nHost: ").append(exchange.target.hostHeader).append("\r\n");
+            for (int i = 0; i < request.headerCount(); i++) {
+                String name = request.headerName(i);
+                if (name.equalsIgnoreCase("Host") || name.equalsIgnoreCase("Content-Length")) {
+                    continue;                            // the engine owns framing headers
+                }
+                head.append(name).append(": ").append(request.headerValue(i)).append("\r\n");
+            }
+            byte[] body = request.getBody() == null ? new byte[0] : request.getBody().getBytes(StandardCharsets.UTF_8);
+            if (request.getBody() != null) {
+                head.append("Content-Length: ").append(body.length).append("\r\n");
+            }
+            head.append("\r\n");
+            byte[] headBytes = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+            ByteBuffer buffer = ByteBuffer.allocate(headBytes.length + body.length);
+            buffer.put(headBytes).put(body).flip();
+            return buffer;
+        }
+
+        private void flushWrites(Connection c) throws IOException {
+            while (!c.writes.isEmpty()) {
+                ByteBuffer buffer = c.writes.peek();
+                c.channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    c.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);   // socket buffer full
+                    return;
+                }
+                c.writes.poll();
+            }
+            c.key.interestOps(SelectionKey.OP_READ);
+        }
+
+        private void read(Connection c) throws IOException {
+            if (c.inLength == c.in.length) {
+                c.in = Arrays.copyOf(c.in, c.in.length * 2);
+            }
+            int n = c.channel.read(ByteBuffer.wrap(c.in, c.inLength, c.in.length - c.inLength));
+            boolean eof = n < 0;
+            if (!eof) {
+                c.inLength += n;
+            }
+            while (!c.inFlight.isEmpty()) {
+                Exchange head = c.inFlight.peek();
+                ResponseParser.Parsed parsed = ResponseParser.tryParse(c.in, c.inLength, head.head(), eof);
+                if (parsed == null) {
+                    break;
+                }
+                System.arraycopy(c.in, parsed.consumed, c.in, 0, c.inLength - parsed.consumed);
+                c.inLength -= parsed.consumed;
+                c.inFlight.poll();
+                c.closing |= parsed.close;
+                if (c.inFlight.isEmpty()) {
+                    c.barrier = false;
+                    c.idleSinceNanos = System.nanoTime();
+                }
+                complete(head, parsed.response);
+            }
+            if (eof || (c.closing && c.inFlight.isEmpty())) {
+                retire(c, new IOException("connection closed by server"));
+            } else {
+                drain(c.origin);                         // a slot may have opened up
+            }
+        }
+
+        private void complete(Exchange exchange, HttpResponse response) {
+            String location = response.header("Location");
+            boolean redirect = switch (response.getStatus()) {
+                case 301, 302, 303, 307, 308 -> true;
+                default -> false;
+            };
+            if (!redirect || location == null || !exchange.request.isFollowRedirects()) {
+                exchange.future.complete(response);
+                return;
+            }
+            if (exchange.redirectsLeft == 0) {
+                exchange.future.completeExceptionally(new IOException("too many redirects"));
+                return;
+            }
+            try {
+                HttpRequest next = redirectRequest(exchange.request, response.getStatus(), location);
+                dispatch(new Exchange(next, Target.of(next.getUrl()), exchange.future,
+                        exchange.deadlineNanos, exchange.redirectsLeft - 1));
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                exchange.future.completeExceptionally(e);
+            }
+        }
+
+        private static HttpRequest redirectRequest(HttpRequest previous, int status, String location) {
+            URI from = URI.create(previous.getUrl());
+            URI to   = from.resolve(location);
+            String url = to.toString();
+            boolean toGet = status == 303
+                    || ((status == 301 || status == 302) && "POST".equals(previous.getMethod()));
+            boolean crossOrigin = !sameOrigin(from, to);
+            String method = toGet ? "GET" : previous.getMethod();
+            HttpRequest.Builder builder = new HttpRequest.Builder(method, url)
+                    .timeoutMs(previous.getTimeoutMs())
+                    .followRedirects(true);
+            for (int i = 0; i < previous.headerCount(); i++) {
+                String name = previous.headerName(i);
+                if (crossOrigin && (name.equalsIgnoreCase("Authorization") || name.equalsIgnoreCase("Cookie"))) {
+                    continue;                            // credentials never leave their origin
+                }
+                if (toGet && (name.equalsIgnoreCase("Content-Type") || name.equalsIgnoreCase("Content-Length"))) {
+                    continue;                            // they described the body that is being dropped
+                }
+                builder.header(name, previous.headerValue(i));
+            }
+            if (!toGet) {
+                builder.body(previous.getBody());
+            }
+            return builder.build();
+        }
+
+        private static boolean sameOrigin(URI a, URI b) {
+            return a.getScheme().equalsIgnoreCase(b.getScheme())
+                    && a.getHost().equalsIgnoreCase(b.getHost())
+                    && effectivePort(a) == effectivePort(b);
+        }
+
+        private static int effectivePort(URI uri) {
+            return uri.getPort() != -1 ? uri.getPort() : "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+
+        /** Fails anything past its deadline and closes idle keep-alive connections. */
+        private void expire(long now) {
+            for (Origin origin : origins.values()) {
+                origin.waiting.removeIf(ex -> {
+                    if (now - ex.deadlineNanos < 0) {
+                        return false;
+                    }
+                    timeout(ex);
+                    return true;
+                });
+                for (Connection c : new ArrayList<>(origin.connections)) {
+                    if (c.inFlight.isEmpty()) {
+                        if (now - c.idleSinceNanos > idleTimeoutNanos) {
+                            retire(c, null);
+                        }
+                        continue;
+                    }
+                    boolean expired = false;
+                    for (Iterator<Exchange> it = c.inFlight.iterator(); it.hasNext(); ) {
+                        Exchange ex = it.next();
+                        if (now - ex.deadlineNanos >= 0) {
+                            it.remove();
+                            timeout(ex);
+                            expired = true;
+                        }
+                    }
+                    if (expired) {
+                        retire(c, new IOException("connection dropped after a pipelined request timed out"));
+                    }
+                }
+            }
+        }
+
+        private void timeout(Exchange exchange) {
+            timeouts.increment();
+            exchange.future.completeExceptionally(
+                    new HttpTimeoutException("request timed out after " + exchange.request.getTimeoutMs() + " ms"));
+        }
+
+        /**
+         * Closes {@code c}. Requests still in flight on it are retried once on
+         * another connection if they are idempotent; the rest fail with
+         * {@code cause}.
+         */
+        private void retire(Connection c, IOException cause) {
+            c.key.cancel();
+            try {
+                c.channel.close();
+            } catch (IOException ignored) {
+                // closing anyway
+            }
+            c.origin.connections.remove(c);
+            Iterator<Exchange> pending = c.inFlight.descendingIterator();
+            while (pending.hasNext()) {
+                Exchange ex = pending.next();
+                if (ex.future.isDone()) {
+                    continue;
+                }
+                if (ex.idempotent() && ex.retries == 0) {
+                    ex.retries++;
+                    retries.increment();
+                    c.origin.waiting.addFirst(ex);       // descending + addFirst keeps the original order
+                } else {
+                    ex.future.completeExceptionally(cause != null ? cause : new IOException("connection closed"));
+                }
+            }
+            c.inFlight.clear();
+            if (!closed) {
+                drain(c.origin);
+            }
+        }
+
+        private void shutdown() {
+            IOException cause = new IOException("engine closed");
+            for (Exchange ex : submitted) {
+                ex.future.completeExceptionally(cause);
+            }
+            for (Origin origin : origins.values()) {
+                for (Exchange ex : origin.waiting) {
+                    ex.future.completeExceptionally(cause);
+                }
+                for (Connection c : new ArrayList<>(origin.connections)) {
+                    for (Exchange ex : c.inFlight) {
+                        ex.future.completeExceptionally(cause);
+                    }
+                    c.inFlight.clear();
+                    retire(c, cause);
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // nothing left to release
+            }
+        }
+    }
+
+    // =========================================================================
+    // LoopbackServer — in-process HTTP/1.1 server, one virtual thread per connection
+    // =========================================================================
+
+    static final class LoopbackServer implements AutoCloseable {
+
+        private final ServerSocket    socket;
+        private final ExecutorService workers     = Executors.newVirtualThreadPerTaskExecutor();
+        private final AtomicInteger   connections = new AtomicInteger();
+        private final AtomicInteger   requests    = new AtomicInteger();
+
+        LoopbackServer() throws IOException {
+            this.socket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+            workers.submit(this::acceptLoop);
+        }
+
+        String baseUrl()         { return "http://127.0.0.1:" + socket.getLocalPort(); }
+        int    connections()     { return connections.get(); }
+        int    requests()        { return requests.get(); }
+
+        private void acceptLoop() {
+            while (!socket.isClosed()) {
+                try {
+                    Socket s = socket.accept();
+                    connections.incrementAndGet();
+                    workers.submit(() -> serve(s));
+                } catch (IOException e) {
+                    return;                              // socket closed
+                }
+            }
+        }
+
+        /** Reads requests in order and answers each in order — which is all pipelining needs. */
+        private void serve(Socket s) {
+            try (s; InputStream in = new BufferedInputStream(s.getInputStream());
+                 OutputStream out = new BufferedOutputStream(s.getOutputStream())) {
+                while (true) {
+                    String requestLine = readLine(in);
+                    if (requestLine == null) {
+                        return;
+                    }
+                    String[] parts = requestLine.split(" ");
+                    int contentLength = 0;
+                    List<String> headerNames = new ArrayList<>();
+                    String line;
+                    while ((line = readLine(in)) != null && !line.isEmpty()) {
+                        int colon = line.indexOf(':');
+                        String name = line.substring(0, colon).trim();
+                        headerNames.add(name);
+                        if (name.equalsIgnoreCase("Content-Length")) {
+                            contentLength = Integer.parseInt(line.substring(colon + 1).trim());
+                        }
+                    }
+                    String body = new String(in.readNBytes(contentLength), StandardCharsets.UTF_8);
+                    requests.incrementAndGet();
+                    boolean close = respond(out, parts[0], parts[1], body, headerNames);
+                    out.flush();
+                    if (close) {
+                        return;
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                // client went away (e.g. after a timeout) — nothing to do
+            }
+        }
+
+        private boolean respond(OutputStream out, String method, String target, String body, List<String> headerNames)
+                throws IOException, InterruptedException {
+            String path = target.contains("?") ? target.substring(0, target.indexOf('?')) : target;
+            switch (path) {
+                case "/hello":
+                    write(out, 200, "OK", "", "hello", method);
+                    return false;
+                case "/echo":
+                    write(out, 200, "OK", "", method + " " + target + (body.isEmpty() ? "" : " " + body), method);
+                    return false;
+                case "/slow":
+                    Thread.sleep(Long.parseLong(target.substring(target.indexOf("ms=") + 3)));
+                    write(out, 200, "OK", "", "slow", method);
+                    return false;
+                case "/redirect":
+                    write(out, 302, "Found", "Location: /echo?from=redirect\r\n", "", method);
+                    return false;
+                case "/see-other":
+                    write(out, 303, "See Other", "Location: /echo?from=see-other\r\n", "", method);
+                    return false;
+                case "/headers":
+                    write(out, 200, "OK", "", method + " " + String.join(",", headerNames), method);
+                    return false;
+                case "/temporary":                       // same origin, method and body kept
+                    write(out, 307, "Temporary Redirect", "Location: /headers\r\n", "", method);
+                    return false;
+                case "/cross-origin":                    // same server, but "localhost" is another origin
+                    write(out, 307, "Temporary Redirect",
+                            "Location: http://localhost:" + socket.getLocalPort() + "/headers\r\n", "", method);
+                    return false;
+                case "/see-other-headers":
+                    write(out, 303, "See Other", "Location: /headers\r\n", "", method);
+                    return false;
+                case "/close":
+                    write(out, 200, "OK", "Connection: close\r\n", "bye", method);
+                    return true;
+                case "/chunked":
+                    out.write(("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+                            + "7\r\nchunk-1\r\n7;ext=1\r\nchunk-2\r\n0\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+                    return false;
+                case "/negative-length":
+                    out.write("HTTP/1.1 200 OK\r\nContent-Length: -5\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+                    return false;
+                case "/negative-chunk":
+                    out.write(("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+                            + "-5\r\nhello\r\n0\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+                    return false;
+                default:
+                    write(out, 404, "Not Found", "", "no route for " + path, method);
+                    return false;
+            }
+        }
+
+        private static void write(OutputStream out, int status, String reason, String extraHeaders,
+                                  String body, String method) throws IOException {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            String head = "HTTP/1.1 " + status + " " + reason + "\r\nContent-Length: " + bytes.length + "\r\n"
+                    + extraHeaders + "\r\n";
+            out.write(head.getBytes(StandardCharsets.ISO_8859_1));
+            if (!"HEAD".equals(method)) {
+                out.write(bytes);
+            }
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            StringBuilder sb = new StringBuilder();
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\n') {
+                    int n = sb.length();
+                    return n > 0 && sb.charAt(n - 1) == '\r' ? sb.substring(0, n - 1) : sb.toString();
+                }
+                sb.append((char) b);
+            }
+            return sb.length() == 0 ? null : sb.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+            workers.shutdownNow();
+        }
+    }
+
+    // =========================================================================
+    // Main
+    // =========================================================================
+
+    public static void main(String[] args) throws Exception {
+
+        try (LoopbackServer server = new LoopbackServer()) {
+            String base = server.baseUrl();
+
+            System.out.println("═══ Test 1: Simple GET ═══════════════════════════════════");
+            try (HttpClientEngine engine = new HttpClientEngine(4, 16, 30_000)) {
+                HttpResponse r = engine.send(new HttpRequest.Builder("GET", base + "/hello").build()).join();
+                System.out.println(r);
+                boolean t1 = r.getStatus() == 200 && "hello".equals(r.getBody());
+                System.out.println("Test 1 " + (t1 ? "PASSED" : "FAILED"));
+            }
+
+            System.out.println("\n═══ Test 2: Keep-alive — sequential requests share one socket ═");
+            try (HttpClientEngine engine = new HttpClientEngine(4, 16, 30_000)) {
+                int before = server.connections();
+                boolean allOk = true;
+                for (int i = 0; i < 20; i++) {
+                    allOk &= engine.send(new HttpRequest.Builder("GET", base + "/hello").build()).join().getStatus() == 200;
+                }
+                int used = server.connections() - before;
+                System.out.println("connections used: " + used + ", reused writes: " + engine.reusedWrites());
+                boolean t2 = allOk && used == 1 && engine.reusedWrites() == 19;
+                System.out.println("Test 2 " + (t2 ? "PASSED" : "FAILED"));
+            }
+
+            System.out.println("\n═══ Test 3: Pipelining — 200 concurrent GETs on 2 connections ═");
+            try (HttpClientEngine engine = new HttpClientEngine(2, 16, 30_000)) {
+                int before = server.connections();
+                List<CompletableFuture<HttpResponse>> futures = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    futures.add(engine.send(new HttpRequest.Builder("GET", base + "/echo?id=" + i).build()));
+                }
+                boolean matched = true;
+                for (int i = 0; i < futures.size(); i++) {
+                    matched &= ("GET /echo?id=" + i).equals(futures.get(i).join().getBody());
+                }
+                int used = server.connections() - before;
+                System.out.println("connections used: " + used + ", pipelined writes: " + engine.pipelinedWrites());
+                boolean t3 = matched && used <= 2 && engine.pipelinedWrites() > 0;
+                System.out.println("Test 3 " + (t3 ? "PASSED" : "FAILED") + " — every response matched its request");
+            }
+
+            System.out.println("\n═══ Test 4: POST is never pipelined ═════════════════════");
+            try (HttpClientEngine engine = new HttpClientEngine(1, 16, 30_000)) {
+                List<CompletableFuture<HttpResponse>> futures = new ArrayList<>();
+                for (int i = 0; i < 20; i++) {
+                    futures.add(engine.send(new HttpRequest.Builder("POST", base + "/echo").body("n=" + i).build()));
+                }
+                boolean matched = true;
+                for (int i = 0; i < futures.size(); i++) {
+                    matched &= ("POST /echo n=" + i).equals(futures.get(i).join().getBody());
+                }
+                System.out.println("pipelined writes: " + engine.pipelinedWrites());
+                boolean t4 = matched && engine.pipelinedWrites() == 0;
+                System.out.println("Test 4 " + (t4 ? "PASSED" : "FAILED"));
+            }
+
+            System.out.println("\n═══ Test 5: timeoutMs fails the request, engine recovers ═");
+            try (HttpClientEngine engine = new HttpClientEngine(1, 16, 30_000)) {
+                long start = System.nanoTime();
+                Throwable cause = null;
+                try {
+                    engine.send(new HttpRequest.Builder("GET", base + "/slow?ms=2000").timeoutMs(200).build()).join();
+                } catch (CompletionException e) {
+                    cause = e.getCause();
+                }
+                long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+                HttpResponse after = engine.send(new HttpRequest.Builder("GET", base + "/hello").build()).join();
+                System.out.println("failed with " + (cause == null ? "nothing" : cause.getClass().getSimpleName())
+                        + " after " + elapsedMs + " ms; next request → " + after.getStatus());
+                boolean t5 = cause instanceof HttpTimeoutException && elapsedMs < 1_000
+                          && after.getStatus() == 200 && engine.timeouts() == 1;
+                System.out.println("Test 5 " + (t5 ? "PASSED" : "FAILED"));
+            }
+
+            System.out.println("\n═══ Test 6: followRedirects ══════════════════════════════");
+            try (HttpClientEngine engine = new HttpClientEngine(2, 16, 30_000)) {
+                HttpResponse followed = engine.send(new HttpRequest.Builder("GET", base + "/redirect").build()).join();
+                HttpResponse raw = engine.send(new HttpRequest.Builder("GET", base + "/redirect")
+                        .followRedirects(false).build()).join();
+                HttpResponse seeOther = engine.send(new HttpRequest.Builder("POST", base + "/see-other")
+                        .body("x").build()).join();
+                System.out.println("followed: " + followed.getBody() + " | not followed: " + raw.getStatus()
+                        + " " + raw.header("Location") + " | 303 after POST: " + seeOther.getBody());
+                String[] seen = new String[3];
+                String[] paths = { "/temporary", "/cross-origin", "/see-other-headers" };
+                for (int i = 0; i < paths.length; i++) {
+                    seen[i] = engine.send(new HttpRequest.Builder("POST", base + paths[i])
+                            .header("Authorization", "Bearer s3cret").header("Cookie", "session=42")
+                            .header("Content-Type", "text/plain").body("x").build()).join().getBody();
+                }
+                String sameOrigin = seen[0], crossOrigin = seen[1], toGet = seen[2];
+                System.out.println("307 same origin:  " + sameOrigin);
+                System.out.println("307 cross origin: " + crossOrigin);
+                System.out.println("303 to GET:       " + toGet);
+                boolean t6 = "GET /echo?from=redirect".equals(followed.getBody())
+                          && raw.getStatus() == 302
+                          && "GET /echo?from=see-other".equals(seeOther.getBody())
+                          && sameOrigin.startsWith("POST ") && sameOrigin.contains("Authorization")
+                          && sameOrigin.contains("Cookie") && sameOrigin.contains("Content-Type")
+                          && crossOrigin.startsWith("POST ") && !crossOrigin.contains("Authorization")
+                          && !crossOrigin.contains("Cookie") && crossOrigin.contains("Content-Type")
+                          && toGet.startsWith("GET ") && toGet.contains("Authorization")
+                          && !toGet.contains("Content-Type") && !toGet.contains("Content-Length");
+                System.out.println("Test 6 " + (t6 ? "PASSED" : "FAILED"));
+            }
+
+            System.out.println("\n═══ Test 7: Chunked body and Connection: close ═══════════");
+            try (HttpClientEngine engine = new HttpClientEngine(1, 16, 30_000)) {
+                HttpResponse chunked = engine.send(new HttpRequest.Builder("GET", base + "/chunked").build()).join();
+                HttpResponse bye     = engine.send(new HttpRequest.Builder("GET", base + "/close").build()).join();
+                HttpResponse again   = engine.send(new HttpRequest.Builder("GET", base + "/hello").build()).join();
+                System.out.println("chunked body: " + chunked.getBody() + ", connections opened: " + engine.connectionsOpened());
+                boolean t7 = "chunk-1chunk-2".equals(chunked.getBody())
+                          && "bye".equals(bye.getBody()) && "hello".equals(again.getBody())
+                          && engine.connectionsOpened() == 2;
+                System.out.println("Test 7 " + (t7 ? "PASSED" : "FAILED"));
+            }
+
+            System.out.println("\n═══ Test 8: Negative lengths fail the request, not the engine ═");
+            try (HttpClientEngine engine = new HttpClientEngine(1, 16, 30_000)) {
+                boolean rejected = true;
+                for (String path : List.of("/negative-length", "/negative-chunk")) {
+                    try {
+                        engine.send(new HttpRequest.Builder("GET", base + path).build()).get(5, TimeUnit.SECONDS);
+                        rejected = false;
+                    } catch (ExecutionException e) {
+                        System.out.println(path + " → " + e.getCause().getMessage());
+                    }
+                }
+                HttpResponse after = engine.send(new HttpRequest.Builder("GET", base + "/hello").build())
+                        .get(5, TimeUnit.SECONDS);
+                boolean t8 = rejected && "hello".equals(after.getBody());
+                System.out.println("Test 8 " + (t8 ? "PASSED" : "FAILED"));
+            }
+
+            System.out.println("\n═══ Test 9: Throughput — 20,000 GETs, 4 connections × depth 32 ═");
+            try (HttpClientEngine engine = new HttpClientEngine(4, 32, 30_000)) {
+                int total = 20_000;
+                HttpRequest hello = new HttpRequest.Builder("GET", base + "/hello").build();
+                long start = System.nanoTime();
+                List<CompletableFuture<HttpResponse>> futures = new ArrayList<>(total);
+                for (int i = 0; i < total; i++) {
+                    futures.add(engine.send(hello));
+                }
+                int ok = 0;
+                for (CompletableFuture<HttpResponse> f : futures) {
+                    ok += f.join().getStatus() == 200 ? 1 : 0;
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%,d OK in %.2f s → %,.0f req/s over %d connections (%,d pipelined writes)%n",
+                        ok, seconds, ok / seconds, engine.connectionsOpened(), engine.pipelinedWrites());
+                boolean t9 = ok == total && engine.connectionsOpened() <= 4;
+                System.out.println("Test 9 " + (t9 ? "PASSED" : "FAILED"));
+            }
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.ramkumar.lld.designpatterns.creational.builder.code;
 
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Set;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Scenario A — HTTP Request Builder
@@ -17,9 +20,60 @@ import java.util.Set;
  *   Builder         →  HttpRequest.Builder  (fluent setters, validates at build())
  *   Client          →  main()               (uses only the Builder fluent API)
  * ────────────────────────────────────────────────────────────────────────────
+ *
+ * ── Allocation on the hot path ──────────────────────────────────────────────
+ *   Headers are a flat String[] of name/value pairs rather than a HashMap, and
+ *   names go through HeaderNames so repeated names share one instance. The
+ *   valid-method table is a constant. Builder.pooled() hands out a per-thread
+ *   builder that reset() returns to defaults, so building a request allocates
+ *   only the HttpRequest and its exact-size header array.
+ *
+ *   The method is matched case-insensitively and stored as the table's
+ *   upper-case constant, so getMethod() returns "GET" for a builder given
+ *   "get". Method names are case-sensitive on the wire, so a client can send
+ *   getMethod() as is.
+ * ────────────────────────────────────────────────────────────────────────────
  */
 public class HttpRequestDemo {
 
+    // =========================================================================
+    // HEADER NAMES — canonical instances so equal names share one String
+    // =========================================================================
+
+    // [Interning] — a bounded pool instead of String.intern(): common names are
+    // preloaded, new ones are admitted until the cap so a caller sending random
+    // names cannot grow it without limit. A hit is one map read, no allocation.
+    static final class HeaderNames {
+
+        private static final int MAX_POOLED = 1_024;
+        private static final ConcurrentHashMap<String, String> POOL = new ConcurrentHashMap<>();
+
+        static {
+            for (String name : new String[] {
+                    "Accept", "Accept-Encoding", "Authorization", "Cache-Control", "Connection",
+                    "Content-Length", "Content-Type", "Cookie", "Host", "User-Agent" }) {
+                POOL.put(name, name);
+            }
+        }
+
+        private HeaderNames() { }
+
+        static String intern(String name) {
+            if (name == null) {
+                return null;            // rejected by validate(), not here
+            }
+            String canonical = POOL.get(name);
+            if (canonical != null) {
+                return canonical;
+            }
+            if (POOL.size() < MAX_POOLED) {
+                String raced = POOL.putIfAbsent(name, name);
+                return raced != null ? raced : name;
+            }
+            return name;
+        }
+    }
+
     // =========================================================================
     // PRODUCT — immutable; no setters; private constructor
     // =========================================================================
@@ -27,39 +81,83 @@ public class HttpRequestDemo {
     // [Product]
     static final class HttpRequest {
 
+        // [Constant] — built once per class, not once per validate() call
+        private static final String[] VALID_METHODS = { "GET", "POST", "PUT", "DELETE", "PATCH", "HEAD" };
+        private static final String[] NO_HEADERS    = new String[0];
+
         // [Encapsulation] All fields private final — set once at construction
-        private final String              method;          // required
-        private final String              url;             // required
-        private final Map<String, String> headers;         // optional, default = {}
-        private final String              body;            // optional, default = null
-        private final int                 timeoutMs;       // optional, default = 5000
-        private final boolean             followRedirects; // optional, default = true
+        private final String   method;          // required; canonical upper-case constant
+        private final String   url;             // required
+        private final String[] headers;         // optional, default = {}; name0, value0, name1, value1, …
+        private final String   body;            // optional, default = null
+        private final int      timeoutMs;       // optional, default = 5000
+        private final boolean  followRedirects; // optional, default = true
+
+        // [Lazy view] — only built if someone asks for a Map; racy but idempotent
+        private Map<String, String> headerMap;
 
         // [Private constructor] — only Builder.build() may call this
         // Takes the entire Builder so it doesn't need N parameters
         private HttpRequest(Builder b) {
-            this.method          = b.method;
+            this.method          = canonicalMethod(b.method);
             this.url             = b.url;
-            // [Defensive copy] — caller's Map cannot mutate our internal state
-            this.headers         = Collections.unmodifiableMap(new HashMap<>(b.headers));
+            // [Defensive copy] — one exact-size array; the builder may be reset and reused
+            this.headers         = b.headerCount == 0 ? NO_HEADERS : Arrays.copyOf(b.headers, b.headerCount * 2);
             this.body            = b.body;
             this.timeoutMs       = b.timeoutMs;
             this.followRedirects = b.followRedirects;
         }
 
+        /** The shared upper-case constant for {@code method}, or null if unsupported. */
+        private static String canonicalMethod(String method) {
+            for (String valid : VALID_METHODS) {
+                if (valid.equalsIgnoreCase(method)) {
+                    return valid;
+                }
+            }
+            return null;
+        }
+
         // [Getters only — no setters] — product is immutable after build()
-        public String              getMethod()          { return method; }
-        public String              getUrl()             { return url; }
-        public Map<String, String> getHeaders()         { return headers; } // already unmodifiable
-        public String              getBody()            { return body; }
-        public int                 getTimeoutMs()       { return timeoutMs; }
-        public boolean             isFollowRedirects()  { return followRedirects; }
+        public String   getMethod()          { return method; }   // upper case, whatever the caller passed
+        public String   getUrl()             { return url; }
+        public String   getBody()            { return body; }
+        public int      getTimeoutMs()       { return timeoutMs; }
+        public boolean  isFollowRedirects()  { return followRedirects; }
+
+        // [Allocation-free header access] — index-based, no Map or iterator
+        public int    headerCount()          { return headers.length / 2; }
+        public String headerName(int i)      { return headers[i * 2]; }
+        public String headerValue(int i)     { return headers[i * 2 + 1]; }
+
+        public String header(String name) {
+            for (int i = 0; i < headers.length; i += 2) {
+                String n = headers[i];
+                if (n == name || n.equals(name)) {     // interned names usually hit ==
+                    return headers[i + 1];
+                }
+            }
+            return null;
+        }
+
+        public Map<String, String> getHeaders() {
+            Map<String, String> map = headerMap;
+            if (map == null) {
+                Map<String, String> copy = new LinkedHashMap<>();
+                for (int i = 0; i < headers.length; i += 2) {
+                    copy.put(headers[i], headers[i + 1]);
+                }
+                map = Collections.unmodifiableMap(copy);
+                headerMap = map;
+            }
+            return map;
+        }
 
         @Override
         public String toString() {
             return String.format(
                 "HttpRequest{method='%s', url='%s', headers=%s, body=%s, timeoutMs=%d, followRedirects=%b}",
-                method, url, headers, body == null ? "null" : "'" + body + "'",
+                method, url, getHeaders(), body == null ? "null" : "'" + body + "'",
                 timeoutMs, followRedirects);
         }
 
@@ -70,15 +168,20 @@ public class HttpRequestDemo {
         // [Builder] — static nested so it can access HttpRequest's private constructor
         static final class Builder {
 
-            // [Required fields] — final; set in Builder constructor; never change
-            private final String method;
-            private final String url;
+            // [Pool] — one builder per thread, handed out by pooled()
+            private static final ThreadLocal<Builder> POOL = ThreadLocal.withInitial(() -> new Builder(null, null));
+
+            // [Required fields] — set in the constructor or by reset(); not final
+            // so a pooled builder can be re-targeted without being reallocated
+            private String method;
+            private String url;
 
             // [Optional fields] — have sensible defaults; may be overridden by fluent setters
-            private Map<String, String> headers         = new HashMap<>();
-            private String              body            = null;
-            private int                 timeoutMs       = 5_000;
-            private boolean             followRedirects = true;
+            private String[] headers         = new String[8];   // flat name/value pairs, grows by doubling
+            private int      headerCount     = 0;
+            private String   body            = null;
+            private int      timeoutMs       = 5_000;
+            private boolean  followRedirects = true;
 
             // [Builder constructor] — only required fields; caller must supply them
             Builder(String method, String url) {
@@ -86,11 +189,44 @@ public class HttpRequestDemo {
                 this.url    = url;
             }
 
+            /**
+             * This thread's builder, reset to defaults. Building with it allocates
+             * only the HttpRequest and its header array. The builder belongs to the
+             * caller until its next pooled() call — don't keep it or share it.
+             */
+            static Builder pooled(String method, String url) {
+                return POOL.get().reset(method, url);
+            }
+
+            // [Reset] — back to a fresh builder's state; header capacity is kept
+            Builder reset(String method, String url) {
+                Arrays.fill(headers, 0, headerCount * 2, null);
+                this.method          = method;
+                this.url             = url;
+                this.headerCount     = 0;
+                this.body            = null;
+                this.timeoutMs       = 5_000;
+                this.followRedirects = true;
+                return this;
+            }
+
             // ── Fluent setters — each returns `this` to enable chaining ─────
 
             // [Fluent API] — caller writes .header("k","v").body("...").timeoutMs(10_000)
             Builder header(String name, String value) {
-                this.headers.put(name, value);
+                String key = HeaderNames.intern(name);
+                for (int i = 0; i < headerCount * 2; i += 2) {
+                    if (Objects.equals(headers[i], key)) {
+                        headers[i + 1] = value;     // same name again replaces, like Map.put
+                        return this;
+                    }
+                }
+                if (headerCount * 2 == headers.length) {
+                    headers = Arrays.copyOf(headers, headers.length * 2);
+                }
+                headers[headerCount * 2]     = key;
+                headers[headerCount * 2 + 1] = value;
+                headerCount++;
                 return this;   // ← returning `this` is what makes it "fluent"
             }
 
@@ -115,8 +251,7 @@ public class HttpRequestDemo {
                 if (method == null || method.isBlank())
                     throw new IllegalArgumentException("method must not be blank");
 
-                Set<String> VALID_METHODS = Set.of("GET", "POST", "PUT", "DELETE", "PATCH", "HEAD");
-                if (!VALID_METHODS.contains(method.toUpperCase()))
+                if (canonicalMethod(method) == null)
                     throw new IllegalArgumentException("unsupported method: " + method);
 
                 if (url == null || url.isBlank())
@@ -128,6 +263,11 @@ public class HttpRequestDemo {
                 if (timeoutMs < 1)
                     throw new IllegalArgumentException("timeoutMs must be >= 1");
 
+                for (int i = 0; i < headerCount * 2; i += 2) {
+                    if (headers[i] == null || headers[i].isBlank())
+                        throw new IllegalArgumentException("header name must not be blank");
+                }
+
                 // Cross-field rule — only checkable when all fields are known
                 if ((method.equalsIgnoreCase("GET") || method.equalsIgnoreCase("HEAD"))
                         && body != null && !body.isBlank())
@@ -215,11 +355,79 @@ public class HttpRequestDemo {
         System.out.println("  PUT:    " + put.getMethod() + " " + put.getUrl());
         System.out.println("  DELETE: " + del.getMethod() + " " + del.getUrl());
 
+        // [Pooled builder] — same instance each time, reset to defaults
+        System.out.println("\n── Case 8: Pooled builder is reset between requests ─────────");
+        HttpRequest.Builder first = HttpRequest.Builder.pooled("POST", "https://api.example.com/events")
+            .header("X-Trace-Id", "t-1")
+            .body("{\"type\":\"click\"}")
+            .timeoutMs(250);
+        HttpRequest event = first.build();
+        HttpRequest.Builder second = HttpRequest.Builder.pooled("get", "https://api.example.com/health");
+        HttpRequest health = second.build();
+        System.out.println("  " + event);
+        System.out.println("  " + health);
+        boolean reused = first == second
+                && health.headerCount() == 0 && health.getBody() == null
+                && health.getTimeoutMs() == 5_000 && "GET".equals(health.getMethod())
+                && "t-1".equals(event.header("X-Trace-Id")) && event.getTimeoutMs() == 250;
+        System.out.println(reused ? "  PASSED — one builder, defaults restored, earlier request untouched"
+                                  : "  FAIL — pooled builder leaked state");
+
+        // [Interned header names] — equal names share one String instance
+        System.out.println("\n── Case 9: Header names are interned ────────────────────────");
+        String dynamicName = new String("Content-Type".toCharArray());
+        HttpRequest typed = HttpRequest.Builder.pooled("PUT", "https://api.example.com/users/7")
+            .header(dynamicName, "application/json")
+            .header("Content-Type", "application/xml")      // same name → replaces
+            .build();
+        boolean interned = typed.headerCount() == 1
+                && typed.headerName(0) == "Content-Type"
+                && "application/xml".equals(typed.header("Content-Type"));
+        System.out.println("  headers: " + typed.getHeaders());
+        System.out.println(interned ? "  PASSED — one entry, canonical name instance"
+                                    : "  FAIL — duplicate or non-canonical header name");
+
+        // [Allocation] — bytes allocated per build(), fresh builder vs pooled
+        System.out.println("\n── Case 10: Bytes allocated per request ─────────────────────");
+        long fresh  = bytesPerBuild(false);
+        long pooled = bytesPerBuild(true);
+        System.out.printf("  %-20s %,5d B/request%n", "new Builder(...)", fresh);
+        System.out.printf("  %-20s %,5d B/request%n", "Builder.pooled(...)", pooled);
+        System.out.println(pooled < fresh ? "  PASSED — pooled path skips the builder and its header buffer"
+                                          : "  FAIL — pooled path allocated as much as a fresh builder");
+
         System.out.println("\n── Builder Pattern Summary ──────────────────────────────────");
         System.out.println("  Required fields set in Builder constructor (method, url)");
         System.out.println("  Optional fields have defaults (timeoutMs=5000, followRedirects=true)");
         System.out.println("  All validation deferred to build() — cross-field rules possible");
         System.out.println("  Product is immutable — no setters, defensive copy of headers");
         System.out.println("  Private constructor — only Builder.build() can create HttpRequest");
+        System.out.println("  Pooled builder + flat header array — build() allocates only the product");
+    }
+
+    // Sink so the JIT cannot drop the requests being measured
+    static volatile HttpRequest sink;
+
+    private static long bytesPerBuild(boolean pooled) {
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().threadId();
+        int iterations = 200_000;
+        for (int round = 0; round < 2; round++) {      // round 0 warms up, round 1 is measured
+            long before = threads.getThreadAllocatedBytes(tid);
+            for (int i = 0; i < iterations; i++) {
+                HttpRequest.Builder b = pooled
+                    ? HttpRequest.Builder.pooled("POST", "https://api.example.com/orders")
+                    : new HttpRequest.Builder("POST", "https://api.example.com/orders");
+                sink = b.header("Content-Type", "application/json")
+                        .header("Authorization", "Bearer abc123")
+                        .body("{}")
+                        .build();
+            }
+            if (round == 1) {
+                return (threads.getThreadAllocatedBytes(tid) - before) / iterations;
+            }
+        }
+        throw new AssertionError("unreachable");
     }
 }
@@ -0,0 +1,442 @@
+package com.ramkumar.lld.designpatterns.creational.factorymethod.code;
+
+import com.ramkumar.lld.designpatterns.creational.factorymethod.code.NotificationServiceDemo.Notification;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.code.NotificationServiceDemo.NotificationSender;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Scenario F — Asynchronous, Rate-Limited Notification Dispatch
+ *
+ * NotificationSender.sendAlert() creates and sends on the caller's thread.
+ * During an incident a request thread raising 100k alerts would sit in SMTP
+ * and SMS calls — and the providers would throttle us anyway.
+ *
+ * AsyncNotificationDispatcher puts a queue between the two:
+ *
+ *   dispatch("SMS", to, msg) ──► bounded queue (per channel) ──► virtual-thread workers
+ *        returns at once           full → QUEUE_FULL               token bucket → send()
+ *
+ *   - One bounded ArrayBlockingQueue per channel: a slow channel fills its
+ *     own queue and never delays the others.
+ *   - dispatch() never blocks. A full queue returns QUEUE_FULL so the caller
+ *     can drop, retry later or degrade; isBackpressured(channel) turns true
+ *     once the queue passes its high-water mark (80%) — the early signal.
+ *   - Each channel's workers share one token bucket (rate/s, burst), so the
+ *     channel never exceeds the provider's limit however many workers run.
+ *   - Workers are virtual threads: waiting on the queue, the bucket or the
+ *     provider's network call costs no platform thread. The bucket uses a
+ *     ReentrantLock rather than synchronized so a waiting virtual thread does
+ *     not pin its carrier.
+ *   - Each worker gets its Notification from the sender's factory method once
+ *     and reuses it; the products are immutable.
+ *   - ACCEPTED is a promise: an alert racing close() is either taken back
+ *     (CLOSED) or delivered by a worker before it exits.
+ */
+public class AsyncNotificationDispatchDemo {
+
+    // =========================================================================
+    // TokenBucket — reservation style: callers are told how long to wait
+    // =========================================================================
+
+    static final class TokenBucket {
+        private final double ratePerNano;
+        private final double burst;
+        private final ReentrantLock lock = new ReentrantLock();
+        private double tokens;
+        private long   lastRefill;
+
+        TokenBucket(double ratePerSecond, int burst) {
+            if (ratePerSecond <= 0 || burst < 1) {
+                throw new IllegalArgumentException("ratePerSecond must be > 0 and burst >= 1");
+            }
+            this.ratePerNano = ratePerSecond / 1e9;
+            this.burst       = burst;
+            this.tokens      = burst;
+            this.lastRefill  = System.nanoTime();
+        }
+
+        /**
+         * Takes one token, going into debt if none is left; returns the nanos
+         * the caller must wait before using it (0 if it was available).
+         */
+        long reserve() {
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                tokens = Math.min(burst, tokens + (now - lastRefill) * ratePerNano);
+                lastRefill = now;
+                tokens -= 1;
+                return tokens >= 0 ? 0 : (long) (-tokens / ratePerNano);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // =========================================================================
+    // Channel policy + dispatcher
+    // =========================================================================
+
+    static final class ChannelPolicy {
+        final int    queueCapacity;
+        final double ratePerSecond;
+        final int    burst;
+        final int    workers;
+
+        ChannelPolicy(int queueCapacity, double ratePerSecond, int burst, int workers) {
+            if (queueCapacity < 1 || workers < 1) {
+                throw new IllegalArgumentException("queueCapacity and workers must be >= 1");
+            }
+            this.queueCapacity = queueCapacity;
+            this.ratePerSecond = ratePerSecond;
+            this.burst         = burst;
+            this.workers       = workers;
+        }
+    }
+
+    enum DispatchResult { ACCEPTED, QUEUE_FULL, CLOSED }
+
+    static final class AsyncNotificationDispatcher implements AutoCloseable {
+
+        private static final double HIGH_WATER = 0.8;
+
+        // ── One queued alert ──
+        private static final class Alert {
+            final String recipient;
+            final String message;
+
+            Alert(String recipient, String message) {
+                this.recipient = recipient;
+                this.message   = message;
+            }
+        }
+
+        // ── Per-channel state ──
+        private static final class Channel {
+            final BlockingQueue<Alert> queue;
+            final int                  highWater;
+            final TokenBucket          bucket;
+            final List<Thread>         workers = new CopyOnWriteArrayList<>();   // read by close() on another thread
+            final LongAdder accepted = new LongAdder();
+            final LongAdder rejected = new LongAdder();
+            final LongAdder sent     = new LongAdder();
+            final LongAdder failed   = new LongAdder();
+            final AtomicInteger peakDepth = new AtomicInteger();
+
+            Channel(ChannelPolicy policy) {
+                this.queue     = new ArrayBlockingQueue<>(policy.queueCapacity);
+                this.highWater = (int) Math.ceil(policy.queueCapacity * HIGH_WATER);
+                this.bucket    = new TokenBucket(policy.ratePerSecond, policy.burst);
+            }
+        }
+
+        private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+        private volatile boolean closed;
+
+        /** Starts the channel's workers; the channel name comes from the sender's product. */
+        String register(NotificationSender sender, ChannelPolicy policy) {
+            if (sender == null || policy == null) {
+                throw new IllegalArgumentException("sender and policy must not be null");
+            }
+            if (closed) {
+                throw new IllegalStateException("dispatcher is closed");
+            }
+            String name = sender.createNotification().getChannel();
+            Channel channel = new Channel(policy);
+            if (channels.putIfAbsent(name, channel) != null) {
+                throw new IllegalStateException("channel already registered: " + name);
+            }
+            for (int w = 0; w < policy.workers; w++) {
+                Notification notification = sender.createNotification();     // one product per worker
+                channel.workers.add(Thread.ofVirtual()
+                        .name("notify-" + name.toLowerCase() + "-" + w)
+                        .start(() -> work(channel, notification)));
+            }
+            return name;
+        }
+
+        /** Queues an alert and returns immediately; never blocks the caller. */
+        DispatchResult dispatch(String channelName, String recipient, String message) {
+            if (recipient == null || recipient.isBlank() || message == null) {
+                throw new IllegalArgumentException("recipient must not be blank and message not null");
+            }
+            Channel channel = channel(channelName);
+            if (closed) {
+                return DispatchResult.CLOSED;
+            }
+            Alert alert = new Alert(recipient, message);
+            if (!channel.queue.offer(alert)) {
+                channel.rejected.increment();
+                return DispatchResult.QUEUE_FULL;
+            }
+            // close() may have run since the check above, and its workers may
+            // already have found the queue empty and exited. Take the alert back
+            // if it is still queued; if it is gone, a worker has it.
+            if (closed && channel.queue.remove(alert)) {
+                return DispatchResult.CLOSED;
+            }
+            channel.accepted.increment();
+            int depth = channel.queue.size();
+            if (depth > channel.peakDepth.get()) {
+                channel.peakDepth.accumulateAndGet(depth, Math::max);
+            }
+            return DispatchResult.ACCEPTED;
+        }
+
+        /** True once the channel's queue is past its high-water mark — slow down before QUEUE_FULL. */
+        boolean isBackpressured(String channelName) {
+            Channel channel = channel(channelName);
+            return channel.queue.size() >= channel.highWater;
+        }
+
+        int  queueDepth(String channelName) { return channel(channelName).queue.size(); }
+        int  peakDepth(String channelName)  { return channel(channelName).peakDepth.get(); }
+        long accepted(String channelName)   { return channel(channelName).accepted.sum(); }
+        long rejected(String channelName)   { return channel(channelName).rejected.sum(); }
+        long sent(String channelName)       { return channel(channelName).sent.sum(); }
+        long failed(String channelName)     { return channel(channelName).failed.sum(); }
+
+        /**
+         * Stops accepting, lets the workers drain what is queued, and waits up
+         * to {@code timeoutMs} for them. Returns true if every queue drained.
+         */
+        boolean close(long timeoutMs) {
+            closed = true;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            boolean drained = true;
+            for (Channel channel : channels.values()) {
+                for (Thread worker : channel.workers) {
+                    long left = deadline - System.nanoTime();
+                    try {
+                        if (left <= 0 || !worker.join(Duration.ofNanos(left))) {
+                            worker.interrupt();
+                            drained = false;
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        worker.interrupt();
+                        drained = false;
+                    }
+                }
+            }
+            return drained;
+        }
+
+        @Override
+        public void close() {
+            close(TimeUnit.SECONDS.toMillis(30));
+        }
+
+        private Channel channel(String name) {
+            Channel channel = channels.get(name);
+            if (channel == null) {
+                throw new NoSuchElementException("No channel: " + name);
+            }
+            return channel;
+        }
+
+        // Worker loop: take, wait for a token, send. Exits once closed and empty.
+        private void work(Channel channel, Notification notification) {
+            try {
+                while (true) {
+                    Alert alert = channel.queue.poll(20, TimeUnit.MILLISECONDS);
+                    if (alert == null) {
+                        // Re-check the queue after seeing closed: a dispatch() that read closed == false
+                        // offered before close() began, so its alert is visible here and must be sent
+                        if (closed && channel.queue.isEmpty()) return;
+                        continue;
+                    }
+                    long wait = channel.bucket.reserve();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    try {
+                        notification.send(alert.recipient, alert.message);
+                        channel.sent.increment();
+                    } catch (RuntimeException e) {
+                        channel.failed.increment();                  // one bad send must not kill the worker
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // =========================================================================
+    // Demo senders — record deliveries instead of printing, with provider latency
+    // =========================================================================
+
+    static final class RecordingSender extends NotificationSender {
+        private final String channel;
+        private final long   latencyMicros;
+        final LongAdder delivered = new LongAdder();
+        final Map<String, Integer> perRecipient = new ConcurrentHashMap<>();
+
+        RecordingSender(String channel, long latencyMicros) {
+            this.channel       = channel;
+            this.latencyMicros = latencyMicros;
+        }
+
+        @Override
+        Notification createNotification() {
+            return new Notification() {
+                @Override
+                public void send(String recipient, String message) {
+                    if (latencyMicros > 0) {
+                        LockSupport.parkNanos(latencyMicros * 1_000);   // the provider's API call
+                    }
+                    perRecipient.merge(recipient, 1, Integer::sum);
+                    delivered.increment();
+                }
+                @Override public String getChannel()   { return channel; }
+                @Override public String getSenderTag() { return "recording:" + channel; }
+            };
+        }
+    }
+
+    // =========================================================================
+    // Main
+    // =========================================================================
+
+    public static void main(String[] args) throws Exception {
+
+        System.out.println("═══ Test 1: Alerts are routed to their channel, asynchronously ═");
+        RecordingSender email = new RecordingSender("Email", 2_000), sms = new RecordingSender("SMS", 2_000);
+        boolean t1;
+        try (AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher()) {
+            dispatcher.register(email, new ChannelPolicy(100, 10_000, 100, 4));
+            dispatcher.register(sms,   new ChannelPolicy(100, 10_000, 100, 4));
+            long start = System.nanoTime();
+            for (int i = 0; i < 20; i++) {
+                dispatcher.dispatch("Email", "oncall-" + (i % 4), "CPU at 95%");
+                dispatcher.dispatch("SMS",   "oncall-" + (i % 4), "CPU at 95%");
+            }
+            long submitMicros = (System.nanoTime() - start) / 1_000;
+            boolean unknown = false, duplicate = false;
+            try {
+                dispatcher.dispatch("Pager", "x", "y");
+            } catch (NoSuchElementException e) {
+                unknown = true;
+                System.out.println("Caught NSE: " + e.getMessage());
+            }
+            try {
+                dispatcher.register(new RecordingSender("SMS", 0), new ChannelPolicy(1, 1, 1, 1));
+            } catch (IllegalStateException e) {
+                duplicate = true;
+                System.out.println("Caught ISE: " + e.getMessage());
+            }
+            dispatcher.close(5_000);
+            System.out.println("40 alerts queued in " + submitMicros + " µs (each send takes 2 ms)");
+            System.out.println("Email delivered: " + email.delivered.sum() + " " + email.perRecipient
+                    + ", SMS delivered: " + sms.delivered.sum());
+            t1 = email.delivered.sum() == 20 && sms.delivered.sum() == 20 && email.perRecipient.get("oncall-0") == 5
+              && submitMicros < 40 * 2_000 && unknown && duplicate
+              && dispatcher.dispatch("Email", "late", "after close") == DispatchResult.CLOSED;
+        }
+        System.out.println("Test 1 " + (t1 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 2: Token bucket caps the send rate ══════════════════");
+        RecordingSender slack = new RecordingSender("Slack", 0);
+        AsyncNotificationDispatcher limited = new AsyncNotificationDispatcher();
+        limited.register(slack, new ChannelPolicy(1_000, 200, 20, 8));   // 200/s, burst 20, 8 workers
+        long start = System.nanoTime();
+        for (int i = 0; i < 120; i++) {
+            limited.dispatch("Slack", "#incidents", "alert " + i);
+        }
+        limited.close(5_000);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("120 sends at 200/s (burst 20): %.2f s (expected ≈ 0.50 s)%n", seconds);
+        boolean t2 = slack.delivered.sum() == 120 && seconds >= 0.45 && seconds < 1.0;
+        System.out.println("Test 2 " + (t2 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 3: Backpressure — high-water signal, then QUEUE_FULL ═");
+        RecordingSender slowSms = new RecordingSender("SMS", 5_000);      // 5 ms per send, 1 worker
+        AsyncNotificationDispatcher bp = new AsyncNotificationDispatcher();
+        bp.register(slowSms, new ChannelPolicy(100, 100_000, 100, 1));
+        int accepted = 0, full = 0, firstSignal = -1;
+        for (int i = 0; i < 1_000; i++) {
+            if (firstSignal < 0 && bp.isBackpressured("SMS")) firstSignal = i;
+            DispatchResult r = bp.dispatch("SMS", "user-" + i, "code 1234");
+            if (r == DispatchResult.ACCEPTED) accepted++; else full++;
+        }
+        System.out.println("signal after " + firstSignal + " submits; accepted " + accepted + ", QUEUE_FULL " + full
+                + ", peak depth " + bp.peakDepth("SMS"));
+        bp.close(5_000);
+        boolean t3 = firstSignal >= 80 && firstSignal <= 100 && full > 0 && bp.rejected("SMS") == full
+                  && slowSms.delivered.sum() == accepted && bp.sent("SMS") == accepted && bp.peakDepth("SMS") == 100;
+        System.out.println("Test 3 " + (t3 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 4: 100,000-alert burst — caller never waits on delivery ═");
+        RecordingSender[] senders = { new RecordingSender("Email", 1_000), new RecordingSender("SMS", 1_000),
+                                      new RecordingSender("Slack", 1_000) };
+        AsyncNotificationDispatcher burst = new AsyncNotificationDispatcher();
+        for (RecordingSender s : senders) {
+            burst.register(s, new ChannelPolicy(40_000, 50_000, 1_000, 128));   // 1 ms sends, 128 virtual workers
+        }
+        String[] names = { "Email", "SMS", "Slack" };
+        int alerts = 100_000;
+        Map<DispatchResult, Integer> outcomes = new LinkedHashMap<>();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < alerts; i++) {
+            outcomes.merge(burst.dispatch(names[i % 3], "user-" + (i % 5_000), "Service degraded"), 1, Integer::sum);
+        }
+        long submitted = System.nanoTime() - t0;
+        boolean drained = burst.close(30_000);
+        long total = System.nanoTime() - t0;
+        long delivered = 0;
+        for (RecordingSender s : senders) delivered += s.delivered.sum();
+        System.out.printf("submit: %,d alerts in %.1f ms (%.0f ns/alert on the request thread) %s%n",
+                alerts, submitted / 1e6, (double) submitted / alerts, outcomes);
+        System.out.printf("delivered %,d in %.2f s (%,.0f/s across 3 channels, 1 ms per send)%n",
+                delivered, total / 1e9, delivered / (total / 1e9));
+        long synchronous = alerts * TimeUnit.MILLISECONDS.toNanos(1);   // sendAlert() on the caller: 1 ms each
+        System.out.printf("the same burst sent synchronously would hold the caller for %.0f s%n", synchronous / 1e9);
+        boolean t4 = drained && delivered == alerts && outcomes.get(DispatchResult.ACCEPTED) == alerts
+                  && submitted < synchronous / 100;
+        System.out.println("Test 4 " + (t4 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 5: dispatch() racing close() — every ACCEPTED alert is sent ═");
+        boolean t5 = true;
+        int emptyAfterClose = 0;
+        for (int trial = 0; trial < 20; trial++) {
+            RecordingSender raced = new RecordingSender("Email", 0);
+            AsyncNotificationDispatcher racing = new AsyncNotificationDispatcher();
+            racing.register(raced, new ChannelPolicy(1_000_000, 1_000_000, 1_000, 2));
+            LongAdder acceptedByCallers = new LongAdder();
+            Thread[] callers = new Thread[4];
+            for (int c = 0; c < callers.length; c++) {
+                callers[c] = Thread.ofVirtual().start(() -> {
+                    while (true) {
+                        DispatchResult r = racing.dispatch("Email", "oncall", "disk full");
+                        if (r == DispatchResult.CLOSED) return;
+                        if (r == DispatchResult.ACCEPTED) acceptedByCallers.increment();
+                    }
+                });
+            }
+            Thread.sleep(2);
+            racing.close(5_000);
+            for (Thread caller : callers) caller.join();
+            t5 &= raced.delivered.sum() == acceptedByCallers.sum() && racing.accepted("Email") == acceptedByCallers.sum();
+            emptyAfterClose += racing.queueDepth("Email") == 0 ? 1 : 0;
+        }
+        System.out.println("20 close() races: callers' ACCEPTED == delivered in every trial: " + t5
+                + ", queues empty after close: " + emptyAfterClose + "/20");
+        t5 &= emptyAfterClose == 20;
+        System.out.println("Test 5 " + (t5 ? "PASSED" : "FAILED"));
+    }
+}
@@ -0,0 +1,428 @@
+package com.ramkumar.lld.designpatterns.creational.factorymethod.code;
+
+import com.ramkumar.lld.designpatterns.creational.factorymethod.code.AsyncNotificationDispatchDemo.AsyncNotificationDispatcher;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.code.AsyncNotificationDispatchDemo.ChannelPolicy;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.code.AsyncNotificationDispatchDemo.DispatchResult;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.code.AsyncNotificationDispatchDemo.RecordingSender;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Scenario G — Coalescing and De-duplicating Outbound Notifications
+ *
+ * During an incident every failing health check raises the same alert, and
+ * the on-call engineer gets "DB CPU at 95%" three hundred times. The
+ * NotificationCoalescer sits in front of delivery (e.g. the Scenario F
+ * dispatcher) and cuts that down in two steps:
+ *
+ *   1. De-duplicate — an identical (channel, recipient, message) seen within
+ *      dedupWindowMs of its first occurrence is dropped and counted.
+ *   2. Batch — distinct messages for the same (channel, recipient) are held
+ *      for up to batchWindowMs from the first one, then delivered as ONE
+ *      message listing them all. A batch reaching maxBatch goes out at once.
+ *
+ *   submit() ──► dedup map ──► per-recipient batch ──► flush ──► Downstream.deliver()
+ *                 (dup → counted)    (window or maxBatch)
+ *
+ * Both maps are ConcurrentHashMaps updated with atomic per-key operations,
+ * so submit() is safe from any number of request threads. flushExpired()
+ * runs on a timer once start() is called; tests drive it with a manual clock.
+ *
+ * Downstream.deliver() reports whether it took the message (the dispatcher
+ * answers QUEUE_FULL or CLOSED when it does not). A refused or throwing
+ * delivery is counted and dropped — never retried, and never allowed to stop
+ * the flush loop or the timer. After close(), submit() answers CLOSED instead
+ * of buffering into maps nobody will flush.
+ * Counters: submitted, duplicatesSuppressed, messagesMerged, deliveries,
+ * rejectedSends, failedSends.
+ */
+public class NotificationCoalescingDemo {
+
+    /** Where coalesced notifications go — e.g. an AsyncNotificationDispatcher. */
+    @FunctionalInterface
+    interface Downstream {
+        /** Returns true if the message was accepted for delivery, false if it was refused. */
+        boolean deliver(String channel, String recipient, String message);
+
+        /** Adapts the Scenario F dispatcher: only ACCEPTED counts as delivered. */
+        static Downstream of(AsyncNotificationDispatcher dispatcher) {
+            return (channel, recipient, message) ->
+                    dispatcher.dispatch(channel, recipient, message) == DispatchResult.ACCEPTED;
+        }
+    }
+
+    enum CoalesceResult { BUFFERED, DUPLICATE, CLOSED }
+
+    // =========================================================================
+    // NotificationCoalescer
+    // =========================================================================
+
+    static final class NotificationCoalescer implements AutoCloseable {
+
+        // ── (channel, recipient[, message]) key; message is null for batch keys ──
+        private static final class Key {
+            final String channel;
+            final String recipient;
+            final String message;
+            private final int hash;
+
+            Key(String channel, String recipient, String message) {
+                this.channel   = channel;
+                this.recipient = recipient;
+                this.message   = message;
+                this.hash      = Objects.hash(channel, recipient, message);
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o) return true;
+                if (!(o instanceof Key k)) return false;
+                return hash == k.hash && channel.equals(k.channel) && recipient.equals(k.recipient)
+                        && Objects.equals(message, k.message);
+            }
+
+            @Override public int hashCode() { return hash; }
+        }
+
+        // ── Messages waiting for one (channel, recipient); guarded by the map's per-key compute ──
+        private static final class Batch {
+            final long         openedMs;
+            final List<String> messages = new ArrayList<>(4);
+
+            Batch(long openedMs) { this.openedMs = openedMs; }
+        }
+
+        private final Downstream   downstream;
+        private final long         dedupWindowMs;
+        private final long         batchWindowMs;
+        private final int          maxBatch;
+        private final LongSupplier clockMs;
+
+        private final Map<Key, Long>  firstSeen = new ConcurrentHashMap<>();
+        private final Map<Key, Batch> batches   = new ConcurrentHashMap<>();
+        private ScheduledExecutorService flusher;
+        private volatile boolean closed;
+
+        // ── Metrics ──
+        private final LongAdder submitted  = new LongAdder();
+        private final LongAdder duplicates = new LongAdder();
+        private final LongAdder merged     = new LongAdder();   // messages that rode in another's delivery
+        private final LongAdder deliveries = new LongAdder();   // accepted by the downstream
+        private final LongAdder rejected   = new LongAdder();   // refused by the downstream
+        private final LongAdder failed     = new LongAdder();   // downstream threw
+
+        NotificationCoalescer(Downstream downstream, long dedupWindowMs, long batchWindowMs, int maxBatch,
+                              LongSupplier clockMs) {
+            if (downstream == null || clockMs == null) {
+                throw new IllegalArgumentException("downstream and clock must not be null");
+            }
+            if (dedupWindowMs < 0 || batchWindowMs < 0 || maxBatch < 1) {
+                throw new IllegalArgumentException("windows must be >= 0 and maxBatch >= 1");
+            }
+            this.downstream    = downstream;
+            this.dedupWindowMs = dedupWindowMs;
+            this.batchWindowMs = batchWindowMs;
+            this.maxBatch      = maxBatch;
+            this.clockMs       = clockMs;
+        }
+
+        NotificationCoalescer(Downstream downstream, long dedupWindowMs, long batchWindowMs, int maxBatch) {
+            this(downstream, dedupWindowMs, batchWindowMs, maxBatch, System::currentTimeMillis);
+        }
+
+        /** Flushes due batches every quarter batch window on a daemon timer. */
+        synchronized NotificationCoalescer start() {
+            if (flusher != null) {
+                throw new IllegalStateException("already started");
+            }
+            long period = Math.max(1, batchWindowMs / 4);
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "notification-coalescer");
+                t.setDaemon(true);
+                return t;
+            });
+            flusher.scheduleAtFixedRate(this::flushExpired, period, period, TimeUnit.MILLISECONDS);
+            return this;
+        }
+
+        CoalesceResult submit(String channel, String recipient, String message) {
+            if (channel == null || recipient == null || recipient.isBlank() || message == null) {
+                throw new IllegalArgumentException("channel, recipient and message are required");
+            }
+            if (closed) {
+                return CoalesceResult.CLOSED;
+            }
+            submitted.increment();
+            long now = clockMs.getAsLong();
+            if (isDuplicate(new Key(channel, recipient, message), now)) {
+                duplicates.increment();
+                return CoalesceResult.DUPLICATE;
+            }
+            Batch[] full = new Batch[1];
+            batches.compute(new Key(channel, recipient, null), (k, batch) -> {
+                if (batch == null) batch = new Batch(now);
+                batch.messages.add(message);
+                if (batch.messages.size() >= maxBatch) {
+                    full[0] = batch;
+                    return null;                                   // removed; delivered below, outside the lock
+                }
+                return batch;
+            });
+            if (full[0] != null) {
+                deliver(channel, recipient, full[0]);
+            } else if (closed) {
+                // close() began while we buffered and its final flush may already be done: send it ourselves
+                flush(now, true);
+            }
+            return CoalesceResult.BUFFERED;
+        }
+
+        /** Delivers every batch older than the batch window and forgets expired dedup entries. */
+        void flushExpired() {
+            flush(clockMs.getAsLong(), false);
+        }
+
+        long submitted()            { return submitted.sum(); }
+        long duplicatesSuppressed() { return duplicates.sum(); }
+        long messagesMerged()       { return merged.sum(); }
+        long deliveries()           { return deliveries.sum(); }
+        long rejectedSends()        { return rejected.sum(); }
+        long failedSends()          { return failed.sum(); }
+        /** Sends that did not happen: duplicates dropped plus messages folded into another delivery. */
+        long suppressedSends()      { return duplicates.sum() + merged.sum(); }
+        int  pendingBatches()       { return batches.size(); }
+
+        /**
+         * Refuses further submits, waits for a timer flush already in progress,
+         * then delivers everything still buffered.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            ScheduledExecutorService timer;
+            synchronized (this) {
+                timer = flusher;
+            }
+            if (timer != null) {
+                timer.shutdown();                                  // cancels the schedule, lets a running flush finish
+                try {
+                    timer.awaitTermination(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            flush(clockMs.getAsLong(), true);
+        }
+
+        // First sighting, or the previous one is older than the window → not a duplicate.
+        // replace() loses to a concurrent refresh, in which case the other caller won.
+        private boolean isDuplicate(Key key, long now) {
+            Long previous = firstSeen.putIfAbsent(key, now);
+            if (previous == null) return false;
+            if (now - previous < dedupWindowMs) return true;
+            return !firstSeen.replace(key, previous, now);
+        }
+
+        private void flush(long now, boolean all) {
+            for (Key key : batches.keySet()) {
+                Batch[] due = new Batch[1];
+                batches.computeIfPresent(key, (k, batch) -> {
+                    if (all || now - batch.openedMs >= batchWindowMs) {
+                        due[0] = batch;
+                        return null;
+                    }
+                    return batch;
+                });
+                if (due[0] != null) {
+                    deliver(key.channel, key.recipient, due[0]);
+                }
+            }
+            firstSeen.values().removeIf(seen -> now - seen >= dedupWindowMs);   // keeps the map bounded
+        }
+
+        private void deliver(String channel, String recipient, Batch batch) {
+            List<String> messages = batch.messages;
+            String text;
+            if (messages.size() == 1) {
+                text = messages.get(0);
+            } else {
+                StringBuilder sb = new StringBuilder().append('[').append(messages.size()).append(" alerts]");
+                for (String m : messages) {
+                    sb.append("\n- ").append(m);
+                }
+                text = sb.toString();
+            }
+            merged.add(messages.size() - 1);
+            boolean accepted;
+            try {
+                accepted = downstream.deliver(channel, recipient, text);
+            } catch (RuntimeException e) {
+                // Counted, not rethrown: on the timer thread an exception would
+                // cancel scheduleAtFixedRate, and in flush() it would strand
+                // every batch after this one
+                failed.increment();
+                return;
+            }
+            (accepted ? deliveries : rejected).increment();
+        }
+    }
+
+    // =========================================================================
+    // Main
+    // =========================================================================
+
+    // Collects deliveries for assertions
+    private static final class Inbox implements Downstream {
+        final List<String> delivered = new ArrayList<>();
+
+        @Override
+        public synchronized boolean deliver(String channel, String recipient, String message) {
+            delivered.add(channel + "→" + recipient + ": " + message.replace("\n", " | "));
+            return true;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        AtomicLong clock = new AtomicLong(1_000);                 // manual clock for Tests 1–3
+
+        System.out.println("═══ Test 1: Identical alerts within the window are suppressed ═");
+        Inbox inbox = new Inbox();
+        NotificationCoalescer c1 = new NotificationCoalescer(inbox, 60_000, 0, 10, clock::get);
+        CoalesceResult first  = c1.submit("SMS", "oncall", "DB CPU at 95%");
+        CoalesceResult second = c1.submit("SMS", "oncall", "DB CPU at 95%");
+        CoalesceResult other  = c1.submit("Email", "oncall", "DB CPU at 95%");   // different channel
+        c1.flushExpired();
+        clock.addAndGet(60_000);
+        CoalesceResult later  = c1.submit("SMS", "oncall", "DB CPU at 95%");     // window passed
+        c1.flushExpired();
+        inbox.delivered.forEach(d -> System.out.println("  " + d));
+        System.out.println("results: " + first + ", " + second + ", " + other + ", " + later
+                + "  duplicates suppressed: " + c1.duplicatesSuppressed());
+        boolean t1 = first == CoalesceResult.BUFFERED && second == CoalesceResult.DUPLICATE
+                  && other == CoalesceResult.BUFFERED && later == CoalesceResult.BUFFERED
+                  && c1.duplicatesSuppressed() == 1 && inbox.delivered.size() == 3;
+        System.out.println("Test 1 " + (t1 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 2: Distinct messages per recipient are batched ═════");
+        Inbox inbox2 = new Inbox();
+        NotificationCoalescer c2 = new NotificationCoalescer(inbox2, 60_000, 500, 10, clock::get);
+        c2.submit("Slack", "alice", "DB CPU at 95%");
+        c2.submit("Slack", "alice", "DB replication lag 30s");
+        c2.submit("Slack", "bob",   "DB CPU at 95%");
+        clock.addAndGet(200);
+        c2.submit("Slack", "alice", "API p99 2.4s");
+        c2.flushExpired();                                        // 200 ms: nothing due yet
+        int beforeWindow = inbox2.delivered.size();
+        clock.addAndGet(300);
+        c2.flushExpired();                                        // 500 ms: both batches due
+        inbox2.delivered.forEach(d -> System.out.println("  " + d));
+        System.out.println("deliveries: " + c2.deliveries() + ", merged: " + c2.messagesMerged());
+        boolean t2 = beforeWindow == 0 && c2.deliveries() == 2 && c2.messagesMerged() == 2
+                  && inbox2.delivered.stream().anyMatch(d -> d.startsWith("Slack→alice: [3 alerts]"))
+                  && c2.pendingBatches() == 0;
+        System.out.println("Test 2 " + (t2 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 3: A full batch goes out without waiting ═════════");
+        Inbox inbox3 = new Inbox();
+        NotificationCoalescer c3 = new NotificationCoalescer(inbox3, 60_000, 10_000, 3, clock::get);
+        for (int i = 1; i <= 4; i++) {
+            c3.submit("Email", "carol", "disk " + i + " failing");
+        }
+        int immediate = inbox3.delivered.size();
+        c3.close();                                               // flushes the 4th
+        inbox3.delivered.forEach(d -> System.out.println("  " + d));
+        boolean t3 = immediate == 1 && inbox3.delivered.size() == 2 && c3.pendingBatches() == 0;
+        System.out.println("Test 3 " + (t3 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 4: Incident storm through the async dispatcher ══════");
+        // 8 threads × 50 recipients × 3 alerts × 25 repeats, all within one dedup window
+        RecordingSender sms = new RecordingSender("SMS", 1_000);
+        int threads = 8, recipients = 50, repeats = 25;
+        String[] alerts = { "DB CPU at 95%", "DB replication lag 30s", "API p99 2.4s" };
+        try (AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher()) {
+            dispatcher.register(sms, new ChannelPolicy(10_000, 5_000, 100, 16));
+            NotificationCoalescer storm = new NotificationCoalescer(Downstream.of(dispatcher), 60_000, 100, 20).start();
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            CountDownLatch go = new CountDownLatch(1);
+            for (int t = 0; t < threads; t++) {
+                pool.submit(() -> {
+                    go.await();
+                    for (int r = 0; r < repeats; r++) {
+                        for (int u = 0; u < recipients; u++) {
+                            for (String alert : alerts) {
+                                storm.submit("SMS", "engineer-" + u, alert);
+                            }
+                        }
+                    }
+                    return null;
+                });
+            }
+            go.countDown();
+            pool.shutdown();
+            pool.awaitTermination(30, TimeUnit.SECONDS);
+            Thread.sleep(300);                                    // let the last batches age out and flush
+            storm.close();
+            dispatcher.close(10_000);
+
+            long submitted = storm.submitted();
+            System.out.printf("submitted %,d → delivered %,d (duplicates %,d, merged %,d, suppressed sends %,d, rejected %,d)%n",
+                    submitted, sms.delivered.sum(), storm.duplicatesSuppressed(), storm.messagesMerged(),
+                    storm.suppressedSends(), storm.rejectedSends());
+            System.out.println("engineer-7 received " + sms.perRecipient.get("engineer-7") + " SMS");
+            boolean t4 = submitted == (long) threads * recipients * alerts.length * repeats
+                      && storm.duplicatesSuppressed() == submitted - recipients * alerts.length
+                      && sms.delivered.sum() == storm.deliveries()
+                      && storm.rejectedSends() == 0 && storm.failedSends() == 0
+                      && sms.delivered.sum() + storm.suppressedSends() == submitted
+                      && sms.delivered.sum() <= recipients * alerts.length;
+            System.out.println("Test 4 " + (t4 ? "PASSED" : "FAILED"));
+        }
+
+        System.out.println("\n═══ Test 5: Refused and failing deliveries are counted, flushing goes on ═");
+        Inbox inbox5 = new Inbox();
+        Downstream flaky = (channel, recipient, message) -> {
+            if (recipient.equals("broken")) throw new IllegalStateException("SMTP relay down");
+            if (recipient.equals("throttled")) return false;               // e.g. QUEUE_FULL
+            return inbox5.deliver(channel, recipient, message);
+        };
+        NotificationCoalescer c5 = new NotificationCoalescer(flaky, 60_000, 20, 10).start();
+        c5.submit("Email", "broken", "disk 1 failing");
+        c5.submit("Email", "throttled", "disk 1 failing");
+        c5.submit("Email", "dave", "disk 1 failing");
+        Thread.sleep(100);                                        // timer flushes all three
+        c5.submit("Email", "erin", "disk 2 failing");             // after the failure
+        Thread.sleep(100);                                        // the timer must still be running
+        int byTimer = inbox5.delivered.size();
+        c5.close();
+        inbox5.delivered.forEach(d -> System.out.println("  " + d));
+        System.out.println("deliveries: " + c5.deliveries() + ", rejected: " + c5.rejectedSends()
+                + ", failed: " + c5.failedSends());
+        boolean t5 = byTimer == 2 && c5.deliveries() == 2 && c5.rejectedSends() == 1 && c5.failedSends() == 1
+                  && c5.pendingBatches() == 0;
+        System.out.println("Test 5 " + (t5 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 6: After close(), submit() refuses instead of buffering ═");
+        Inbox inbox6 = new Inbox();
+        NotificationCoalescer c6 = new NotificationCoalescer(inbox6, 60_000, 60_000, 10).start();
+        c6.submit("SMS", "oncall", "before close");
+        c6.close();
+        CoalesceResult late = c6.submit("SMS", "oncall", "after close");
+        System.out.println("late submit: " + late + ", delivered: " + inbox6.delivered);
+        boolean t6 = late == CoalesceResult.CLOSED && inbox6.delivered.size() == 1
+                  && c6.pendingBatches() == 0 && c6.submitted() == 1;
+        System.out.println("Test 6 " + (t6 ? "PASSED" : "FAILED"));
+    }
+}
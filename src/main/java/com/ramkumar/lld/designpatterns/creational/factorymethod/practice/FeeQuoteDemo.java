@@ -0,0 +1,321 @@
+package com.ramkumar.lld.designpatterns.creational.factorymethod.practice;
+
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.BankTransferPaymentService;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.FeeSchedule;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.PayPalPaymentService;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.PaymentProcessor;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.PaymentService;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.StripePaymentService;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scenario E — Fee Quotes for Every Gateway
+ *
+ * The checkout page shows the fee for every gateway whenever the cart
+ * changes. It used to call calculateFee() once per gateway, and each call
+ * printed a line (and, before Scenario C, built a processor).
+ *
+ * FeeQuoteService reads each gateway's FeeSchedule once, at construction,
+ * into three primitive arrays (rate, flat, minimum). Then:
+ *
+ *   quote(amount)            — one FeeQuote with every gateway's fee; recent
+ *                              amounts come from a small cache
+ *   quote(amounts[], out[])  — bulk: one tight loop per gateway over a
+ *                              double[] of amounts, no objects, no calls
+ *
+ * Amounts are rounded to the cent (half-even). A gateway that cannot take an amount
+ * (zero/negative, or below Bank Transfer's $10 minimum) quotes NaN.
+ *
+ * The cache is direct-mapped: slot = hash(cents) & mask, one immutable
+ * FeeQuote per slot, replaced on collision. Readers and writers race on a
+ * plain array, which is safe because FeeQuote's fields are final — a reader
+ * sees either a complete old quote or a complete new one, and checks the
+ * cents before using it.
+ *
+ * JMH version: FeeQuoteBenchmark (src/jmh, quotes per microsecond).
+ */
+public class FeeQuoteDemo {
+
+    // =========================================================================
+    // FeeQuote — every gateway's fee for one amount (immutable)
+    // =========================================================================
+
+    static final class FeeQuote {
+        private final long     cents;
+        private final double[] fees;     // index = gateway; never exposed
+        private final String[] gateways; // shared with the service
+
+        private FeeQuote(long cents, double[] fees, String[] gateways) {
+            this.cents    = cents;
+            this.fees     = fees;
+            this.gateways = gateways;
+        }
+
+        public double getAmount()          { return cents / 100.0; }
+        public int    gatewayCount()       { return fees.length; }
+        public String gatewayName(int g)   { return gateways[g]; }
+        public double fee(int g)           { return fees[g]; }
+
+        /** Index of the cheapest gateway that accepts this amount, or -1 if none does. */
+        public int cheapest() {
+            int best = -1;
+            for (int g = 0; g < fees.length; g++) {
+                if (!Double.isNaN(fees[g]) && (best < 0 || fees[g] < fees[best])) best = g;
+            }
+            return best;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(String.format("FeeQuote{$%.2f:", getAmount()));
+            for (int g = 0; g < fees.length; g++) {
+                sb.append(String.format(" %s=%s", gateways[g], Double.isNaN(fees[g]) ? "n/a" : String.format("$%.2f", fees[g])));
+            }
+            return sb.append('}').toString();
+        }
+    }
+
+    // =========================================================================
+    // FeeQuoteService
+    // =========================================================================
+
+    static final class FeeQuoteService {
+
+        private final String[] gateways;
+        private final double[] rates;
+        private final double[] flats;
+        private final double[] minimums;
+
+        private final FeeQuote[] cache;
+        private final int        mask;
+        private final LongAdder  hits   = new LongAdder();
+        private final LongAdder  misses = new LongAdder();
+
+        FeeQuoteService(List<PaymentService> services, int cacheSize) {
+            if (services == null || services.isEmpty()) {
+                throw new IllegalArgumentException("services must not be empty");
+            }
+            if (cacheSize < 1 || Integer.bitCount(cacheSize) != 1) {
+                throw new IllegalArgumentException("cacheSize must be a power of two");
+            }
+            int n = services.size();
+            gateways = new String[n];
+            rates    = new double[n];
+            flats    = new double[n];
+            minimums = new double[n];
+            for (int g = 0; g < n; g++) {
+                PaymentProcessor processor = services.get(g).processor();
+                FeeSchedule schedule = processor.feeSchedule();
+                gateways[g] = processor.getGatewayName();
+                rates[g]    = schedule.getRate();
+                flats[g]    = schedule.getFlat();
+                minimums[g] = schedule.getMinimumAmount();
+            }
+            cache = new FeeQuote[cacheSize];
+            mask  = cacheSize - 1;
+        }
+
+        int    gatewayCount()     { return gateways.length; }
+        String gatewayName(int g) { return gateways[g]; }
+        long   cacheHits()        { return hits.sum(); }
+        long   cacheMisses()      { return misses.sum(); }
+
+        /** Every gateway's fee for one amount; recent amounts are served from the cache. */
+        FeeQuote quote(double amount) {
+            long cents = (long) Math.rint(amount * 100);
+            int slot = Long.hashCode(cents * 0x9E3779B97F4A7C15L) & mask;
+            FeeQuote cached = cache[slot];
+            if (cached != null && cached.cents == cents) {
+                hits.increment();
+                return cached;
+            }
+            misses.increment();
+            double a = cents / 100.0;
+            double[] fees = new double[gateways.length];
+            for (int g = 0; g < fees.length; g++) {
+                fees[g] = fee(g, a);
+            }
+            FeeQuote quote = new FeeQuote(cents, fees, gateways);
+            cache[slot] = quote;
+            return quote;
+        }
+
+        /**
+         * Bulk quote. out must hold amounts.length × gatewayCount() values and
+         * is filled gateway-major: out[g * amounts.length + i] is gateway g's
+         * fee for amounts[i]. Bypasses the cache.
+         */
+        void quote(double[] amounts, double[] out) {
+            if (amounts == null || out == null) {
+                throw new IllegalArgumentException("amounts and out must not be null");
+            }
+            int n = amounts.length;
+            if (out.length != n * gateways.length) {
+                throw new IllegalArgumentException("out must have length " + n * gateways.length);
+            }
+            for (int g = 0; g < gateways.length; g++) {
+                double rate = rates[g], flat = flats[g], min = minimums[g];
+                int base = g * n;
+                for (int i = 0; i < n; i++) {                  // branch-light body the JIT can unroll
+                    double a = Math.rint(amounts[i] * 100) / 100;       // same rounding as quote(amount)
+                    out[base + i] = (a > 0 && a >= min) ? a * rate + flat : Double.NaN;
+                }
+            }
+        }
+
+        private double fee(int g, double amount) {
+            return (amount > 0 && amount >= minimums[g]) ? amount * rates[g] + flats[g] : Double.NaN;
+        }
+    }
+
+    static List<PaymentService> allGateways() {
+        return List.of(new StripePaymentService(), new PayPalPaymentService(), new BankTransferPaymentService());
+    }
+
+    // =========================================================================
+    // Main
+    // =========================================================================
+
+    public static void main(String[] args) {
+
+        PrintStream console = System.out;
+        List<PaymentService> services = allGateways();
+        FeeQuoteService quotes = new FeeQuoteService(services, 256);
+
+        System.out.println("═══ Test 1: Quotes match each gateway's getTransactionFee ═══");
+        boolean t1 = true;
+        for (double amount : new double[] { 0.50, 9.99, 10.00, 49.95, 100.00, 12_345.67 }) {
+            FeeQuote q = quotes.quote(amount);
+            System.out.println("  " + q);
+            for (int g = 0; g < q.gatewayCount(); g++) {
+                PaymentProcessor p = services.get(g).processor();
+                boolean accepts = amount >= p.feeSchedule().getMinimumAmount();
+                t1 &= accepts ? Math.abs(q.fee(g) - p.getTransactionFee(amount)) < 1e-9 : Double.isNaN(q.fee(g));
+            }
+        }
+        System.out.println("Test 1 " + (t1 ? "PASSED" : "FAILED") + " — Bank Transfer n/a below $10");
+
+        System.out.println("\n═══ Test 2: Bulk quote equals single quotes ════════════════");
+        double[] amounts = { 5.00, 19.99, 10.00, 250.00, -3.00, 1_000.004 };
+        double[] out = new double[amounts.length * quotes.gatewayCount()];
+        quotes.quote(amounts, out);
+        boolean t2 = true;
+        for (int g = 0; g < quotes.gatewayCount(); g++) {
+            for (int i = 0; i < amounts.length; i++) {
+                double single = quotes.quote(amounts[i]).fee(g);
+                double bulk   = out[g * amounts.length + i];
+                t2 &= Double.isNaN(single) ? Double.isNaN(bulk) : single == bulk;
+            }
+            System.out.printf("  %-14s %s%n", quotes.gatewayName(g),
+                    Arrays.toString(Arrays.copyOfRange(out, g * amounts.length, (g + 1) * amounts.length)));
+        }
+        boolean rejected = false;
+        try {
+            quotes.quote(amounts, new double[amounts.length]);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+            System.out.println("Caught IAE: " + e.getMessage());
+        }
+        System.out.println("Test 2 " + (t2 && rejected ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 3: Recent amounts hit the cache; cheapest gateway ═══");
+        FeeQuoteService fresh = new FeeQuoteService(services, 256);
+        FeeQuote first = fresh.quote(75.40);
+        FeeQuote again = fresh.quote(75.40);
+        fresh.quote(75.404);                                     // same cent → same quote
+        FeeQuote small = fresh.quote(8.00);
+        System.out.println("  " + first + " cheapest: " + first.gatewayName(first.cheapest()));
+        System.out.println("  " + small + " cheapest: " + small.gatewayName(small.cheapest()));
+        System.out.println("  hits=" + fresh.cacheHits() + " misses=" + fresh.cacheMisses());
+        boolean t3 = first == again && fresh.cacheHits() == 2 && fresh.cacheMisses() == 2
+                  && "Bank Transfer".equals(first.gatewayName(first.cheapest()))
+                  && "Stripe".equals(small.gatewayName(small.cheapest()));
+        System.out.println("Test 3 " + (t3 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 4: Quotes/s — calculateFee per gateway vs service ══");
+        int carts = 1_024;
+        double[] cartTotals = new double[carts];
+        for (int i = 0; i < carts; i++) {
+            cartTotals[i] = 5 + (i * 37 % 500) + (i % 100) / 100.0;
+        }
+        double[] bulk = new double[carts * quotes.gatewayCount()];
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));   // calculateFee() prints
+        long[] nanos = new long[3];
+        double sink = 0;
+        int reps = 300;
+        for (int round = 0; round < 4; round++) {               // rounds 0-1 warm up
+            long t0 = System.nanoTime();
+            for (int r = 0; r < reps; r++) {
+                for (double amount : cartTotals) {
+                    for (PaymentService service : services) {
+                        if (amount >= service.processor().feeSchedule().getMinimumAmount()) {
+                            sink += service.calculateFee(amount);
+                        }
+                    }
+                }
+            }
+            long t1b = System.nanoTime();
+            for (int r = 0; r < reps; r++) {
+                for (double amount : cartTotals) {
+                    sink += quotes.quote(amount).fee(0);
+                }
+            }
+            long t2b = System.nanoTime();
+            for (int r = 0; r < reps; r++) {
+                quotes.quote(cartTotals, bulk);
+                sink += bulk[r % bulk.length];
+            }
+            long t3b = System.nanoTime();
+            if (round >= 2) {
+                nanos[0] += t1b - t0;
+                nanos[1] += t2b - t1b;
+                nanos[2] += t3b - t2b;
+            }
+        }
+        System.setOut(console);
+        double quotesRun = 2.0 * reps * carts;                  // one quote = all gateways for one amount
+        String[] labels = { "calculateFee × 3", "quote(amount)", "quote(amounts[])" };
+        System.out.printf("%-18s %16s%n", "path", "quotes/s");
+        for (int m = 0; m < 3; m++) {
+            System.out.printf("%-18s %,16.0f%n", labels[m], quotesRun / (nanos[m] / 1e9));
+        }
+        System.out.println("(checksum " + (long) sink + ", cache hits " + quotes.cacheHits()
+                + "; rates are informational — FeeQuoteBenchmark measures them)");
+        // All three paths must agree on every fee they were timed on
+        boolean t4 = true;
+        for (int i = 0; i < carts; i++) {
+            FeeQuote q = quotes.quote(cartTotals[i]);
+            for (int g = 0; g < quotes.gatewayCount(); g++) {
+                double fromBulk = bulk[g * carts + i];
+                PaymentProcessor p = services.get(g).processor();
+                boolean accepts = cartTotals[i] >= p.feeSchedule().getMinimumAmount();
+                t4 &= Double.isNaN(q.fee(g)) ? Double.isNaN(fromBulk) && !accepts
+                                             : q.fee(g) == fromBulk && accepts
+                                               && Math.abs(q.fee(g) - p.getTransactionFee(cartTotals[i])) < 1e-9;
+            }
+        }
+        System.out.println("Test 4 " + (t4 ? "PASSED" : "FAILED") + " — the three paths quote the same fees");
+
+        System.out.println("\n═══ Test 5: Bank Transfer — $10.00 accepted, $9.99 rejected, on every path ═");
+        PaymentService bank = new BankTransferPaymentService();
+        int bankIndex = services.size() - 1;
+        boolean edgeAccepted = bank.calculateFee(10.00) == 1.50 && bank.charge(10.00, "USD") != null
+                            && quotes.quote(10.00).fee(bankIndex) == 1.50;
+        boolean belowRejected = Double.isNaN(quotes.quote(9.99).fee(bankIndex));
+        for (Runnable below : List.<Runnable>of(() -> bank.calculateFee(9.99), () -> bank.charge(9.99, "USD"))) {
+            try {
+                below.run();
+                belowRejected = false;
+            } catch (IllegalArgumentException e) {
+                belowRejected &= "Bank Transfer minimum is $10.00".equals(e.getMessage());
+            }
+        }
+        System.out.println("  $10.00 accepted: " + edgeAccepted + ", $9.99 rejected: " + belowRejected);
+        System.out.println("Test 5 " + (edgeAccepted && belowRejected ? "PASSED" : "FAILED"));
+    }
+}
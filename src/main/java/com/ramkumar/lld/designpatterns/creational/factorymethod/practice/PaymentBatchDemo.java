@@ -0,0 +1,193 @@
+package com.ramkumar.lld.designpatterns.creational.factorymethod.practice;
+
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.BankTransferPaymentService;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.PayPalPaymentService;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.PaymentRequest;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.PaymentResult;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.PaymentService;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.StripePaymentService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Scenario D — Batched Settlement Across Gateways
+ *
+ * The nightly settlement job charged tens of thousands of payments with one
+ * charge() call each, paying every fixed per-call cost (processor lookup,
+ * counter update, log line) per payment. PaymentProcessor now has
+ *
+ *   List<PaymentResult> processBatch(List<PaymentRequest>)
+ *
+ * and PaymentService.chargeBatch() chunks a list by the gateway's own
+ * maxBatchSize(). SettlementJob submits each gateway's list on its own
+ * (virtual) thread, so Stripe, PayPal and Bank Transfer settle in parallel
+ * while each gateway still sees its batches in order.
+ *
+ * Results are per item: a bad payment fails on its own with the gateway's
+ * validation message and does not sink the rest of its batch.
+ *
+ * JMH version: PaymentBatchBenchmark (src/jmh, payments per microsecond).
+ */
+public class PaymentBatchDemo {
+
+    // =========================================================================
+    // SettlementJob — one task per gateway, gateways in parallel
+    // =========================================================================
+
+    static final class SettlementJob {
+
+        /**
+         * Charges each service's requests; returns each service's results in
+         * the same order as its requests. Map iteration order is preserved.
+         */
+        Map<PaymentService, List<PaymentResult>> settle(Map<PaymentService, List<PaymentRequest>> byGateway)
+                throws InterruptedException {
+            if (byGateway == null) {
+                throw new IllegalArgumentException("byGateway must not be null");
+            }
+            Map<PaymentService, Future<List<PaymentResult>>> pending = new LinkedHashMap<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                byGateway.forEach((service, requests) ->
+                        pending.put(service, executor.submit(() -> service.chargeBatch(requests))));
+                Map<PaymentService, List<PaymentResult>> results = new LinkedHashMap<>();
+                for (Map.Entry<PaymentService, Future<List<PaymentResult>>> e : pending.entrySet()) {
+                    results.put(e.getKey(), e.getValue().get());
+                }
+                return results;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                throw new IllegalStateException("settlement failed", e.getCause());
+            }
+        }
+    }
+
+    static List<PaymentRequest> requests(String prefix, int count, double amount, String currency) {
+        List<PaymentRequest> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(new PaymentRequest(prefix + "-" + i, amount, currency));
+        }
+        return list;
+    }
+
+    // =========================================================================
+    // Main
+    // =========================================================================
+
+    public static void main(String[] args) throws Exception {
+
+        PrintStream console = System.out;
+        PrintStream quiet   = new PrintStream(OutputStream.nullOutputStream());
+
+        System.out.println("═══ Test 1: Per-item results — bad items fail alone ═══════");
+        PaymentService stripe = new StripePaymentService();
+        List<PaymentResult> mixed = stripe.chargeBatch(List.of(
+                new PaymentRequest("order-1", 40.0, "USD"),
+                new PaymentRequest("order-2", 15.0, "BTC"),
+                new PaymentRequest("order-3", -5.0, "EUR"),
+                new PaymentRequest("order-4", 99.0, "GBP")));
+        mixed.forEach(r -> System.out.println("  " + r));
+        boolean t1 = mixed.size() == 4
+                  && "STRIPE-00001".equals(mixed.get(0).getTransactionId())
+                  && !mixed.get(1).succeeded() && mixed.get(1).getError().contains("USD, EUR, GBP")
+                  && !mixed.get(2).succeeded()
+                  && "STRIPE-00002".equals(mixed.get(3).getTransactionId())
+                  && "order-4".equals(mixed.get(3).getReference());
+        System.out.println("Test 1 " + (t1 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 2: Chunked by each gateway's maxBatchSize ══════════");
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(log, true, StandardCharsets.UTF_8));
+        new StripePaymentService().chargeBatch(requests("s", 1_050, 20.0, "USD"));
+        long stripeLines = log.toString(StandardCharsets.UTF_8).lines().count();
+        log.reset();
+        new BankTransferPaymentService().chargeBatch(requests("b", 1_050, 20.0, "USD"));
+        long bankLines = log.toString(StandardCharsets.UTF_8).lines().count();
+        System.setOut(console);
+        boolean oversize = false;
+        try {
+            stripe.processor().processBatch(requests("x", 101, 20.0, "USD"));
+        } catch (IllegalArgumentException e) {
+            oversize = true;
+            System.out.println("Caught IAE: " + e.getMessage());
+        }
+        System.out.println("1,050 payments → Stripe " + stripeLines + " batches (max 100), Bank " + bankLines
+                + " batches (max 1,000)");
+        boolean t2 = stripeLines == 11 && bankLines == 2 && oversize;
+        System.out.println("Test 2 " + (t2 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 3: Three gateways settle in parallel, results in order ═");
+        PaymentService s = new StripePaymentService(), p = new PayPalPaymentService(), b = new BankTransferPaymentService();
+        Map<PaymentService, List<PaymentRequest>> job = new LinkedHashMap<>();
+        job.put(s, requests("stripe", 5_000, 30.0, "EUR"));
+        job.put(p, requests("paypal", 5_000, 30.0, "JPY"));
+        job.put(b, requests("bank",   5_000, 30.0, "USD"));
+        System.setOut(quiet);
+        Map<PaymentService, List<PaymentResult>> settled = new SettlementJob().settle(job);
+        System.setOut(console);
+        boolean t3 = true;
+        for (Map.Entry<PaymentService, List<PaymentResult>> e : settled.entrySet()) {
+            List<PaymentResult> results = e.getValue();
+            Set<String> ids = new HashSet<>();
+            boolean ordered = true;
+            for (int i = 0; i < results.size(); i++) {
+                ids.add(results.get(i).getTransactionId());
+                ordered &= results.get(i).getReference().equals(job.get(e.getKey()).get(i).getReference());
+            }
+            String gateway = e.getKey().processor().getGatewayName();
+            System.out.printf("  %-14s %,d results, %,d distinct IDs, in order: %s, last: %s%n", gateway,
+                    results.size(), ids.size(), ordered, results.get(results.size() - 1).getTransactionId());
+            t3 &= results.size() == 5_000 && ids.size() == 5_000 && ordered;
+        }
+        System.out.println("Test 3 " + (t3 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 4: 30,000 payments — one charge() each vs batched ═");
+        int perGateway = 10_000;
+        long[] nanos = new long[2];
+        long settledOk = 0;
+        System.setOut(quiet);                                   // both paths still format their log lines
+        for (int round = 0; round < 4; round++) {               // rounds 0-1 warm up
+            PaymentService[] services = { new StripePaymentService(), new PayPalPaymentService(), new BankTransferPaymentService() };
+            Map<PaymentService, List<PaymentRequest>> batch = new LinkedHashMap<>();
+            for (PaymentService service : services) {
+                batch.put(service, requests("r", perGateway, 30.0, "USD"));
+            }
+            long start = System.nanoTime();
+            for (PaymentService service : services) {
+                for (PaymentRequest request : batch.get(service)) {
+                    service.charge(request.getAmount(), request.getCurrency());
+                }
+            }
+            long mid = System.nanoTime();
+            Map<PaymentService, List<PaymentResult>> results = new SettlementJob().settle(batch);
+            long end = System.nanoTime();
+            if (round >= 2) {
+                nanos[0] += mid - start;
+                nanos[1] += end - mid;
+                for (List<PaymentResult> gateway : results.values()) {
+                    settledOk += gateway.stream().filter(PaymentResult::succeeded).count();
+                }
+            }
+        }
+        System.setOut(console);
+        long payments = 2L * 3 * perGateway;
+        System.out.printf("%-22s %,12.0f payments/s%n", "one charge() each", payments / (nanos[0] / 1e9));
+        System.out.printf("%-22s %,12.0f payments/s%n", "batched settlement", payments / (nanos[1] / 1e9));
+        System.out.println("(" + Runtime.getRuntime().availableProcessors() + " core(s) available; "
+                + "rates are informational — PaymentBatchBenchmark measures them)");
+        System.out.printf("batched payments settled: %,d of %,d%n", settledOk, payments);
+        System.out.println("Test 4 " + (settledOk == payments ? "PASSED" : "FAILED") + " — every batched payment settled");
+    }
+}
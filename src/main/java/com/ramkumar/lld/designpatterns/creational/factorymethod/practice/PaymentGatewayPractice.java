@@ -1,7 +1,9 @@
 package com.ramkumar.lld.designpatterns.creational.factorymethod.practice;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Practice Exercise — Factory Method Pattern (Creational)
@@ -102,6 +104,28 @@ import java.util.Set;
  *   BankTransferPaymentService extends PaymentService
  *     - createProcessor() → return new BankTransferProcessor()
  *
+ * ── PROCESSOR LIFECYCLE ─────────────────────────────────────────────────
+ *
+ *   charge(), refundTransaction() and calculateFee() used to call
+ *   createProcessor() every time: a new processor per call, and since the
+ *   counter restarted at 0 every charge got the same "...-00001" ID.
+ *
+ *   PaymentService now calls createProcessor() once, on first use, and
+ *   shares that processor across calls and threads. Processors are
+ *   thread-safe: the counter is an AtomicInteger and everything else is
+ *   immutable. createProcessor() itself still returns a fresh instance.
+ *
+ * ── BATCH API ───────────────────────────────────────────────────────────
+ *
+ *   List<PaymentResult> processBatch(List<PaymentRequest> requests)
+ *     - One result per request, in order: a tx ID or the validation error.
+ *       A bad item fails alone; the rest of the batch still goes through.
+ *     - IDs for the whole batch are reserved with one counter update.
+ *     - maxBatchSize(): Stripe 100, PayPal 250, Bank Transfer 1,000.
+ *
+ *   PaymentService.chargeBatch(requests) chunks by maxBatchSize() and
+ *   prints one line per chunk instead of one per payment.
+ *
  * ── DESIGN CONSTRAINTS ──────────────────────────────────────────────────
  *   1. No if/switch on payment type anywhere in PaymentService.
  *   2. PaymentService.charge(), refundTransaction(), and calculateFee()
@@ -110,7 +134,8 @@ import java.util.Set;
  *      PaymentProcessor interface.
  *   3. createProcessor() must NOT be static.
  *   4. Each PaymentProcessor instance has its own transactionCounter
- *      (instance field, NOT static).
+ *      (instance field, NOT static; an AtomicInteger so IDs stay unique
+ *      under concurrent charges).
  *
  * ═══════════════════════════════════════════════════════════════════════
  * DO NOT MODIFY the main() method — fill in the TODOs to make tests pass
@@ -130,6 +155,146 @@ public class PaymentGatewayPractice {
         void refund(String transactionId, double amount);
         String getGatewayName();
         double getTransactionFee(double amount);
+
+        // ── Batch API ──
+        /** Largest list processBatch() accepts for this gateway. */
+        int maxBatchSize();
+
+        /**
+         * Charges every request in one call; one result per request, in order.
+         * An invalid item fails on its own and does not stop the batch.
+         * Throws IllegalArgumentException if the list exceeds maxBatchSize().
+         */
+        List<PaymentResult> processBatch(List<PaymentRequest> requests);
+
+        /** The fee formula as data, so fees can be quoted in bulk without a processor call per amount. */
+        FeeSchedule feeSchedule();
+    }
+
+    // Every gateway's fee is rate × amount + flat, for amounts ≥ minimumAmount.
+    // The one definition of a gateway's fee and minimum: getTransactionFee(),
+    // validate() and FeeQuoteService all read it.
+    static final class FeeSchedule {
+        private final double rate;
+        private final double flat;
+        private final double minimumAmount;
+
+        FeeSchedule(double rate, double flat, double minimumAmount) {
+            this.rate          = rate;
+            this.flat          = flat;
+            this.minimumAmount = minimumAmount;
+        }
+
+        public double getRate()          { return rate; }
+        public double getFlat()          { return flat; }
+        public double getMinimumAmount() { return minimumAmount; }
+
+        /** True if the gateway takes {@code amount}: positive and not below the minimum. */
+        public boolean accepts(double amount) { return amount > 0 && amount >= minimumAmount; }
+
+        public double feeFor(double amount)   { return amount * rate + flat; }
+    }
+
+    // One item of a batch; reference is the caller's key (order ID, invoice…)
+    static final class PaymentRequest {
+        private final String reference;
+        private final double amount;
+        private final String currency;
+
+        PaymentRequest(String reference, double amount, String currency) {
+            this.reference = reference;
+            this.amount    = amount;
+            this.currency  = currency;
+        }
+
+        public String getReference() { return reference; }
+        public double getAmount()    { return amount; }
+        public String getCurrency()  { return currency; }
+    }
+
+    // Outcome of one batch item: a transaction ID, or the validation error
+    static final class PaymentResult {
+        private final String reference;
+        private final String transactionId;
+        private final String error;
+
+        private PaymentResult(String reference, String transactionId, String error) {
+            this.reference     = reference;
+            this.transactionId = transactionId;
+            this.error         = error;
+        }
+
+        static PaymentResult success(String reference, String transactionId) {
+            return new PaymentResult(reference, transactionId, null);
+        }
+
+        static PaymentResult failure(String reference, String error) {
+            return new PaymentResult(reference, null, error);
+        }
+
+        public boolean succeeded()        { return transactionId != null; }
+        public String  getReference()     { return reference; }
+        public String  getTransactionId() { return transactionId; }
+        public String  getError()         { return error; }
+
+        @Override
+        public String toString() {
+            return succeeded() ? reference + " → " + transactionId : reference + " ✗ " + error;
+        }
+    }
+
+    // A processor's per-item checks; throws IllegalArgumentException
+    @FunctionalInterface
+    interface PaymentValidator {
+        void validate(double amount, String currency);
+    }
+
+    // Shared by the three processors: validate every item, then reserve one
+    // block of IDs with a single getAndAdd instead of one increment per payment
+    static List<PaymentResult> processBatch(String prefix, AtomicInteger counter, int maxBatchSize,
+                                            List<PaymentRequest> requests, PaymentValidator validator) {
+        if (requests == null) {
+            throw new IllegalArgumentException("requests must not be null");
+        }
+        if (requests.size() > maxBatchSize) {
+            throw new IllegalArgumentException("batch of " + requests.size() + " exceeds max " + maxBatchSize);
+        }
+        String[] errors = new String[requests.size()];
+        int valid = 0;
+        for (int i = 0; i < errors.length; i++) {
+            PaymentRequest request = requests.get(i);
+            try {
+                if (request == null) {
+                    throw new IllegalArgumentException("request must not be null");
+                }
+                validator.validate(request.getAmount(), request.getCurrency());
+                valid++;
+            } catch (IllegalArgumentException e) {
+                errors[i] = e.getMessage();
+            }
+        }
+        int next = counter.getAndAdd(valid);
+        List<PaymentResult> results = new ArrayList<>(errors.length);
+        for (int i = 0; i < errors.length; i++) {
+            PaymentRequest request = requests.get(i);
+            String reference = request == null ? null : request.getReference();
+            results.add(errors[i] == null
+                    ? PaymentResult.success(reference, formatTransactionId(prefix, ++next))
+                    : PaymentResult.failure(reference, errors[i]));
+        }
+        return results;
+    }
+
+    // Same output as String.format("<prefix>-%05d", n) for n >= 0, without
+    // parsing a format pattern on every charge
+    static String formatTransactionId(String prefix, int n) {
+        String digits = Integer.toString(n);
+        StringBuilder sb = new StringBuilder(prefix.length() + 1 + Math.max(5, digits.length()));
+        sb.append(prefix).append('-');
+        for (int i = digits.length(); i < 5; i++) {
+            sb.append('0');
+        }
+        return sb.append(digits).toString();
     }
 
 
@@ -143,10 +308,11 @@ public class PaymentGatewayPractice {
     //            TX ID:      String.format("STRIPE-%05d", ++transactionCounter)
     // =========================================================================
     static class StripeProcessor implements PaymentProcessor {
-        private int transactionCounter;
-        private Set<String> supportedCurrencies;
+        private static final FeeSchedule FEES = new FeeSchedule(0.029, 0.30, 0);
+        private final AtomicInteger transactionCounter;
+        private final Set<String> supportedCurrencies;
         public StripeProcessor(){
-            this.transactionCounter = 0;
+            this.transactionCounter = new AtomicInteger();
             this.supportedCurrencies = Set.of("USD", "EUR", "GBP");
         }
 
@@ -166,7 +332,7 @@ public class PaymentGatewayPractice {
             if(amount <= 0){
                 throw new IllegalArgumentException("Amount has to be > 0");
             }
-            return (amount * 0.029)  + 0.30;
+            return FEES.feeFor(amount);
         }
 
         @Override
@@ -176,6 +342,26 @@ public class PaymentGatewayPractice {
 
         @Override
         public String processPayment(double amount, String currency) {
+            validate(amount, currency);
+            return formatTransactionId("STRIPE", transactionCounter.incrementAndGet());
+        }
+
+        @Override
+        public int maxBatchSize() {
+            return 100;
+        }
+
+        @Override
+        public List<PaymentResult> processBatch(List<PaymentRequest> requests) {
+            return PaymentGatewayPractice.processBatch("STRIPE", transactionCounter, maxBatchSize(), requests, this::validate);
+        }
+
+        @Override
+        public FeeSchedule feeSchedule() {
+            return FEES;
+        }
+
+        private void validate(double amount, String currency) {
             if(amount <= 0){
                 throw new IllegalArgumentException("Amount has to > 0");
             }
@@ -185,7 +371,6 @@ public class PaymentGatewayPractice {
             if(!supportedCurrencies.contains(currency)){
                 throw new IllegalArgumentException("One of USD, EUR, GBP is supported!!");
             }
-            return String.format("STRIPE-%05d", ++transactionCounter);
         }
     }
 
@@ -199,10 +384,11 @@ public class PaymentGatewayPractice {
     //            TX ID:      String.format("PAYPAL-%05d", ++transactionCounter)
     // =========================================================================
     static class PayPalProcessor implements PaymentProcessor {
-        private int transactionCounter;
+        private static final FeeSchedule FEES = new FeeSchedule(0.0349, 0.49, 0);
+        private final AtomicInteger transactionCounter;
 
         public PayPalProcessor(){
-            this.transactionCounter = 0;
+            this.transactionCounter = new AtomicInteger();
         }
 
         @Override
@@ -226,18 +412,37 @@ public class PaymentGatewayPractice {
             if(amount <= 0){
                 throw new IllegalArgumentException("Amount has to be > 0");
             }
-            return (amount * 0.0349)  + 0.49;
+            return FEES.feeFor(amount);
         }
 
         @Override
         public String processPayment(double amount, String currency) {
+            validate(amount, currency);
+            return formatTransactionId("PAYPAL", transactionCounter.incrementAndGet());
+        }
+
+        @Override
+        public int maxBatchSize() {
+            return 250;
+        }
+
+        @Override
+        public List<PaymentResult> processBatch(List<PaymentRequest> requests) {
+            return PaymentGatewayPractice.processBatch("PAYPAL", transactionCounter, maxBatchSize(), requests, this::validate);
+        }
+
+        @Override
+        public FeeSchedule feeSchedule() {
+            return FEES;
+        }
+
+        private void validate(double amount, String currency) {
             if(amount <= 0){
                 throw new IllegalArgumentException("Amount has to > 0");
             }
             if(currency == null || currency.isBlank()){
                 throw new IllegalArgumentException("Currency cannot be null or blank!!");
             }
-            return String.format("PAYPAL-%05d", ++transactionCounter);
         }
     }
 
@@ -252,10 +457,11 @@ public class PaymentGatewayPractice {
     //            TX ID:      String.format("BANK-%05d", ++transactionCounter)
     // =========================================================================
     static class BankTransferProcessor implements PaymentProcessor {
-        private int transactionCounter;
-        private Set<String> supportedCurrencies;
+        private static final FeeSchedule FEES = new FeeSchedule(0, 1.50, 10.0);
+        private final AtomicInteger transactionCounter;
+        private final Set<String> supportedCurrencies;
         public BankTransferProcessor(){
-            this.transactionCounter = 0;
+            this.transactionCounter = new AtomicInteger();
             this.supportedCurrencies = Set.of("USD");
         }
 
@@ -272,10 +478,8 @@ public class PaymentGatewayPractice {
 
         @Override
         public double getTransactionFee(double amount){
-            if(amount < 10){
-                throw new IllegalArgumentException("Amount has to be > 0");
-            }
-            return 1.50;
+            checkAmount(amount);
+            return FEES.feeFor(amount);
         }
 
         @Override
@@ -285,16 +489,44 @@ public class PaymentGatewayPractice {
 
         @Override
         public String processPayment(double amount, String currency) {
-            if(amount <= 10){
-                throw new IllegalArgumentException("Amount has to > 10");
+            validate(amount, currency);
+            return formatTransactionId("BANK", transactionCounter.incrementAndGet());
+        }
+
+        // Bank transfers settle as one file per run, so batches are large
+        @Override
+        public int maxBatchSize() {
+            return 1_000;
+        }
+
+        @Override
+        public List<PaymentResult> processBatch(List<PaymentRequest> requests) {
+            return PaymentGatewayPractice.processBatch("BANK", transactionCounter, maxBatchSize(), requests, this::validate);
+        }
+
+        @Override
+        public FeeSchedule feeSchedule() {
+            return FEES;
+        }
+
+        // The generic > 0 check first, then the $10.00 minimum (exactly $10.00 is accepted)
+        private static void checkAmount(double amount) {
+            if(amount <= 0){
+                throw new IllegalArgumentException("Amount has to > 0");
+            }
+            if(!FEES.accepts(amount)){
+                throw new IllegalArgumentException("Bank Transfer minimum is $10.00");
             }
+        }
+
+        private void validate(double amount, String currency) {
+            checkAmount(amount);
             if(currency == null || currency.isBlank()){
                 throw new IllegalArgumentException("Currency cannot be null or blank!!");
             }
             if(!supportedCurrencies.contains(currency)){
                 throw new IllegalArgumentException("One of USD, EUR, GBP is supported!!");
             }
-            return String.format("BANK-%05d", ++transactionCounter);
         }
 
     }
@@ -308,11 +540,28 @@ public class PaymentGatewayPractice {
     static abstract class PaymentService {
         abstract PaymentProcessor createProcessor();
 
+        // Created on first use, then shared by every call on this service
+        private volatile PaymentProcessor processor;
+
+        // Double-checked locking: after the first call this is one volatile read
+        final PaymentProcessor processor() {
+            PaymentProcessor p = processor;
+            if (p == null) {
+                synchronized (this) {
+                    p = processor;
+                    if (p == null) {
+                        processor = p = createProcessor();
+                    }
+                }
+            }
+            return p;
+        }
+
 
         // =========================================================================
         // ── TODO 6: In PaymentService — implement String charge(double amount, String currency)
         //            - Validate amount > 0
-        //            - Call createProcessor() to get the gateway
+        //            - Call processor() to get the (shared) gateway
         //            - Call processor.processPayment(amount, currency)
         //            - Print: "[PaymentService] Transaction complete: <txId>"
         //            - Return txId
@@ -321,7 +570,7 @@ public class PaymentGatewayPractice {
             if (amount <= 0) {
                 throw new IllegalArgumentException("Amount has to be > 0");
             }
-            PaymentProcessor paymentProcessor = createProcessor();
+            PaymentProcessor paymentProcessor = processor();
             String transactionId = paymentProcessor.processPayment(amount, currency);
             System.out.println("[PaymentService] Transaction complete: " + transactionId);
             return transactionId;
@@ -330,7 +579,7 @@ public class PaymentGatewayPractice {
         // =========================================================================
         // ── TODO 7: In PaymentService — implement void refundTransaction(String txId, double amount)
         //            - Validate txId not null/blank
-        //            - Call createProcessor() and then processor.refund(txId, amount)
+        //            - Call processor() and then processor.refund(txId, amount)
         // =========================================================================
         public void refundTransaction(String txId, double amount) {
             if (amount <= 0) {
@@ -340,14 +589,14 @@ public class PaymentGatewayPractice {
                 throw new IllegalArgumentException("TxId cannot be null or blank");
             }
 
-            PaymentProcessor paymentProcessor = createProcessor();
+            PaymentProcessor paymentProcessor = processor();
             paymentProcessor.refund(txId, amount);
         }
 
         // =========================================================================
         // ── TODO 8: In PaymentService — implement double calculateFee(double amount)
         //            - Validate amount > 0
-        //            - Call createProcessor() and then processor.getTransactionFee(amount)
+        //            - Call processor() and then processor.getTransactionFee(amount)
         //            - Print: "[PaymentService] Fee for $<amount>: $<fee>"
         //            - Return the fee
         // =========================================================================
@@ -355,10 +604,31 @@ public class PaymentGatewayPractice {
             if (amount <= 0) {
                 throw new IllegalArgumentException("Amount has to be > 0");
             }
-            PaymentProcessor paymentProcessor = createProcessor();
-            System.out.printf("[PaymentService]  Fee for $%.2f: $%.2f\n", amount,
-                    paymentProcessor.getTransactionFee(amount));
-            return paymentProcessor.getTransactionFee(amount);
+            double fee = processor().getTransactionFee(amount);
+            System.out.printf("[PaymentService]  Fee for $%.2f: $%.2f\n", amount, fee);
+            return fee;
+        }
+
+        // Splits the requests into the gateway's batch size and submits each
+        // chunk in one processBatch() call; prints one line per chunk
+        public List<PaymentResult> chargeBatch(List<PaymentRequest> requests) {
+            if (requests == null) {
+                throw new IllegalArgumentException("requests must not be null");
+            }
+            PaymentProcessor paymentProcessor = processor();
+            int batchSize = paymentProcessor.maxBatchSize();
+            List<PaymentResult> results = new ArrayList<>(requests.size());
+            for (int from = 0; from < requests.size(); from += batchSize) {
+                List<PaymentResult> chunk = paymentProcessor.processBatch(
+                        requests.subList(from, Math.min(requests.size(), from + batchSize)));
+                int succeeded = 0;
+                for (PaymentResult result : chunk) {
+                    if (result.succeeded()) succeeded++;
+                }
+                System.out.printf("[PaymentService] Batch complete: %d/%d succeeded%n", succeeded, chunk.size());
+                results.addAll(chunk);
+            }
+            return results;
         }
     }
 
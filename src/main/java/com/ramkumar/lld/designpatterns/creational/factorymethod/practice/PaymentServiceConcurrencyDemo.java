@@ -0,0 +1,157 @@
+package com.ramkumar.lld.designpatterns.creational.factorymethod.practice;
+
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.PaymentProcessor;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.PaymentService;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.StripePaymentService;
+import com.ramkumar.lld.designpatterns.creational.factorymethod.practice.PaymentGatewayPractice.StripeProcessor;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scenario C — Shared Payment Processors Under Concurrent Charges
+ *
+ * PaymentService used to call createProcessor() on every charge, refund and
+ * fee quote. Each call paid for a new processor, and because the counter
+ * lived in that throw-away processor every charge was "STRIPE-00001".
+ *
+ * PaymentService.processor() now creates the processor once (double-checked
+ * locking) and every call shares it; the processors count with an
+ * AtomicInteger so concurrent charges still get distinct IDs, and format
+ * them without String.format. This demo checks both properties and compares
+ * the charge path's latency with the old create-per-call path.
+ *
+ * JMH version: PaymentChargePathBenchmark (src/jmh, ns per charge).
+ */
+public class PaymentServiceConcurrencyDemo {
+
+    // Counts factory-method calls so the demo can prove the processor is created once
+    static final class CountingStripeService extends StripePaymentService {
+        final AtomicInteger created = new AtomicInteger();
+
+        @Override
+        public PaymentProcessor createProcessor() {
+            created.incrementAndGet();
+            return super.createProcessor();
+        }
+    }
+
+    /** What charge() did before processors were shared. */
+    private static String chargePerCallProcessor(PaymentService service, double amount, String currency) {
+        PaymentProcessor processor = service.createProcessor();
+        String transactionId = processor.processPayment(amount, currency);
+        System.out.println("[PaymentService] Transaction complete: " + transactionId);
+        return transactionId;
+    }
+
+    /** Runs {@code perThread} charges on each of {@code threads} threads; returns every tx ID. */
+    private static List<String> chargeConcurrently(PaymentService service, int threads, int perThread)
+            throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    List<String> ids = new ArrayList<>(perThread);
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(service.charge(25.0, "USD"));
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+            List<String> all = new ArrayList<>(threads * perThread);
+            for (Future<List<String>> f : futures) {
+                all.addAll(f.get());
+            }
+            return all;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        PrintStream console = System.out;
+        PrintStream quiet   = new PrintStream(OutputStream.nullOutputStream());
+
+        System.out.println("═══ Test 1: One processor per service, sequential IDs ═══════");
+        CountingStripeService stripe = new CountingStripeService();
+        System.setOut(quiet);
+        String tx1 = stripe.charge(10.0, "USD");
+        String tx2 = stripe.charge(20.0, "EUR");
+        stripe.refundTransaction(tx1, 10.0);
+        stripe.calculateFee(100.0);
+        System.setOut(console);
+        boolean t1 = stripe.created.get() == 1 && stripe.processor() == stripe.processor()
+                  && stripe.processor() instanceof StripeProcessor
+                  && "STRIPE-00001".equals(tx1) && "STRIPE-00002".equals(tx2);
+        System.out.println("tx: " + tx1 + ", " + tx2 + "  processors created: " + stripe.created.get());
+        System.out.println("Test 1 " + (t1 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 2: Old create-per-call path repeats IDs ═════════════");
+        System.setOut(quiet);
+        Set<String> oldIds = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            oldIds.add(chargePerCallProcessor(stripe, 10.0, "USD"));
+        }
+        System.setOut(console);
+        System.out.println("1,000 charges → " + oldIds.size() + " distinct ID(s): " + oldIds);
+        System.out.println("Test 2 " + (oldIds.size() == 1 ? "PASSED" : "FAILED") + " — the bug the shared processor fixes");
+
+        System.out.println("\n═══ Test 3: 8 threads × 5,000 concurrent charges — IDs unique ═");
+        int threads = 8, perThread = 5_000;
+        CountingStripeService concurrent = new CountingStripeService();
+        System.setOut(quiet);
+        List<String> ids = chargeConcurrently(concurrent, threads, perThread);
+        System.setOut(console);
+        Set<String> distinct = ConcurrentHashMap.newKeySet();
+        distinct.addAll(ids);
+        boolean t3 = ids.size() == threads * perThread && distinct.size() == ids.size()
+                  && concurrent.created.get() == 1 && distinct.contains("STRIPE-40000");
+        System.out.println("charges: " + ids.size() + ", distinct IDs: " + distinct.size()
+                + ", processors created: " + concurrent.created.get());
+        System.out.println("Test 3 " + (t3 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 4: Charge path latency — shared vs create per call ═");
+        // processPayment() alone: charge()'s println costs ~2 µs and would hide the difference
+        CountingStripeService service = new CountingStripeService();
+        service.processor();
+        int createdBefore = service.created.get();
+        long[] nanos = new long[2];
+        int[] created = new int[2];
+        int n = 2_000_000, sink = 0;
+        for (int round = 0; round < 4; round++) {               // rounds 0-1 warm up
+            for (int mode = 0; mode < 2; mode++) {
+                int c0 = service.created.get();
+                long start = System.nanoTime();
+                for (int i = 0; i < n; i++) {
+                    PaymentProcessor p = mode == 0 ? service.processor() : service.createProcessor();
+                    sink += p.processPayment(25.0, "USD").length();
+                }
+                if (round >= 2) nanos[mode] += System.nanoTime() - start;
+                created[mode] += service.created.get() - c0;
+            }
+        }
+        System.out.printf("%-22s %6.1f ns/charge%n", "shared processor", nanos[0] / (2.0 * n));
+        System.out.printf("%-22s %6.1f ns/charge%n", "processor per call", nanos[1] / (2.0 * n));
+        System.out.printf("processors created: shared %,d, per call %,d (checksum %d)%n",
+                created[0], created[1], sink);
+        // Latency is informational (see PaymentChargePathBenchmark); the factory-call count decides
+        boolean t4 = createdBefore == 1 && created[0] == 0 && created[1] == 4 * n;
+        System.out.println("Test 4 " + (t4 ? "PASSED" : "FAILED")
+                + " — no processor construction on the charge path");
+    }
+}
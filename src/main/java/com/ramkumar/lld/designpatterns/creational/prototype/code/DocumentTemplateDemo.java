@@ -2,8 +2,11 @@ package com.ramkumar.lld.designpatterns.creational.prototype.code;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 
 /**
  * Scenario A — Document Template Cloning
@@ -30,8 +33,15 @@ public class DocumentTemplateDemo {
         // [Mutable fields] — can change after clone
         protected String       title;
         protected String       author;
-        // [Deep-copy field] — a List is mutable; MUST be deep-copied in every clone
-        protected List<String> sections;
+        // [Lazily copied field] — a List is mutable; a clone shares the source's
+        // list and copies it on its first structural change (add/remove).
+        // Private: a direct write would reach every clone sharing the list, so
+        // subclasses go through addSection/removeSection/setSection/getSections.
+        private   List<String> sections;
+        private   boolean      sectionsShared;
+        // [Per-instance overrides] — section index → replacement text, recorded
+        // while the list is shared; null until the first setSection()
+        private   Map<Integer, String> overrides;
 
         // [Normal constructor] — used to build the original template
         Document(String title, String author) {
@@ -45,8 +55,17 @@ public class DocumentTemplateDemo {
         protected Document(Document source) {
             this.title    = source.title;    // String — immutable, safe to share
             this.author   = source.author;   // String — immutable, safe to share
-            // [Deep copy] — new ArrayList so clone's list ≠ original's list
-            this.sections = new ArrayList<>(source.sections);
+            // [Lazy copy] — share the list; whichever side changes it first copies it
+            this.sections       = source.sections;
+            this.sectionsShared = true;
+            // Only a source's first clone writes to it; once marked, clone() only
+            // reads the source. The write is unsynchronised, so a template that
+            // several threads clone must be marked (cloned once) before it is
+            // published to them — MailMergePipeline keeps a clone for that reason.
+            if (!source.sectionsShared) {
+                source.sectionsShared = true;
+            }
+            this.overrides = source.overrides == null ? null : new HashMap<>(source.overrides);
         }
 
         // [Abstract clone()] — each ConcretePrototype provides its own implementation
@@ -56,19 +75,75 @@ public class DocumentTemplateDemo {
         public void addSection(String section) {
             if (section == null || section.isBlank())
                 throw new IllegalArgumentException("section must not be blank");
+            materializeSections();
             sections.add(section);
         }
 
         public void removeSection(String section) {
-            if (!sections.remove(section))
+            int index = getSections().indexOf(section);
+            if (index < 0)
                 throw new NoSuchElementException("section not found: " + section);
+            materializeSections();
+            sections.remove(index);
+        }
+
+        // [Override] — replaces one section's text; on a shared list only the
+        // override is stored, so a mail-merge letter never copies the template
+        public void setSection(int index, String section) {
+            if (section == null || section.isBlank())
+                throw new IllegalArgumentException("section must not be blank");
+            Objects.checkIndex(index, sections.size());
+            if (sectionsShared) {
+                if (overrides == null) overrides = new HashMap<>(4);
+                overrides.put(index, section);
+            } else {
+                sections.set(index, section);
+            }
+        }
+
+        // [Indexed read] — lets renderers walk the sections without building a list
+        public int sectionCount() { return sections.size(); }
+
+        public String section(int index) {
+            if (overrides != null) {
+                String override = overrides.get(index);
+                if (override != null) return override;
+            }
+            return sections.get(index);
+        }
+
+        public boolean sectionOverridden(int index) {
+            return overrides != null && overrides.containsKey(index);
         }
 
         // [Encapsulation] — returns unmodifiable view; caller cannot mutate internal list
         public List<String> getSections() {
-            return Collections.unmodifiableList(sections);
+            if (overrides == null) return Collections.unmodifiableList(sections);
+            List<String> merged = new ArrayList<>(sections.size());
+            for (int i = 0; i < sections.size(); i++) merged.add(section(i));
+            return Collections.unmodifiableList(merged);
+        }
+
+        // [Copy on write] — takes a private copy (overrides applied) if the list is shared.
+        // Package-private so demos can compare against the old eager copy.
+        void materializeSections() {
+            if (!sectionsShared) return;
+            List<String> own = new ArrayList<>(sections);
+            if (overrides != null) {
+                overrides.forEach(own::set);
+                overrides = null;
+            }
+            sections       = own;
+            sectionsShared = false;
         }
 
+        boolean sharesSectionsWith(Document other) { return sections == other.sections; }
+
+        // [Render hooks] — the subclass-specific header line, e.g. "To: Bob"
+        abstract String kind();
+        abstract String detailLabel();
+        abstract String detailValue();
+
         public String getTitle()  { return title; }
         public String getAuthor() { return author; }
         public void setTitle(String title)   { this.title  = title; }
@@ -90,7 +165,7 @@ public class DocumentTemplateDemo {
 
         // [Copy constructor] — calls super copy constructor, then copies own fields
         private Resume(Resume source) {
-            super(source);                     // copies title, author, sections (deep)
+            super(source);                     // copies title, author; shares sections until written
             this.targetRole = source.targetRole; // String — immutable, safe
         }
 
@@ -103,10 +178,14 @@ public class DocumentTemplateDemo {
         public String getTargetRole() { return targetRole; }
         public void setTargetRole(String r) { this.targetRole = r; }
 
+        @Override String kind()        { return "Resume"; }
+        @Override String detailLabel() { return "Role"; }
+        @Override String detailValue() { return targetRole; }
+
         @Override
         public String toString() {
             return String.format("Resume{title='%s', author='%s', role='%s', sections=%s}",
-                title, author, targetRole, sections);
+                title, author, targetRole, getSections());
         }
     }
 
@@ -130,10 +209,14 @@ public class DocumentTemplateDemo {
         public String getDepartment() { return department; }
         public void setDepartment(String d) { this.department = d; }
 
+        @Override String kind()        { return "Report"; }
+        @Override String detailLabel() { return "Department"; }
+        @Override String detailValue() { return department; }
+
         @Override
         public String toString() {
             return String.format("Report{title='%s', author='%s', dept='%s', sections=%s}",
-                title, author, department, sections);
+                title, author, department, getSections());
         }
     }
 
@@ -157,10 +240,14 @@ public class DocumentTemplateDemo {
         public String getRecipient() { return recipient; }
         public void setRecipient(String r) { this.recipient = r; }
 
+        @Override String kind()        { return "Letter"; }
+        @Override String detailLabel() { return "To"; }
+        @Override String detailValue() { return recipient; }
+
         @Override
         public String toString() {
             return String.format("Letter{title='%s', author='%s', recipient='%s', sections=%s}",
-                title, author, recipient, sections);
+                title, author, recipient, getSections());
         }
     }
 
@@ -232,7 +319,7 @@ public class DocumentTemplateDemo {
 
         System.out.println("\n── Prototype Summary ─────────────────────────────────────────");
         System.out.println("  Template built once; all variants cloned from it");
-        System.out.println("  Deep copy: clone.sections ≠ original.sections (different ArrayList)");
+        System.out.println("  Lazy copy: clone shares sections until its first add/remove, then copies");
         System.out.println("  Covariant return: clone() returns Resume/Report/Letter, not Document");
         System.out.println("  No Cloneable: copy constructor is the Java-idiomatic approach");
     }
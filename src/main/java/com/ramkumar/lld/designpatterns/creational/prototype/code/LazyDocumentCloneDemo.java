@@ -0,0 +1,306 @@
+package com.ramkumar.lld.designpatterns.creational.prototype.code;
+
+import com.ramkumar.lld.designpatterns.creational.prototype.code.DocumentTemplateDemo.Document;
+import com.ramkumar.lld.designpatterns.creational.prototype.code.DocumentTemplateDemo.Letter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Scenario E — Lazy Clones and Streaming Rendering for Mail Merge
+ *
+ * A mail-merge run clones one Letter template per recipient — a million
+ * letters, each differing from the template in a header field and perhaps
+ * one paragraph. Two costs used to dominate:
+ *
+ *   1. clone() copied the sections list, although almost no letter changes
+ *      the template's structure.
+ *   2. Rendering went through toString()/String.format: the whole letter as
+ *      one String, then again as a byte[], before anything was written.
+ *
+ * Document now shares the template's list on clone. setSection(i, text)
+ * records a per-instance override instead of copying; only add/remove take a
+ * private copy (with the overrides applied). DocumentRenderer encodes a
+ * document piece by piece into one reused buffer and drains it to a
+ * WritableByteChannel whenever it fills, so no full String or byte[] of the
+ * document is ever built. Because clones share the template's section
+ * Strings, the renderer encodes each one once and afterwards only copies its
+ * bytes; just the per-letter values are encoded on every render.
+ *
+ * A DocumentRenderer is single-threaded: give each writer thread its own.
+ */
+public class LazyDocumentCloneDemo {
+
+    // =========================================================================
+    // DocumentRenderer — streams a document to a channel through a fixed buffer
+    // =========================================================================
+
+    static final class DocumentRenderer {
+
+        private static final int MAX_CACHED = 1_024;
+
+        private final WritableByteChannel out;
+        private final ByteBuffer          buffer;
+        private final CharsetEncoder      encoder = StandardCharsets.UTF_8.newEncoder();
+        // Template text is shared by reference across clones, so it is encoded
+        // once per String instance and then bulk-copied on every render
+        private final Map<String, byte[]> encoded = new IdentityHashMap<>();
+        private long written;
+
+        DocumentRenderer(WritableByteChannel out, int bufferSize) {
+            if (out == null) {
+                throw new IllegalArgumentException("out must not be null");
+            }
+            if (bufferSize < 16) {
+                throw new IllegalArgumentException("bufferSize must be >= 16");
+            }
+            this.out    = out;
+            this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        /**
+         * Appends one document. Bytes reach the channel when the buffer fills
+         * or on flush(), so a document may be split across several writes.
+         */
+        void render(Document doc) throws IOException {
+            putShared(doc.kind()).put(": ").putShared(doc.getTitle()).newLine();
+            put("From: ").putShared(doc.getAuthor()).newLine();
+            putShared(doc.detailLabel()).put(": ").put(doc.detailValue()).newLine();
+            for (int i = 0, n = doc.sectionCount(); i < n; i++) {
+                newLine();
+                if (doc.sectionOverridden(i)) {
+                    put(doc.section(i));
+                } else {
+                    putShared(doc.section(i));
+                }
+                newLine();
+            }
+            newLine();
+        }
+
+        /** Writes out everything buffered so far. */
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += out.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        long bytesWritten() { return written; }
+
+        private DocumentRenderer newLine() throws IOException {
+            if (!buffer.hasRemaining()) flush();
+            buffer.put((byte) '\n');
+            return this;
+        }
+
+        // For strings that recur across documents. Per-document values (recipient,
+        // overrides) go through put() so they never fill the cache.
+        private DocumentRenderer putShared(String text) throws IOException {
+            if (text == null) return put(null);
+            byte[] bytes = encoded.get(text);
+            if (bytes == null) {
+                if (encoded.size() >= MAX_CACHED) return put(text);
+                bytes = text.getBytes(StandardCharsets.UTF_8);
+                encoded.put(text, bytes);
+            }
+            for (int offset = 0; offset < bytes.length; ) {
+                if (!buffer.hasRemaining()) flush();
+                int n = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, n);
+                offset += n;
+            }
+            return this;
+        }
+
+        // ASCII goes straight into the buffer; the first non-ASCII char hands
+        // the rest of the string to the UTF-8 encoder
+        private DocumentRenderer put(String text) throws IOException {
+            if (text == null) text = "null";
+            for (int i = 0, n = text.length(); i < n; i++) {
+                char c = text.charAt(i);
+                if (c >= 0x80) {
+                    encode(CharBuffer.wrap(text, i, n));
+                    return this;
+                }
+                if (!buffer.hasRemaining()) flush();
+                buffer.put((byte) c);
+            }
+            return this;
+        }
+
+        private void encode(CharBuffer chars) throws IOException {
+            encoder.reset();
+            CoderResult result;
+            while ((result = encoder.encode(chars, buffer, true)).isOverflow()) {
+                flush();
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+            while (encoder.flush(buffer).isOverflow()) {
+                flush();
+            }
+        }
+    }
+
+    // =========================================================================
+    // Helpers
+    // =========================================================================
+
+    /** The old path: the whole document as one String, like toString() did. */
+    static String renderToString(Document doc) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(doc.kind()).append(": ").append(doc.getTitle()).append('\n');
+        sb.append("From: ").append(doc.getAuthor()).append('\n');
+        sb.append(doc.detailLabel()).append(": ").append(doc.detailValue()).append('\n');
+        for (String section : doc.getSections()) {
+            sb.append('\n').append(section).append('\n');
+        }
+        return sb.append('\n').toString();
+    }
+
+    /** A six-paragraph offer letter; paragraph 0 is the greeting. */
+    static Letter letterTemplate() {
+        Letter template = new Letter("Offer of Employment", "Human Resources", "{recipient}");
+        template.addSection("Dear candidate,");
+        template.addSection("We are delighted to offer you the position of Software Engineer at Acme Corp. "
+                + "This letter sets out the main terms of your employment with us.");
+        template.addSection("Your start date will be the first Monday of next month. Your annual salary, "
+                + "benefits and leave entitlement are described in the enclosed schedule.");
+        template.addSection("This offer is conditional on satisfactory references and proof of your "
+                + "right to work. Please bring the originals on your first day.");
+        template.addSection("To accept, sign and return a copy of this letter within ten working days. "
+                + "If you have any questions, your recruiter will be happy to help.");
+        template.addSection("We look forward to welcoming you to the team.\nKind regards,\nHuman Resources");
+        return template;
+    }
+
+    /** Channel that counts and discards — isolates clone + render cost from I/O. */
+    private static final class NullChannel implements WritableByteChannel {
+        long bytes;
+        @Override public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            bytes += n;
+            return n;
+        }
+        @Override public boolean isOpen() { return true; }
+        @Override public void close() { }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    // Returns { nanos, allocated bytes, output bytes } for one mail-merge run
+    private static long[] mailMerge(Letter template, int letters, boolean lazy) throws IOException {
+        NullChannel sink = new NullChannel();
+        DocumentRenderer renderer = new DocumentRenderer(sink, 64 * 1024);
+        long alloc0 = allocatedBytes();
+        long start  = System.nanoTime();
+        for (int i = 0; i < letters; i++) {
+            Letter letter = template.clone();
+            String name = "Recipient " + i;
+            letter.setRecipient(name);
+            if (lazy) {
+                letter.setSection(0, "Dear " + name + ",");
+                renderer.render(letter);
+            } else {
+                letter.materializeSections();             // what every clone used to do
+                letter.setSection(0, "Dear " + name + ",");
+                byte[] bytes = renderToString(letter).getBytes(StandardCharsets.UTF_8);
+                sink.write(ByteBuffer.wrap(bytes));
+            }
+        }
+        renderer.flush();
+        return new long[] { System.nanoTime() - start, allocatedBytes() - alloc0, sink.bytes };
+    }
+
+    // =========================================================================
+    // Main
+    // =========================================================================
+
+    public static void main(String[] args) throws IOException {
+
+        Letter template = letterTemplate();
+
+        System.out.println("═══ Test 1: A fresh clone shares the template's sections ═══");
+        Letter a = template.clone();
+        boolean t1 = a.sharesSectionsWith(template) && a.getSections().equals(template.getSections());
+        System.out.println("shares: " + a.sharesSectionsWith(template) + ", sections: " + a.sectionCount());
+        System.out.println("Test 1 " + (t1 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 2: setSection records an override, list stays shared ═");
+        a.setRecipient("Bob");
+        a.setSection(0, "Dear Bob,");
+        boolean t2 = a.sharesSectionsWith(template)
+                  && "Dear Bob,".equals(a.section(0)) && "Dear Bob,".equals(a.getSections().get(0))
+                  && "Dear candidate,".equals(template.section(0));
+        System.out.println("clone: " + a.section(0) + "  template: " + template.section(0));
+        System.out.println("Test 2 " + (t2 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 3: add/remove copies the list with overrides applied ═");
+        a.addSection("P.S. Parking is free for new starters.");
+        Letter b = template.clone();
+        template.removeSection("We look forward to welcoming you to the team.\nKind regards,\nHuman Resources");
+        boolean t3 = !a.sharesSectionsWith(template) && a.sectionCount() == 7
+                  && "Dear Bob,".equals(a.section(0))
+                  && template.sectionCount() == 5 && b.sectionCount() == 6
+                  && !b.sharesSectionsWith(template);
+        System.out.println("clone: " + a.sectionCount() + " sections, template: " + template.sectionCount()
+                + ", earlier clone b: " + b.sectionCount());
+        boolean rejected = false;
+        try {
+            b.setSection(6, "out of range");
+        } catch (IndexOutOfBoundsException e) {
+            rejected = true;
+            System.out.println("Caught IOOBE: " + e.getMessage());
+        }
+        System.out.println("Test 3 " + (t3 && rejected ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 4: Streamed output matches the String render ═══════");
+        Letter zoe = letterTemplate().clone();
+        zoe.setRecipient("Zoë Ångström");
+        zoe.setSection(0, "Dear Zoë — welcome aboard,");
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        DocumentRenderer tiny = new DocumentRenderer(Channels.newChannel(captured), 16);   // forces many drains
+        tiny.render(zoe);
+        tiny.render(b);
+        tiny.flush();
+        String expected = renderToString(zoe) + renderToString(b);
+        boolean t4 = captured.toString(StandardCharsets.UTF_8).equals(expected)
+                  && tiny.bytesWritten() == expected.getBytes(StandardCharsets.UTF_8).length;
+        System.out.print(captured.toString(StandardCharsets.UTF_8).lines().limit(4)
+                .reduce("", (acc, line) -> acc + "  | " + line + "\n"));
+        System.out.println("bytes: " + tiny.bytesWritten());
+        System.out.println("Test 4 " + (t4 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 5: 1,000,000 letters — eager copy + String vs lazy + stream ═");
+        Letter merge = letterTemplate();
+        int letters = 1_000_000;
+        for (int warm = 0; warm < 3; warm++) {
+            mailMerge(merge, 100_000, false);
+            mailMerge(merge, 100_000, true);
+        }
+        long[] eager = mailMerge(merge, letters, false);
+        long[] lazy  = mailMerge(merge, letters, true);
+        System.out.printf("%-22s %14s %14s%n", "mode", "letters/s", "alloc B/letter");
+        System.out.printf("%-22s %,14.0f %,14d%n", "eager copy + String", letters / (eager[0] / 1e9), eager[1] / letters);
+        System.out.printf("%-22s %,14.0f %,14d%n", "lazy clone + stream",  letters / (lazy[0] / 1e9),  lazy[1] / letters);
+        System.out.printf("output: %,d MB each%n", lazy[2] >> 20);
+        boolean t5 = eager[2] == lazy[2] && lazy[1] < eager[1];
+        System.out.println("Test 5 " + (t5 ? "PASSED" : "FAILED") + " — same bytes out, less garbage per letter");
+    }
+}
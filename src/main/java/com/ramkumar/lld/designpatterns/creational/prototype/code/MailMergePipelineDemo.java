@@ -0,0 +1,478 @@
+package com.ramkumar.lld.designpatterns.creational.prototype.code;
+
+import com.ramkumar.lld.designpatterns.creational.prototype.code.DocumentTemplateDemo.Letter;
+import com.ramkumar.lld.designpatterns.creational.prototype.code.LazyDocumentCloneDemo.DocumentRenderer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Scenario F — Batch Mail-Merge Pipeline
+ *
+ * Turns a CSV of recipients into personalised Letters cloned from one
+ * template:
+ *
+ *   reader thread ──► bounded queue of row batches ──► N worker threads
+ *   (parses CSV         (capacity × batchSize rows      (clone, set recipient,
+ *    line by line)       in memory at most)              render to own shard)
+ *
+ *   - The CSV is read incrementally; when the queue is full the reader blocks,
+ *     so a 10 GB input needs no more memory than a 10 KB one.
+ *   - Rows travel in batches so workers touch the queue once per batch, not
+ *     once per row.
+ *   - Each worker owns a DocumentRenderer and an output shard (shard k of N).
+ *     Letters never interleave and no ordering step is needed; shard files are
+ *     concatenated afterwards if a single file is wanted.
+ *   - Clones share the template's sections (Scenario E), so a letter costs a
+ *     header object and one greeting override.
+ *
+ * CSV: a header row, then "name[,greeting]" — fields may be double-quoted
+ * ("Smith, Jane"). Rows with a blank name or an unterminated quote are
+ * counted as rejected and skipped so one bad row does not stop a batch job.
+ */
+public class MailMergePipelineDemo {
+
+    // =========================================================================
+    // Recipient row + CSV parsing
+    // =========================================================================
+
+    static final class Recipient {
+        final String name;
+        final String greeting;   // null → "Dear <name>,"
+
+        Recipient(String name, String greeting) {
+            this.name     = name;
+            this.greeting = greeting;
+        }
+    }
+
+    /** Splits one CSV line; returns null if a quote is left open. */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>(2);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');                       // "" inside quotes
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    // =========================================================================
+    // Pipeline
+    // =========================================================================
+
+    /** Opens the output channel for shard {@code index}; the pipeline closes it. */
+    @FunctionalInterface
+    interface ShardSink {
+        WritableByteChannel open(int index) throws IOException;
+    }
+
+    static final class MergeReport {
+        final long documents;
+        final long rejected;
+        final long bytes;
+        final long nanos;
+        final int  peakRowsInFlight;
+
+        MergeReport(long documents, long rejected, long bytes, long nanos, int peakRowsInFlight) {
+            this.documents        = documents;
+            this.rejected         = rejected;
+            this.bytes            = bytes;
+            this.nanos            = nanos;
+            this.peakRowsInFlight = peakRowsInFlight;
+        }
+
+        double documentsPerSecond() { return nanos == 0 ? 0 : documents / (nanos / 1e9); }
+
+        @Override
+        public String toString() {
+            return String.format("MergeReport{documents=%,d, rejected=%,d, bytes=%,d, %.0f docs/s, peakRowsInFlight=%,d}",
+                    documents, rejected, bytes, documentsPerSecond(), peakRowsInFlight);
+        }
+    }
+
+    static final class MailMergePipeline {
+
+        private static final List<Recipient> END = new ArrayList<>();   // poison pill, compared by identity
+
+        private final Letter template;
+        private final int    workers;
+        private final int    batchSize;
+        private final int    queueCapacity;
+        private final int    bufferSize;
+
+        MailMergePipeline(Letter template, int workers, int batchSize, int queueCapacity, int bufferSize) {
+            if (template == null) {
+                throw new IllegalArgumentException("template must not be null");
+            }
+            if (workers < 1 || batchSize < 1 || queueCapacity < 1) {
+                throw new IllegalArgumentException("workers, batchSize and queueCapacity must be >= 1");
+            }
+            if (template.sectionCount() == 0) {
+                throw new IllegalArgumentException("template needs a greeting section");
+            }
+            this.template      = template.clone();   // already shared: the workers' clone() calls only read it
+            this.workers       = workers;
+            this.batchSize     = batchSize;
+            this.queueCapacity = queueCapacity;
+            this.bufferSize    = bufferSize;
+        }
+
+        /** Upper bound on parsed rows held in memory at once. */
+        int maxRowsInFlight() {
+            // queued batches + one batch per worker + the one the reader is filling
+            return (queueCapacity + workers + 1) * batchSize;
+        }
+
+        MergeReport run(Reader csv, ShardSink sink) throws IOException, InterruptedException {
+            BlockingQueue<List<Recipient>> queue = new ArrayBlockingQueue<>(queueCapacity);
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger peak     = new AtomicInteger();
+            LongAdder documents    = new LongAdder();
+            long start = System.nanoTime();
+
+            ExecutorService pool = Executors.newFixedThreadPool(workers, r -> new Thread(r, "mail-merge"));
+            List<Future<Long>> shards = new ArrayList<>(workers);
+            long rejected;
+            Future<Long> failed;
+            try {
+                for (int w = 0; w < workers; w++) {
+                    int index = w;
+                    shards.add(pool.submit(() -> mergeShard(index, queue, sink, inFlight, documents)));
+                }
+                try {
+                    rejected = readCsv(csv, queue, inFlight, peak, shards);
+                } finally {
+                    failed = endShards(queue, shards);
+                    if (failed != null) {
+                        // Survivors may never be handed END — interrupt them rather than wait on them
+                        pool.shutdownNow();
+                    }
+                }
+                if (failed != null) {
+                    failed.get();                                     // rethrows the worker's own error
+                }
+                long bytes = 0;
+                for (Future<Long> shard : shards) {
+                    bytes += shard.get();
+                }
+                return new MergeReport(documents.sum(), rejected, bytes, System.nanoTime() - start, peak.get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException io) throw io;
+                throw new IllegalStateException("mail merge failed", cause);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        // Reader thread: parse, batch, enqueue. Returns the rejected-row count.
+        private long readCsv(Reader csv, BlockingQueue<List<Recipient>> queue, AtomicInteger inFlight,
+                             AtomicInteger peak, List<Future<Long>> shards) throws IOException, InterruptedException {
+            BufferedReader lines = csv instanceof BufferedReader br ? br : new BufferedReader(csv, 64 * 1024);
+            long rejected = 0;
+            lines.readLine();                                         // header
+            List<Recipient> batch = new ArrayList<>(batchSize);
+            for (String line; (line = lines.readLine()) != null; ) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> fields = parseCsvLine(line);
+                if (fields == null || fields.get(0).isEmpty()) {
+                    rejected++;
+                    continue;
+                }
+                String greeting = fields.size() > 1 && !fields.get(1).isEmpty() ? fields.get(1) : null;
+                batch.add(new Recipient(fields.get(0), greeting));
+                peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                if (batch.size() == batchSize) {
+                    if (!offerUnlessFailed(queue, batch, shards)) {
+                        return rejected;                              // a worker died; its error is reported
+                    }
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                offerUnlessFailed(queue, batch, shards);
+            }
+            return rejected;
+        }
+
+        /**
+         * Hands every worker its END. Returns the first worker found to have failed, or null if
+         * none has — in which case every live worker was given END and waiting on it is safe.
+         */
+        private static Future<Long> endShards(BlockingQueue<List<Recipient>> queue, List<Future<Long>> shards)
+                throws InterruptedException {
+            for (int w = 0; w < shards.size(); w++) {
+                if (!offerUnlessFailed(queue, END, shards)) {
+                    break;
+                }
+            }
+            for (Future<Long> shard : shards) {
+                if (shard.state() == Future.State.FAILED) {
+                    return shard;
+                }
+            }
+            return null;
+        }
+
+        // Blocks while the queue is full, but gives up if a worker has died —
+        // otherwise the reader would wait forever on a queue nobody drains.
+        // A worker that finished normally took its END and is not a reason to give up.
+        private static boolean offerUnlessFailed(BlockingQueue<List<Recipient>> queue, List<Recipient> batch,
+                                                 List<Future<Long>> shards) throws InterruptedException {
+            while (!queue.offer(batch, 50, TimeUnit.MILLISECONDS)) {
+                for (Future<Long> shard : shards) {
+                    if (shard.state() == Future.State.FAILED) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        // Worker: returns bytes written to its shard
+        private long mergeShard(int index, BlockingQueue<List<Recipient>> queue, ShardSink sink,
+                                AtomicInteger inFlight, LongAdder documents) throws IOException, InterruptedException {
+            try (WritableByteChannel out = sink.open(index)) {
+                DocumentRenderer renderer = new DocumentRenderer(out, bufferSize);
+                for (List<Recipient> batch; (batch = queue.take()) != END; ) {
+                    for (Recipient row : batch) {
+                        Letter letter = template.clone();
+                        letter.setRecipient(row.name);
+                        letter.setSection(0, row.greeting != null ? row.greeting : "Dear " + row.name + ",");
+                        renderer.render(letter);
+                    }
+                    documents.add(batch.size());
+                    inFlight.addAndGet(-batch.size());
+                }
+                renderer.flush();
+                return renderer.bytesWritten();
+            }
+        }
+    }
+
+    // =========================================================================
+    // Demo helpers
+    // =========================================================================
+
+    /** Discards output but counts it — measures merge cost without disk I/O. */
+    private static final class NullChannel implements WritableByteChannel {
+        private boolean open = true;
+        @Override public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            return n;
+        }
+        @Override public boolean isOpen() { return open; }
+        @Override public void close() { open = false; }
+    }
+
+    /** Counts output like NullChannel, but each write takes {@code delayMs} — a congested disk. */
+    private static final class SlowChannel implements WritableByteChannel {
+        private final long delayMs;
+        private boolean open = true;
+        SlowChannel(long delayMs) { this.delayMs = delayMs; }
+        @Override public int write(ByteBuffer src) throws IOException {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ClosedByInterruptException();
+            }
+            int n = src.remaining();
+            src.position(src.limit());
+            return n;
+        }
+        @Override public boolean isOpen() { return open; }
+        @Override public void close() { open = false; }
+    }
+
+    private static Path writeRecipients(Path dir, int rows) throws IOException {
+        Path csv = dir.resolve("recipients.csv");
+        try (BufferedWriter w = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            w.write("name,greeting\n");
+            for (int i = 0; i < rows; i++) {
+                w.write("Recipient " + i + ",\n");
+            }
+        }
+        return csv;
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.delete(p);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    // =========================================================================
+    // Main
+    // =========================================================================
+
+    public static void main(String[] args) throws Exception {
+
+        Letter template = LazyDocumentCloneDemo.letterTemplate();
+        Path dir = Files.createTempDirectory("mail-merge");
+        try {
+            System.out.println("═══ Test 1: Quoted fields, custom greetings, rejected rows ══");
+            String csv = """
+                    name,greeting
+                    Alice
+                    "Smith, Jane","Dear Dr Smith,"
+                    "Bob ""Bobby"" Jones"
+                    ,no name here
+                    "unterminated
+                    Zoë Ångström
+                    """;
+            MailMergePipeline small = new MailMergePipeline(template, 2, 2, 2, 4_096);
+            MergeReport r1 = small.run(new StringReader(csv), i -> FileChannel.open(dir.resolve("letters-" + i + ".txt"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+            List<String> to = new ArrayList<>(), greetings = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                List<String> lines = Files.readAllLines(dir.resolve("letters-" + i + ".txt"), StandardCharsets.UTF_8);
+                for (int l = 0; l < lines.size(); l++) {
+                    if (lines.get(l).startsWith("To: ")) {
+                        to.add(lines.get(l).substring(4));
+                        greetings.add(lines.get(l + 2));
+                    }
+                }
+            }
+            System.out.println(r1);
+            System.out.println("recipients: " + to);
+            System.out.println("greetings:  " + greetings);
+            boolean t1 = r1.documents == 4 && r1.rejected == 2
+                      && to.containsAll(List.of("Alice", "Smith, Jane", "Bob \"Bobby\" Jones", "Zoë Ångström"))
+                      && greetings.contains("Dear Dr Smith,") && greetings.contains("Dear Alice,")
+                      && template.getRecipient().equals("{recipient}") && template.section(0).equals("Dear candidate,");
+            System.out.println("Test 1 " + (t1 ? "PASSED" : "FAILED") + " — template untouched");
+
+            System.out.println("\n═══ Test 2: Memory stays bounded for a large input ═══════");
+            int rows = 1_000_000;
+            Path big = writeRecipients(dir, rows);
+            MailMergePipeline bounded = new MailMergePipeline(template, 2, 256, 4, 64 * 1024);
+            MergeReport r2;
+            try (BufferedReader in = Files.newBufferedReader(big, StandardCharsets.UTF_8)) {
+                r2 = bounded.run(in, i -> new NullChannel());
+            }
+            System.out.println(r2);
+            System.out.println("bound: " + String.format("%,d", bounded.maxRowsInFlight()) + " rows");
+            boolean t2 = r2.documents == rows && r2.peakRowsInFlight <= bounded.maxRowsInFlight();
+            System.out.println("Test 2 " + (t2 ? "PASSED" : "FAILED"));
+
+            System.out.println("\n═══ Test 3: A failing shard stops the run instead of hanging ═");
+            boolean t3 = false;
+            try (BufferedReader in = Files.newBufferedReader(big, StandardCharsets.UTF_8)) {
+                new MailMergePipeline(template, 2, 256, 4, 4_096).run(in, i -> {
+                    throw new IOException("disk full on shard " + i);
+                });
+            } catch (IOException e) {
+                t3 = e.getMessage().startsWith("disk full");
+                System.out.println("Caught IOException: " + e.getMessage());
+            }
+
+            // One shard fails while the other is still slowly writing: the run must not wait on the survivor
+            boolean t3b = false;
+            ExecutorService caller = Executors.newSingleThreadExecutor();
+            try (BufferedReader in = Files.newBufferedReader(big, StandardCharsets.UTF_8)) {
+                long begin = System.nanoTime();
+                Future<MergeReport> run = caller.submit(() -> new MailMergePipeline(template, 2, 256, 4, 4_096)
+                        .run(in, i -> {
+                            if (i == 1) {
+                                throw new IOException("disk full on shard 1");
+                            }
+                            return new SlowChannel(300);
+                        }));
+                try {
+                    run.get(10, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    t3b = e.getCause() instanceof IOException io && "disk full on shard 1".equals(io.getMessage());
+                    System.out.printf("Failed shard beside a slow one: %s after %d ms%n",
+                            e.getCause().getMessage(), (System.nanoTime() - begin) / 1_000_000);
+                } catch (TimeoutException e) {
+                    System.out.println("run() still blocked after 10 s");
+                    run.cancel(true);
+                }
+            } finally {
+                caller.shutdownNow();
+            }
+            t3 &= t3b;
+            System.out.println("Test 3 " + (t3 ? "PASSED" : "FAILED"));
+
+            System.out.println("\n═══ Test 4: Throughput — " + String.format("%,d", rows) + " letters ═══════════════");
+            int cores = Runtime.getRuntime().availableProcessors();
+            int[] workerCounts = cores > 1 ? new int[] { 1, cores } : new int[] { 1 };
+            System.out.printf("%-8s %14s %10s%n", "workers", "docs/s", "MB out");
+            boolean t4 = true;
+            for (int workers : workerCounts) {
+                MailMergePipeline pipeline = new MailMergePipeline(template, workers, 256, 2 * workers, 64 * 1024);
+                for (int round = 0; round < 2; round++) {              // round 0 warms up
+                    try (BufferedReader in = Files.newBufferedReader(big, StandardCharsets.UTF_8)) {
+                        MergeReport r = pipeline.run(in, i -> new NullChannel());
+                        if (round == 1) {
+                            System.out.printf("%-8d %,14.0f %,10d%n", workers, r.documentsPerSecond(), r.bytes >> 20);
+                            t4 &= r.documents == rows;
+                        }
+                    }
+                }
+            }
+            System.out.println("(" + cores + " core(s) available)");
+            System.out.println("Test 4 " + (t4 ? "PASSED" : "FAILED"));
+        } finally {
+            deleteTree(dir);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.ramkumar.lld.designpatterns.creational.prototype.practice;
+
+import com.ramkumar.lld.designpatterns.creational.prototype.practice.GameCharacterPractice.Archer;
+import com.ramkumar.lld.designpatterns.creational.prototype.practice.GameCharacterPractice.GameCharacter;
+import com.ramkumar.lld.designpatterns.creational.prototype.practice.GameCharacterPractice.Mage;
+import com.ramkumar.lld.designpatterns.creational.prototype.practice.GameCharacterPractice.Warrior;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Scenario C: Copy-on-Write Inventories for Mass Spawning
+ *
+ * GameCharacter's copy constructor used to copy the inventory into a new
+ * ArrayList on every clone(). A game spawning thousands of mobs per tick from
+ * a few templates pays for a list (and its backing array) per mob, even
+ * though most mobs die with the inventory they spawned with.
+ *
+ * The copy constructor now shares the source's list and marks both sides
+ * shared; addItem/removeItem take a private copy on the first write. This
+ * demo checks the sharing rules, then measures spawn rate and retained heap:
+ *
+ *   copy-on-write   — clone() only; inventories stay shared
+ *   clone + write   — clone() then one removeItem(), which forces the copy
+ *                     every clone used to pay up front
+ *
+ * JMH version: GameCharacterSpawnBenchmark (src/jmh, run with -prof gc).
+ */
+public class CopyOnWriteSpawnDemo {
+
+    private static final int MOBS = 300_000;
+
+    /** orc-warrior, goblin-shaman and elf-scout, each with the same 8 items. */
+    static GameCharacter[] templates() {
+        Warrior orc    = new Warrior("orc-warrior", 12, 180);
+        Mage    shaman = new Mage("goblin-shaman", 9, 240);
+        Archer  scout  = new Archer("elf-scout", 14, 60);
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));   // addItem() logs every item
+        try {
+            for (String item : List.of("Rusty Axe", "Hide Armor", "Torch", "Rations", "Rope", "Flint", "Bone Charm", "Gold Pouch")) {
+                orc.addItem(item);
+                shaman.addItem(item);
+                scout.addItem(item);
+            }
+        } finally {
+            System.setOut(console);
+        }
+        return new GameCharacter[] { orc, shaman, scout };
+    }
+
+    private static GameCharacter[] spawn(GameCharacter[] templates, boolean write) {
+        GameCharacter[] mobs = new GameCharacter[MOBS];
+        for (int i = 0; i < MOBS; i++) {
+            GameCharacter mob = templates[i % templates.length].clone();
+            if (write) {
+                mob.removeItem("Gold Pouch");             // looted on spawn — forces the copy
+            }
+            mobs[i] = mob;
+        }
+        return mobs;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+
+        PrintStream console = System.out;
+        GameCharacter[] templates = templates();
+        Warrior orc = (Warrior) templates[0];
+
+        System.out.println("═══ Test 1: A fresh clone shares the template's list ═════");
+        Warrior a = orc.clone();
+        Warrior b = orc.clone();
+        boolean t1 = a.sharesInventoryWith(orc) && b.sharesInventoryWith(orc)
+                  && a.getInventory().equals(orc.getInventory());
+        System.out.println("clone shares list: " + a.sharesInventoryWith(orc));
+        System.out.println("Test 1 " + (t1 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 2: First write on the clone copies, template untouched ═");
+        a.removeItem("Torch");
+        boolean t2 = !a.sharesInventoryWith(orc) && b.sharesInventoryWith(orc)
+                  && orc.getInventory().contains("Torch") && !a.getInventory().contains("Torch");
+        System.out.println("template: " + orc.getInventory().size() + " items, clone: " + a.getInventory().size() + " items");
+        System.out.println("Test 2 " + (t2 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 3: Template writes first — existing clones keep the old list ═");
+        Warrior template = new Warrior("template", 1, 10);
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        template.addItem("Sword");
+        Warrior early = template.clone();
+        template.addItem("Shield");
+        System.setOut(console);
+        boolean t3 = early.getInventory().equals(List.of("Sword"))
+                  && template.getInventory().equals(List.of("Sword", "Shield"))
+                  && !early.sharesInventoryWith(template);
+        System.out.println("template: " + template.getInventory() + ", earlier clone: " + early.getInventory());
+        System.out.println("Test 3 " + (t3 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 4: Spawn rate and retained heap — " + String.format("%,d", MOBS) + " mobs ═");
+        for (int warm = 0; warm < 3; warm++) {            // warm up both paths
+            spawn(templates, false);
+            spawn(templates, true);
+        }
+        long[] nanos = new long[2];
+        long[] bytes = new long[2];
+        int checksum = 0, stillShared = 0;
+        for (int mode = 0; mode < 2; mode++) {
+            long before = usedHeap();
+            long start  = System.nanoTime();
+            GameCharacter[] mobs = spawn(templates, mode == 1);
+            nanos[mode] = System.nanoTime() - start;
+            bytes[mode] = usedHeap() - before;
+            checksum += mobs[MOBS - 1].getInventory().size();
+            if (mode == 0) {
+                for (int i = 0; i < MOBS; i++) {
+                    if (mobs[i].sharesInventoryWith(templates[i % templates.length])) stillShared++;
+                }
+            }
+        }
+        String[] labels = { "copy-on-write", "clone + write" };
+        System.out.printf("%-15s %14s %12s%n", "mode", "spawns/s", "bytes/mob");
+        for (int mode = 0; mode < 2; mode++) {
+            System.out.printf("%-15s %,14.0f %,12d%n", labels[mode],
+                    MOBS / (nanos[mode] / 1e9), bytes[mode] / MOBS);
+        }
+        System.out.println("(checksum " + checksum + ", " + String.format("%,d", stillShared) + " mobs share their template's list)");
+        // Spawn rate is informational (see GameCharacterSpawnBenchmark); only
+        // sharing and retained heap decide the result
+        boolean t4 = stillShared == MOBS && bytes[0] < bytes[1];
+        System.out.println("Test 4 " + (t4 ? "PASSED" : "FAILED") + " — shared inventories are cheaper to keep");
+    }
+}
@@ -35,8 +35,13 @@ import java.util.NoSuchElementException;
  * Protected copy constructor:
  *   GameCharacter(GameCharacter source)
  *   Used by subclass clone() methods to copy base fields.
- *   Copies name and level; creates a NEW ArrayList from source.inventory
- *   (deep copy — the two lists must be independent after this call).
+ *   Copies name and level; the two inventories must be independent after
+ *   this call. (Implemented copy-on-write: the list is shared until either
+ *   side first writes to it, then the writer takes its own ArrayList.)
+ *   The first clone of a character marks its list shared — the only write a
+ *   clone makes to its source; later clones only read it. A template cloned
+ *   from several threads must therefore be cloned once (or written to no
+ *   more) before it is published, like any other unsynchronised object.
  *
  * Abstract method:
  *   abstract GameCharacter clone()
@@ -117,7 +122,8 @@ import java.util.NoSuchElementException;
  *
  * ── DESIGN CONSTRAINTS ────────────────────────────────────────────────────
  *   - Do NOT use Java's Cloneable or Object.clone() — use copy constructors
- *   - Deep copy: the clone's inventory must be a NEW ArrayList, not the same reference
+ *   - Deep copy: a write to the clone's inventory must never reach the original's
+ *     (a NEW ArrayList, taken eagerly or — as here — on the first write)
  *   - getInventory() must return Collections.unmodifiableList(inventory), never the raw list
  *   - No instanceof chains anywhere — use polymorphism
  *   - Covariant return: Warrior.clone() returns Warrior, Mage.clone() returns Mage, etc.
@@ -134,7 +140,11 @@ public class GameCharacterPractice {
 
         protected String name;
         protected int level;
-        protected List<String> inventory;
+        // [Copy-on-write] — may be shared with a template or clone; every write
+        // goes through ensureOwnInventory() first. Reads never need a copy.
+        // Private so no subclass can write to a list another character still sees.
+        private List<String> inventory;
+        private boolean inventoryShared;
 
 
         GameCharacter(String name, int level) {
@@ -154,7 +164,28 @@ public class GameCharacterPractice {
             // your code here
             this.name = source.name;
             this.level = source.level;
-            this.inventory = new ArrayList<>(source.inventory);
+            // Share, don't copy: most spawned mobs never change their inventory.
+            // Both sides are marked, so whichever writes first copies first. The
+            // source is only written on its first clone; an already-shared
+            // template is read, never written, by every later clone().
+            this.inventory = source.inventory;
+            this.inventoryShared = true;
+            if (!source.inventoryShared) {
+                source.inventoryShared = true;
+            }
+        }
+
+        // [Copy-on-write] — the deferred deep copy, taken once, on the first write
+        private void ensureOwnInventory() {
+            if (inventoryShared) {
+                inventory = new ArrayList<>(inventory);
+                inventoryShared = false;
+            }
+        }
+
+        /** True while this character and {@code other} still point at the same list. */
+        boolean sharesInventoryWith(GameCharacter other) {
+            return inventory == other.inventory;
         }
 
 
@@ -165,6 +196,7 @@ public class GameCharacterPractice {
             if(item == null || item.isBlank()){
                 throw new IllegalArgumentException("item must not be blank");
             }
+            ensureOwnInventory();
             inventory.add(item);
             System.out.println("Item : " +  item + " added to the Inventory");
         }
@@ -177,6 +209,7 @@ public class GameCharacterPractice {
             if(!inventory.contains(item)) {
                 throw new NoSuchElementException("item not found: " +  item);
             }
+            ensureOwnInventory();
             inventory.remove(item);
         }
 
@@ -233,7 +266,7 @@ public class GameCharacterPractice {
 
         @Override
         public String toString() {
-            return String.format("Warrior{name='%s', level=%d, armor=%d, inventory=%s}", name, level, armor, inventory);
+            return String.format("Warrior{name='%s', level=%d, armor=%d, inventory=%s}", name, level, armor, getInventory());
         }
     }
 
@@ -284,7 +317,7 @@ public class GameCharacterPractice {
         @Override
         public String toString() {
             // your code here
-            return String.format("Mage{name='%s', level=%d, manaPool=%d, inventory=%s}", name, level, manaPool, inventory);
+            return String.format("Mage{name='%s', level=%d, manaPool=%d, inventory=%s}", name, level, manaPool, getInventory());
         }
     }
 
@@ -331,7 +364,7 @@ public class GameCharacterPractice {
         public String toString() {
             // your code here
             return String.format("Archer{name='%s', level=%d, arrowCount=%s, inventory=%s}", name, level,
-                    arrowCount, inventory) ;
+                    arrowCount, getInventory()) ;
         }
     }
 
@@ -506,7 +539,7 @@ public class GameCharacterPractice {
  *   abstract static class GameCharacter {
  *       protected String       name;
  *       protected int          level;
- *       protected List<String> inventory;
+ *       private List<String> inventory;
  *
  *       GameCharacter(String name, int level) { ... }
  *       protected GameCharacter(GameCharacter source) {
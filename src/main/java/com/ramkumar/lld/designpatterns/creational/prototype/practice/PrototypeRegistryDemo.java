@@ -0,0 +1,425 @@
+package com.ramkumar.lld.designpatterns.creational.prototype.practice;
+
+import com.ramkumar.lld.designpatterns.creational.prototype.practice.GameCharacterPractice.GameCharacter;
+import com.ramkumar.lld.designpatterns.creational.prototype.practice.GameCharacterPractice.Mage;
+import com.ramkumar.lld.designpatterns.creational.prototype.practice.GameCharacterPractice.Warrior;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Scenario D — Prototype Registry with Pre-Warmed Clone Pools
+ *
+ * The same few templates ("orc-warrior", "goblin-shaman", …) are cloned over
+ * and over on the game threads. PrototypeRegistry keeps, for every thread and
+ * every template, a small pool of clones made ahead of time, so
+ *
+ *   registry.spawn("orc-warrior")
+ *
+ * is usually a pop from the calling thread's own pool rather than a copy
+ * constructor call on the hot path.
+ *
+ *   - Pools are per thread (ThreadLocal), so spawning threads never contend
+ *     with each other. Each pool is a single-producer/single-consumer ring:
+ *     the owning thread pops, and one background "refill" thread pushes.
+ *   - When a pool drops to half full the owner queues ONE refill request
+ *     (a flag stops duplicates) and unparks the refill thread, which tops it
+ *     back up. The refill thread is parked whenever no pool is below its
+ *     low-water mark, and the flag limits the wake-up to one per
+ *     capacity / 2 spawns rather than one per spawn.
+ *   - An empty pool is a miss: the owner clones the template itself, so
+ *     spawn() never blocks waiting for the refill thread.
+ *   - prewarm(name) fills the calling thread's pool before a burst, e.g. at
+ *     the start of a wave.
+ *
+ * Templates are fixed once registered. Replacing one would leave stale
+ * clones sitting in every pool, so register() rejects duplicate names, and
+ * it stores a clone of the caller's object, so later edits to that object
+ * never reach the pools.
+ */
+public class PrototypeRegistryDemo {
+
+    // =========================================================================
+    // SpscRing — bounded; one producer thread, one consumer thread, no locks
+    // =========================================================================
+
+    static final class SpscRing<T> {
+
+        private final AtomicReferenceArray<T> slots;
+        private final int        mask;
+        private final AtomicLong head = new AtomicLong();     // next slot to poll  (consumer)
+        private final AtomicLong tail = new AtomicLong();     // next slot to offer (producer)
+
+        SpscRing(int capacity) {
+            if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+                throw new IllegalArgumentException("capacity must be a power of two >= 2");
+            }
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask  = capacity - 1;
+        }
+
+        /** Producer thread only. */
+        boolean offer(T value) {
+            long t = tail.get();
+            if (t - head.get() == slots.length()) {
+                return false;
+            }
+            slots.lazySet((int) t & mask, value);
+            tail.lazySet(t + 1);                               // publishes the slot write
+            return true;
+        }
+
+        /** Consumer thread only. */
+        T poll() {
+            long h = head.get();
+            if (h == tail.get()) {
+                return null;
+            }
+            int index = (int) h & mask;
+            T value = slots.get(index);
+            slots.lazySet(index, null);
+            head.lazySet(h + 1);
+            return value;
+        }
+
+        int size()     { return (int) (tail.get() - head.get()); }
+        int capacity() { return slots.length(); }
+    }
+
+    // =========================================================================
+    // PrototypeRegistry
+    // =========================================================================
+
+    static final class PrototypeRegistry implements AutoCloseable {
+
+        // ── One thread's pool for one template ──
+        private static final class Pool {
+            final GameCharacter           template;
+            final SpscRing<GameCharacter> ready;
+            final AtomicBoolean           refillQueued = new AtomicBoolean();
+            volatile Thread               prewarming;           // owner waiting in prewarm(), if any
+
+            Pool(GameCharacter template, int capacity) {
+                this.template = template;
+                this.ready    = new SpscRing<>(capacity);
+            }
+        }
+
+        private final Map<String, GameCharacter> prototypes = new ConcurrentHashMap<>();
+        private final ThreadLocal<Map<String, Pool>> pools = ThreadLocal.withInitial(HashMap::new);
+        private final int capacity;
+        private final int lowWater;
+        private final Queue<Pool> refillRequests = new ConcurrentLinkedQueue<>();
+        private final Set<Pool> prewarming = ConcurrentHashMap.newKeySet();
+        private final Thread refiller;
+        private volatile boolean closed;
+
+        // ── Metrics ──
+        private final LongAdder hits    = new LongAdder();
+        private final LongAdder misses  = new LongAdder();
+        private final LongAdder refills = new LongAdder();   // clones made by the refill thread
+
+        PrototypeRegistry(int poolCapacity) {
+            if (poolCapacity < 2 || Integer.bitCount(poolCapacity) != 1) {
+                throw new IllegalArgumentException("poolCapacity must be a power of two >= 2");
+            }
+            this.capacity = poolCapacity;
+            this.lowWater = poolCapacity / 2;
+            this.refiller = new Thread(this::refillLoop, "prototype-refill");
+            this.refiller.setDaemon(true);
+            this.refiller.start();
+        }
+
+        void register(String name, GameCharacter prototype) {
+            if (name == null || name.isBlank()) {
+                throw new IllegalArgumentException("name must not be blank");
+            }
+            if (prototype == null) {
+                throw new IllegalArgumentException("prototype must not be null");
+            }
+            // A private copy: the caller may keep editing its object. Being a
+            // clone, the copy's inventory is already marked shared, so the
+            // refill thread and missing spawners only ever read it.
+            if (prototypes.putIfAbsent(name, prototype.clone()) != null) {
+                throw new IllegalStateException("prototype already registered: " + name);
+            }
+        }
+
+        /** A fresh, independent clone of the named template. */
+        GameCharacter spawn(String name) {
+            Pool pool = poolFor(name);
+            GameCharacter mob = pool.ready.poll();
+            if (mob != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+                mob = pool.template.clone();
+            }
+            if (pool.ready.size() <= lowWater) {
+                requestRefill(pool);
+            }
+            return mob;
+        }
+
+        /** Fills the calling thread's pool for {@code name} and waits until it is full. */
+        void prewarm(String name) {
+            Pool pool = poolFor(name);
+            pool.prewarming = Thread.currentThread();
+            prewarming.add(pool);
+            try {
+                requestRefill(pool);
+                while (pool.ready.size() < capacity) {
+                    if (closed) {
+                        throw new IllegalStateException("registry is closed");
+                    }
+                    LockSupport.park(this);                     // fill() or close() unparks
+                }
+            } finally {
+                prewarming.remove(pool);
+                pool.prewarming = null;
+            }
+        }
+
+        /** Ready clones in the calling thread's pool for {@code name}. */
+        int pooled(String name) {
+            Pool pool = pools.get().get(name);
+            return pool == null ? 0 : pool.ready.size();
+        }
+
+        long hits()    { return hits.sum(); }
+        long misses()  { return misses.sum(); }
+        long refills() { return refills.sum(); }
+
+        double hitRate() {
+            long h = hits.sum(), total = h + misses.sum();
+            return total == 0 ? 0 : (double) h / total;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            LockSupport.unpark(refiller);
+            for (Pool pool : prewarming) {
+                Thread waiter = pool.prewarming;
+                if (waiter != null) {
+                    LockSupport.unpark(waiter);
+                }
+            }
+        }
+
+        private Pool poolFor(String name) {
+            Map<String, Pool> mine = pools.get();
+            Pool pool = mine.get(name);
+            if (pool == null) {
+                GameCharacter template = prototypes.get(name);
+                if (template == null) {
+                    throw new NoSuchElementException("No prototype: " + name);
+                }
+                pool = new Pool(template, capacity);
+                mine.put(name, pool);
+            }
+            return pool;
+        }
+
+        // Called on every spawn at or below low water, but only the call that
+        // wins the flag enqueues and pays for the unpark — once per refill
+        private void requestRefill(Pool pool) {
+            if (pool.refillQueued.compareAndSet(false, true)) {
+                refillRequests.offer(pool);
+                LockSupport.unpark(refiller);
+            }
+        }
+
+        private void refillLoop() {
+            while (!closed) {
+                Pool pool = refillRequests.poll();
+                if (pool == null) {
+                    LockSupport.park(this);    // an unpark before this point leaves a permit, so none is lost
+                } else {
+                    fill(pool);
+                }
+            }
+        }
+
+        // Refill thread only — the single producer for every ring
+        private void fill(Pool pool) {
+            pool.refillQueued.set(false);
+            while (pool.ready.size() < pool.ready.capacity()) {
+                pool.ready.offer(pool.template.clone());
+                refills.increment();
+            }
+            Thread waiter = pool.prewarming;
+            if (waiter != null) {
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+
+    // =========================================================================
+    // Main
+    // =========================================================================
+
+    public static void main(String[] args) throws Exception {
+
+        GameCharacter[] templates = CopyOnWriteSpawnDemo.templates();
+        String[] names = { "orc-warrior", "goblin-shaman", "elf-scout" };
+
+        try (PrototypeRegistry registry = new PrototypeRegistry(64)) {
+            for (int i = 0; i < names.length; i++) {
+                registry.register(names[i], templates[i]);
+            }
+
+            System.out.println("═══ Test 1: Unknown or duplicate template ═══════════════");
+            boolean unknown = false, duplicate = false;
+            try {
+                registry.spawn("dragon");
+            } catch (NoSuchElementException e) {
+                unknown = "No prototype: dragon".equals(e.getMessage());
+                System.out.println("Caught NSE: " + e.getMessage());
+            }
+            try {
+                registry.register("orc-warrior", new Warrior("impostor", 1, 1));
+            } catch (IllegalStateException e) {
+                duplicate = true;
+                System.out.println("Caught ISE: " + e.getMessage());
+            }
+            System.out.println("Test 1 " + (unknown && duplicate ? "PASSED" : "FAILED"));
+
+            System.out.println("\n═══ Test 2: Pre-warmed pool — spawns are pool hits ════════");
+            registry.prewarm("orc-warrior");
+            int before = registry.pooled("orc-warrior");
+            long hitsBefore = registry.hits(), missesBefore = registry.misses();
+            List<Warrior> wave = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                wave.add((Warrior) registry.spawn("orc-warrior"));
+            }
+            Map<GameCharacter, Boolean> distinct = new IdentityHashMap<>();
+            wave.forEach(w -> distinct.put(w, true));
+            System.out.println("pool before: " + before + ", hits: " + (registry.hits() - hitsBefore)
+                    + ", misses: " + (registry.misses() - missesBefore));
+            boolean t2 = before == 64 && registry.hits() - hitsBefore == 16
+                      && registry.misses() == missesBefore && distinct.size() == 16;
+            System.out.println("Test 2 " + (t2 ? "PASSED" : "FAILED"));
+
+            System.out.println("\n═══ Test 3: Pooled clones are independent ═══════════════");
+            Warrior first = wave.get(0);
+            first.setName("orc-chieftain");
+            first.setArmor(999);
+            first.removeItem("Torch");
+            Warrior template = (Warrior) templates[0];
+            Warrior knight = new Warrior("knight", 5, 50);
+            registry.register("knight", knight);
+            knight.setName("traitor");                         // caller edits its object after registering
+            knight.setArmor(1);
+            Warrior recruit = (Warrior) registry.spawn("knight");
+            boolean t3 = "orc-warrior".equals(template.getName()) && template.getArmor() == 180
+                      && template.getInventory().contains("Torch")
+                      && "orc-warrior".equals(wave.get(1).getName()) && wave.get(1).getInventory().contains("Torch")
+                      && "knight".equals(recruit.getName()) && recruit.getArmor() == 50;
+            System.out.println("changed: " + first);
+            System.out.println("template: " + template);
+            System.out.println("spawned after the caller edited its knight: " + recruit);
+            System.out.println("Test 3 " + (t3 ? "PASSED" : "FAILED"));
+
+            System.out.println("\n═══ Test 4: Cold pool misses once, then the refill thread catches up ═");
+            long m0 = registry.misses();
+            registry.spawn("goblin-shaman");                   // no pool yet → miss + refill request
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (registry.pooled("goblin-shaman") < 64 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            int refilled = registry.pooled("goblin-shaman");
+            GameCharacter fromPool = registry.spawn("goblin-shaman");
+            System.out.println("misses: " + (registry.misses() - m0) + ", pool after refill: " + refilled
+                    + ", next spawn: " + fromPool.getClass().getSimpleName());
+            boolean t4 = registry.misses() - m0 == 1 && refilled == 64
+                      && registry.pooled("goblin-shaman") == 63 && fromPool instanceof Mage;
+            System.out.println("Test 4 " + (t4 ? "PASSED" : "FAILED"));
+        }
+
+        System.out.println("\n═══ Test 5: 4 threads × 500 ticks × 48-mob waves — pooled vs direct ═");
+        int threads = 4, ticks = 500, wave = 48;
+        for (int round = 0; round < 2; round++) {             // round 0 warms up
+            long direct = spawnWaves(threads, ticks, wave, templates, null);
+            try (PrototypeRegistry registry = new PrototypeRegistry(64)) {
+                for (int i = 0; i < names.length; i++) {
+                    registry.register(names[i], templates[i]);
+                }
+                long pooled = spawnWaves(threads, ticks, wave, templates, registry);
+                if (round == 1) {
+                    long total = (long) threads * ticks * wave;
+                    System.out.printf("%-14s %6.1f ns/spawn on the game thread%n", "direct clone", (double) direct / total);
+                    System.out.printf("%-14s %6.1f ns/spawn on the game thread%n", "pooled", (double) pooled / total);
+                    System.out.printf("hits=%,d misses=%,d hitRate=%.1f%% refilled=%,d%n",
+                            registry.hits(), registry.misses(), registry.hitRate() * 100, registry.refills());
+                    boolean t5 = registry.hits() + registry.misses() == total && registry.hitRate() > 0.99;
+                    System.out.println("Test 5 " + (t5 ? "PASSED" : "FAILED") + " — waves are served from the pools");
+                }
+            }
+        }
+    }
+
+    /**
+     * Each thread prewarms, then per tick spawns one wave round-robin over the
+     * templates and idles ~1 ms (the rest of the frame). The refill thread
+     * runs as soon as a pool crosses low water: on a spare core that is beside
+     * the game thread, on a single core it preempts it and the refill is billed
+     * to the wave. Returns total nanos spent spawning.
+     */
+    private static long spawnWaves(int threads, int ticks, int wave, GameCharacter[] templates,
+                                   PrototypeRegistry registry) throws InterruptedException, ExecutionException {
+        String[] names = { "orc-warrior", "goblin-shaman", "elf-scout" };
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    if (registry != null) {
+                        for (String name : names) {
+                            registry.prewarm(name);
+                        }
+                    }
+                    long spawning = 0;
+                    int levels = 0;
+                    for (int tick = 0; tick < ticks; tick++) {
+                        long start = System.nanoTime();
+                        for (int i = 0; i < wave; i++) {
+                            GameCharacter mob = registry == null
+                                    ? templates[i % 3].clone()
+                                    : registry.spawn(names[i % 3]);
+                            levels += mob.getLevel();
+                        }
+                        spawning += System.nanoTime() - start;
+                        LockSupport.parkNanos(1_000_000);
+                    }
+                    return levels > 0 ? spawning : -1;
+                }));
+            }
+            long total = 0;
+            for (Future<Long> f : results) {
+                total += f.get();
+            }
+            return total;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -1,13 +1,22 @@
 package com.ramkumar.lld.designpatterns.creational.singleton.code;
 
+import com.ramkumar.lld.designpatterns.creational.singleton.code.ConfigStoreDemo.ConfigStore;
+import com.ramkumar.lld.designpatterns.creational.singleton.code.LayeredConfigDemo.LayeredConfigSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Scenario A: Application Configuration Manager
  *
- * Demonstrates all five Singleton implementation variants using a shared
+ * Demonstrates six Singleton implementation variants using a shared
  * application configuration manager as the domain model.
  *
  * Why config is a classic Singleton:
@@ -21,6 +30,10 @@ import java.util.Map;
  *   3. DCLConfig             — double-checked locking + volatile (fast + safe)
  *   4. HolderConfig          — static inner class / Bill Pugh (cleanest lazy)
  *   5. EnumConfig            — enum singleton (reflection + serialization proof)
+ *   6. LockFreeConfig        — CAS-published lazy init, LongAdder access counters
+ *
+ * Variants 3–5 keep their settings in a copy-on-write ConfigStore, so set()
+ * is safe while other threads call get() (see ConfigStoreDemo).
  */
 public class ApplicationConfigDemo {
 
@@ -39,9 +52,16 @@ public class ApplicationConfigDemo {
         private final Map<String, String> config = new HashMap<>();
 
         // SINGLETON PATTERN: private constructor prevents external instantiation
+        // Values are resolved once from layered sources (see LayeredConfigDemo):
+        // the defaults below can be overridden by APP_SERVER_PORT or -Dapp.server.port
         private EagerConfig() {
-            config.put("app.name", "EagerApp");
-            config.put("server.port", "8080");
+            config.putAll(LayeredConfigSource.builder()
+                    .defaults(Map.of("app.name", "EagerApp", "server.port", "8080"))
+                    .environment("APP_")
+                    .systemProperties("app.")
+                    .build()
+                    .resolve()
+                    .asMap());
             System.out.println("[EagerConfig] Instance created at class load time");
         }
 
@@ -96,17 +116,19 @@ public class ApplicationConfigDemo {
         // volatile ensures a happens-before guarantee on the reference assignment.
         private static volatile DCLConfig instance;
 
-        private final Map<String, String> config;
+        // Copy-on-write store: set() publishes a new immutable snapshot instead of
+        // mutating a HashMap that other threads are reading (see ConfigStoreDemo)
+        private final ConfigStore config;
         private final long loadedAt;
 
         private DCLConfig() {
-            this.config   = new HashMap<>();
             this.loadedAt = System.currentTimeMillis();
-            config.put("app.name", "DCLApp");
-            config.put("app.version", "2.1.0");
-            config.put("db.pool.size", "10");
-            config.put("server.port", "9090");
-            config.put("feature.darkMode", "false");
+            this.config   = new ConfigStore(Map.of(
+                    "app.name", "DCLApp",
+                    "app.version", "2.1.0",
+                    "db.pool.size", "10",
+                    "server.port", "9090",
+                    "feature.darkMode", "false"));
             System.out.println("[DCLConfig] Instance created (lazy, first call)");
         }
 
@@ -125,10 +147,17 @@ public class ApplicationConfigDemo {
         }
 
         public String get(String key)                       { return config.get(key); }
-        public String get(String key, String defaultValue)  { return config.getOrDefault(key, defaultValue); }
-        public void   set(String key, String value)         { config.put(key, value); }
-        public Map<String, String> getAll()                 { return Collections.unmodifiableMap(config); }
+        public String get(String key, String defaultValue)  { return config.get(key, defaultValue); }
+        public void   set(String key, String value)         { config.set(key, value); }
+        public Map<String, String> getAll()                 { return config.getAll(); }
         public long   getLoadedAt()                         { return loadedAt; }
+        public ConfigStore store()                          { return config; }
+
+        // Typed accessors — parsed once per config snapshot, not on every call
+        public int      getInt(String key)                  { return config.getInt(key); }
+        public long     getLong(String key)                 { return config.getLong(key); }
+        public boolean  getBoolean(String key)              { return config.getBoolean(key); }
+        public Duration getDuration(String key)             { return config.getDuration(key); }
     }
 
     // =========================================================================
@@ -138,11 +167,12 @@ public class ApplicationConfigDemo {
 
     static class HolderConfig {
 
-        private final Map<String, String> config = new HashMap<>();
+        private final ConfigStore config;
 
         private HolderConfig() {
-            config.put("app.name", "HolderApp");
-            config.put("cache.ttl.seconds", "3600");
+            config = new ConfigStore(Map.of(
+                    "app.name", "HolderApp",
+                    "cache.ttl.seconds", "3600"));
             System.out.println("[HolderConfig] Instance created (lazy via Holder)");
         }
 
@@ -159,7 +189,14 @@ public class ApplicationConfigDemo {
         }
 
         public String get(String key) { return config.get(key); }
-        public void   set(String key, String value) { config.put(key, value); }
+        public void   set(String key, String value) { config.set(key, value); }
+        public ConfigStore store()                  { return config; }
+
+        // Typed accessors — parsed once per config snapshot, not on every call
+        public int      getInt(String key)          { return config.getInt(key); }
+        public long     getLong(String key)         { return config.getLong(key); }
+        public boolean  getBoolean(String key)      { return config.getBoolean(key); }
+        public Duration getDuration(String key)     { return config.getDuration(key); }
     }
 
     // =========================================================================
@@ -171,19 +208,27 @@ public class ApplicationConfigDemo {
     enum EnumConfig {
         INSTANCE;   // SINGLETON PATTERN: only one enum constant = only one instance
 
-        private final Map<String, String> config = new HashMap<>();
+        private final ConfigStore config;
 
         // Enum constructor is called once by the JVM when the enum class is loaded
         EnumConfig() {
-            config.put("app.name", "EnumApp");
-            config.put("email.from", "noreply@example.com");
-            config.put("email.smtp", "smtp.example.com");
+            config = new ConfigStore(Map.of(
+                    "app.name", "EnumApp",
+                    "email.from", "noreply@example.com",
+                    "email.smtp", "smtp.example.com"));
             System.out.println("[EnumConfig] Instance created via enum initializer");
         }
 
         public String get(String key)                       { return config.get(key); }
-        public String get(String key, String defaultValue)  { return config.getOrDefault(key, defaultValue); }
-        public void   set(String key, String value)         { config.put(key, value); }
+        public String get(String key, String defaultValue)  { return config.get(key, defaultValue); }
+        public void   set(String key, String value)         { config.set(key, value); }
+        public ConfigStore store()                          { return config; }
+
+        // Typed accessors — parsed once per config snapshot, not on every call
+        public int      getInt(String key)                  { return config.getInt(key); }
+        public long     getLong(String key)                 { return config.getLong(key); }
+        public boolean  getBoolean(String key)              { return config.getBoolean(key); }
+        public Duration getDuration(String key)             { return config.getDuration(key); }
 
         // Enum Singleton is reflection-proof:
         // Constructor.newInstance() throws IllegalArgumentException for enums.
@@ -191,6 +236,73 @@ public class ApplicationConfigDemo {
         // JVM's enum deserialization always returns the existing constant.
     }
 
+    // =========================================================================
+    // Variant 6 — Lock-free lazy publication (CAS) + per-key access counters
+    // Fixes Variant 2's hot path: after publication getInstance() is a single
+    // volatile read — no monitor, so no contention however many threads call it.
+    // Trade-off: two racing first callers may both construct; one copy is discarded
+    // =========================================================================
+
+    static class LockFreeConfig {
+
+        // SINGLETON PATTERN: AtomicReference instead of a lock.
+        // compareAndSet(null, created) lets exactly one instance win publication.
+        private static final AtomicReference<LockFreeConfig> INSTANCE = new AtomicReference<>();
+
+        private final ConfigStore config;
+
+        // LongAdder spreads increments over per-CPU cells, so counting every
+        // get() adds no shared-counter contention to the read path
+        private final ConcurrentHashMap<String, LongAdder> accessCounts = new ConcurrentHashMap<>();
+        private final LongAdder misses = new LongAdder();
+
+        private LockFreeConfig() {
+            config = new ConfigStore(Map.of(
+                    "app.name", "LockFreeApp",
+                    "db.url", "jdbc:mysql://localhost/db",
+                    "db.pool.size", "10"));
+        }
+
+        public static LockFreeConfig getInstance() {
+            LockFreeConfig current = INSTANCE.get();      // fast path: volatile read only
+            if (current != null) {
+                return current;
+            }
+            // Slow path, first calls only. The constructor must be side-effect free,
+            // because a thread that loses the race throws its copy away.
+            LockFreeConfig created = new LockFreeConfig();
+            return INSTANCE.compareAndSet(null, created) ? created : INSTANCE.get();
+        }
+
+        public String get(String key) {
+            String value = config.get(key);
+            if (value == null) {
+                misses.increment();                        // unknown keys share one counter — bounded memory
+                return null;
+            }
+            LongAdder counter = accessCounts.get(key);
+            if (counter == null) {
+                counter = accessCounts.computeIfAbsent(key, k -> new LongAdder());
+            }
+            counter.increment();
+            return value;
+        }
+
+        public void   set(String key, String value) { config.set(key, value); }
+        public long   getMissCount()                { return misses.sum(); }
+
+        /** Point-in-time access counts, hottest first. */
+        public List<Map.Entry<String, Long>> hotKeys(int n) {
+            if (n < 0) {
+                throw new IllegalArgumentException("n must be >= 0, got: " + n);
+            }
+            List<Map.Entry<String, Long>> counts = new ArrayList<>();
+            accessCounts.forEach((key, adder) -> counts.add(Map.entry(key, adder.sum())));
+            counts.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+            return counts.subList(0, Math.min(n, counts.size()));
+        }
+    }
+
     // =========================================================================
     // Main
     // =========================================================================
@@ -234,6 +346,7 @@ public class ApplicationConfigDemo {
         System.out.println("darkMode via c3: " + c3.get("feature.darkMode")); // true
 
         System.out.println("Config keys: " + c1.getAll().keySet());
+        System.out.println("db.pool.size as int: " + c1.getInt("db.pool.size"));
 
         // ── Variant 4: Holder ─────────────────────────────────────────────────
         System.out.println("\n── Variant 4: Static Inner Class (Holder) ──────────────");
@@ -242,6 +355,7 @@ public class ApplicationConfigDemo {
         System.out.println("Same instance: " + (d1 == d2));
         d1.set("max.retries", "3");
         System.out.println("max.retries via d2: " + d2.get("max.retries"));  // 3
+        System.out.println("cache.ttl.seconds as long: " + d1.getLong("cache.ttl.seconds"));
 
         // ── Variant 5: Enum ───────────────────────────────────────────────────
         System.out.println("\n── Variant 5: Enum Singleton ───────────────────────────");
@@ -263,12 +377,40 @@ public class ApplicationConfigDemo {
                     + " — " + e.getMessage());
         }
 
+        // ── Variant 6: Lock-free lazy + access counters ───────────────────────
+        System.out.println("\n── Variant 6: Lock-free Lazy (CAS) + Access Counters ───");
+        LockFreeConfig f1 = LockFreeConfig.getInstance();
+        LockFreeConfig f2 = LockFreeConfig.getInstance();
+        System.out.println("Same instance: " + (f1 == f2));
+        Thread[] readers = new Thread[4];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                LockFreeConfig config = LockFreeConfig.getInstance();
+                for (int n = 0; n < 100_000; n++) {
+                    config.get("db.url");
+                    if (n % 10 == 0) config.get("db.pool.size");
+                    if (n % 1000 == 0) config.get("no.such.key");
+                }
+            });
+            readers[i].start();
+        }
+        for (Thread reader : readers) {
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        System.out.println("Hot keys: " + f1.hotKeys(3));      // db.url=400000, db.pool.size=40000
+        System.out.println("Misses:   " + f1.getMissCount());  // 400
+
         // ── Summary ───────────────────────────────────────────────────────────
-        System.out.println("\n── Summary: All five singletons verified ───────────────");
+        System.out.println("\n── Summary: All six singletons verified ────────────────");
         System.out.println("Eager      : c1 == c2? " + (EagerConfig.getInstance() == EagerConfig.getInstance()));
         System.out.println("Synchronized: c1 == c2? " + (SynchronizedConfig.getInstance() == SynchronizedConfig.getInstance()));
         System.out.println("DCL        : c1 == c2? " + (DCLConfig.getInstance() == DCLConfig.getInstance()));
         System.out.println("Holder     : c1 == c2? " + (HolderConfig.getInstance() == HolderConfig.getInstance()));
         System.out.println("Enum       : c1 == c2? " + (EnumConfig.INSTANCE == EnumConfig.INSTANCE));
+        System.out.println("Lock-free  : c1 == c2? " + (LockFreeConfig.getInstance() == LockFreeConfig.getInstance()));
     }
 }
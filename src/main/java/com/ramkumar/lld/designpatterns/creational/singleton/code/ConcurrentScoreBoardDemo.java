@@ -0,0 +1,648 @@
+package com.ramkumar.lld.designpatterns.creational.singleton.code;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Scenario C: Concurrent Game Score Board
+ *
+ * The practice GameScoreBoard does a check-then-act on a plain HashMap
+ * (containsKey → get → put) and prints on every recordScore(). Under many
+ * game-server threads that loses updates (two threads read the same old score,
+ * the lower write lands last) and the println serialises every caller on
+ * System.out's lock.
+ *
+ * This demo keeps the Singleton shell (DCL + volatile) but moves the state into
+ * a LeaderboardEngine designed for concurrent writers:
+ *
+ *   1. ConcurrentHashMap<String, AtomicInteger> — one mutable cell per player.
+ *      The map is only written when a player is seen for the first time.
+ *   2. "Max score wins": a submission that does not beat the current score is
+ *      a lock-free read and performs no write at all. An improvement is a CAS
+ *      loop on the player's cell — no lock is taken to decide the winner.
+ *   3. No I/O on the hot path — the engine never prints.
+ *   4. reset() swaps in a fresh map through a volatile reference, so writers
+ *      are never blocked by a reset.
+ *   5. A RankIndex (order-statistic treap) is updated only when a player's best
+ *      score improves, so getTopPlayers(n) walks n nodes instead of sorting every
+ *      player, and getRank(player) is O(log P). The index is split into
+ *      DEFAULT_STRIPES treaps by player hash, each with its own lock, so
+ *      improvements for different players rarely wait on each other; reads
+ *      merge the stripes.
+ */
+public class ConcurrentScoreBoardDemo {
+
+    // =========================================================================
+    // ScoreEntry — immutable (player, score) pair returned by ranked reads
+    // =========================================================================
+
+    static final class ScoreEntry {
+
+        private final String player;
+        private final int    score;
+
+        ScoreEntry(String player, int score) {
+            this.player = player;
+            this.score  = score;
+        }
+
+        String getPlayer() { return player; }
+        int    getScore()  { return score; }
+
+        @Override
+        public String toString() { return player + "=" + score; }
+    }
+
+    // =========================================================================
+    // RankIndex — order-statistic treap keyed by (score DESC, player ASC)
+    // Every node also stores its subtree size, which turns "how many players
+    // are ahead of me" into a single root-to-leaf walk.
+    // Not thread-safe on its own — LeaderboardEngine guards each one with a lock.
+    // =========================================================================
+
+    static final class RankIndex {
+
+        private static final class Node {
+            final String player;
+            final int    score;
+            final int    priority;     // random heap priority keeps the tree balanced
+            Node left;
+            Node right;
+            int  size = 1;             // nodes in this subtree, including itself
+
+            Node(String player, int score, int priority) {
+                this.player   = player;
+                this.score    = score;
+                this.priority = priority;
+            }
+        }
+
+        private Node root;
+        private int  seed = 0x2545F491;
+
+        void insert(String player, int score) {
+            root = insert(root, new Node(player, score, nextPriority()));
+        }
+
+        void remove(String player, int score) {
+            root = remove(root, player, score);
+        }
+
+        int size() {
+            return size(root);
+        }
+
+        /** Number of players with a strictly higher score — O(log P) expected. */
+        int countHigherThan(int score) {
+            int count = 0;
+            Node node = root;
+            while (node != null) {
+                if (node.score > score) {
+                    // node and everything on its left rank ahead of `score`
+                    count += size(node.left) + 1;
+                    node = node.right;
+                } else {
+                    node = node.left;
+                }
+            }
+            return count;
+        }
+
+        /** First n entries in rank order — O(log P + n), stops as soon as n are collected. */
+        List<ScoreEntry> top(int n) {
+            List<ScoreEntry> result = new ArrayList<>(Math.min(n, size()));
+            ArrayDeque<Node> stack = new ArrayDeque<>();
+            Node node = root;
+            while ((node != null || !stack.isEmpty()) && result.size() < n) {
+                while (node != null) {
+                    stack.push(node);
+                    node = node.left;
+                }
+                node = stack.pop();
+                result.add(new ScoreEntry(node.player, node.score));
+                node = node.right;
+            }
+            return result;
+        }
+
+        // ── treap internals ──────────────────────────────────────────────────
+
+        private static int compare(String playerA, int scoreA, Node b) {
+            if (scoreA != b.score) {
+                return scoreA > b.score ? -1 : 1;      // higher score sorts first
+            }
+            return playerA.compareTo(b.player);        // stable tie-break by name
+        }
+
+        private static Node insert(Node node, Node added) {
+            if (node == null) {
+                return added;
+            }
+            if (compare(added.player, added.score, node) < 0) {
+                node.left = insert(node.left, added);
+                if (node.left.priority > node.priority) {
+                    node = rotateRight(node);
+                }
+            } else {
+                node.right = insert(node.right, added);
+                if (node.right.priority > node.priority) {
+                    node = rotateLeft(node);
+                }
+            }
+            return update(node);
+        }
+
+        private static Node remove(Node node, String player, int score) {
+            if (node == null) {
+                return null;
+            }
+            int cmp = compare(player, score, node);
+            if (cmp == 0) {
+                return merge(node.left, node.right);
+            }
+            if (cmp < 0) {
+                node.left = remove(node.left, player, score);
+            } else {
+                node.right = remove(node.right, player, score);
+            }
+            return update(node);
+        }
+
+        // Joins two treaps where every key in `a` sorts before every key in `b`
+        private static Node merge(Node a, Node b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            if (a.priority > b.priority) {
+                a.right = merge(a.right, b);
+                return update(a);
+            }
+            b.left = merge(a, b.left);
+            return update(b);
+        }
+
+        private static Node rotateRight(Node node) {
+            Node pivot = node.left;
+            node.left   = pivot.right;
+            pivot.right = update(node);
+            return pivot;
+        }
+
+        private static Node rotateLeft(Node node) {
+            Node pivot = node.right;
+            node.right = pivot.left;
+            pivot.left = update(node);
+            return pivot;
+        }
+
+        private static Node update(Node node) {
+            node.size = 1 + size(node.left) + size(node.right);
+            return node;
+        }
+
+        private static int size(Node node) {
+            return node == null ? 0 : node.size;
+        }
+
+        // xorshift — cheap, and only ever called under the stripe's write lock
+        private int nextPriority() {
+            seed ^= seed << 13;
+            seed ^= seed >>> 17;
+            seed ^= seed << 5;
+            return seed;
+        }
+    }
+
+    // =========================================================================
+    // LeaderboardEngine — the thread-safe state behind the singleton
+    // Not a singleton itself, so tests and other boards can create their own.
+    // =========================================================================
+
+    static final class LeaderboardEngine {
+
+        static final int DEFAULT_STRIPES = 16;
+
+        private final int stripeCount;                           // power of two
+
+        // A player's best score. The CAS on the AtomicInteger decides the max;
+        // `indexed` is the score currently in the player's stripe and is only
+        // touched under that stripe's write lock.
+        private static final class Cell extends AtomicInteger {
+            private static final long serialVersionUID = 1L;   // AtomicInteger is Serializable; Cell never is written
+
+            int indexed = -1;
+
+            Cell(int score) { super(score); }
+        }
+
+        private static final class Stripe {
+            final RankIndex              index = new RankIndex();
+            final ReentrantReadWriteLock lock  = new ReentrantReadWriteLock();
+        }
+
+        // Scores and their rank stripes are swapped together by reset().
+        private static final class State {
+            final ConcurrentHashMap<String, Cell> scores = new ConcurrentHashMap<>();
+            final Stripe[] stripes;
+
+            State(int count) {
+                stripes = new Stripe[count];
+                for (int i = 0; i < count; i++) {
+                    stripes[i] = new Stripe();
+                }
+            }
+
+            Stripe stripeFor(String player) {
+                int h = player.hashCode();
+                return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+            }
+        }
+
+        // volatile: reset() publishes a brand-new State; readers pick it up on next access
+        private volatile State state;
+
+        LeaderboardEngine() {
+            this(DEFAULT_STRIPES);
+        }
+
+        /**
+         * An engine whose rank index is split into {@code stripes} treaps (rounded up to a
+         * power of two). Callers that already spread players over several engines pass 1.
+         */
+        LeaderboardEngine(int stripes) {
+            if (stripes < 1) {
+                throw new IllegalArgumentException("stripes must be >= 1, got: " + stripes);
+            }
+            this.stripeCount = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+            this.state       = new State(stripeCount);
+        }
+
+        /**
+         * Records a submission, keeping the higher of the stored and submitted score.
+         *
+         * @return true if the stored score changed (new player or improvement)
+         */
+        boolean recordScore(String player, int score) {
+            requirePlayer(player);
+            if (score < 0) {
+                throw new IllegalArgumentException("score must be >= 0, got: " + score);
+            }
+
+            State current = state;
+
+            // Lock-free fast path: a submission that does not beat the stored
+            // score is the common case once a board warms up — it only reads.
+            Cell cell = current.scores.get(player);
+            if (cell == null) {
+                Cell added = new Cell(score);
+                cell = current.scores.putIfAbsent(player, added);
+                if (cell == null) {
+                    reindex(current, player, added);
+                    return true;
+                }
+            }
+            while (true) {
+                int previous = cell.get();
+                if (previous >= score) {
+                    return false;                // includes "another thread got there first"
+                }
+                if (cell.compareAndSet(previous, score)) {
+                    reindex(current, player, cell);
+                    return true;
+                }
+            }
+        }
+
+        // Moves the player's stripe entry to the cell's value at lock time. Every
+        // CAS winner calls this after its CAS, so the last one to lock leaves the
+        // index at the final score even if winners lock out of order.
+        private static void reindex(State current, String player, Cell cell) {
+            Stripe stripe = current.stripeFor(player);
+            stripe.lock.writeLock().lock();
+            try {
+                int latest = cell.get();
+                if (cell.indexed == latest) {
+                    return;
+                }
+                if (cell.indexed >= 0) {
+                    stripe.index.remove(player, cell.indexed);
+                }
+                stripe.index.insert(player, latest);
+                cell.indexed = latest;
+            } finally {
+                stripe.lock.writeLock().unlock();
+            }
+        }
+
+        int getScore(String player) {
+            requirePlayer(player);
+            AtomicInteger cell = state.scores.get(player);
+            if (cell == null) {
+                throw new NoSuchElementException("Player not found: " + player);
+            }
+            return cell.get();
+        }
+
+        boolean hasPlayer(String player) {
+            requirePlayer(player);
+            return state.scores.containsKey(player);
+        }
+
+        /** Top n players by score — O(stripes · (log P + n)) stripe walks, no sorting of every player. */
+        List<String> getTopPlayers(int n) {
+            List<ScoreEntry> entries = getTopEntries(n);
+            List<String> top = new ArrayList<>(entries.size());
+            for (ScoreEntry entry : entries) {
+                top.add(entry.getPlayer());
+            }
+            return Collections.unmodifiableList(top);
+        }
+
+        /**
+         * Same walk as getTopPlayers, but keeps the scores — needed to merge several engines.
+         * Each stripe is read under its own lock, so the result is consistent per stripe.
+         */
+        List<ScoreEntry> getTopEntries(int n) {
+            if (n <= 0) {
+                throw new IllegalArgumentException("n must be >= 1, got: " + n);
+            }
+            State current = state;
+            List<List<ScoreEntry>> perStripe = new ArrayList<>(current.stripes.length);
+            for (Stripe stripe : current.stripes) {
+                stripe.lock.readLock().lock();
+                try {
+                    perStripe.add(stripe.index.top(n));
+                } finally {
+                    stripe.lock.readLock().unlock();
+                }
+            }
+            // n-way merge by (score DESC, player ASC), the same order as each stripe
+            int[] next = new int[current.stripes.length];
+            List<ScoreEntry> merged = new ArrayList<>();
+            while (merged.size() < n) {
+                int best = -1;
+                for (int i = 0; i < next.length; i++) {
+                    if (next[i] == perStripe.get(i).size()) continue;
+                    ScoreEntry candidate = perStripe.get(i).get(next[i]);
+                    if (best < 0 || ranksAhead(candidate, perStripe.get(best).get(next[best]))) {
+                        best = i;
+                    }
+                }
+                if (best < 0) break;
+                merged.add(perStripe.get(best).get(next[best]++));
+            }
+            return Collections.unmodifiableList(merged);
+        }
+
+        /** Number of players on this engine with a score strictly above {@code score}. */
+        int countHigherThan(int score) {
+            int count = 0;
+            for (Stripe stripe : state.stripes) {
+                stripe.lock.readLock().lock();
+                try {
+                    count += stripe.index.countHigherThan(score);
+                } finally {
+                    stripe.lock.readLock().unlock();
+                }
+            }
+            return count;
+        }
+
+        /**
+         * 1-based competition rank ("1224"): players on equal scores share a rank.
+         * O(1) score lookup plus an O(log P) walk of each stripe.
+         */
+        int getRank(String player) {
+            return countHigherThan(getScore(player)) + 1;
+        }
+
+        int getPlayerCount() {
+            return state.scores.size();
+        }
+
+        /** Visits every (player, score) pair — weakly consistent, like ConcurrentHashMap iteration. */
+        void forEachScore(ObjIntConsumer<String> action) {
+            state.scores.forEach((player, cell) -> action.accept(player, cell.get()));
+        }
+
+        void reset() {
+            state = new State(stripeCount);
+        }
+
+        private static boolean ranksAhead(ScoreEntry a, ScoreEntry b) {
+            if (a.getScore() != b.getScore()) {
+                return a.getScore() > b.getScore();
+            }
+            return a.getPlayer().compareTo(b.getPlayer()) < 0;
+        }
+
+        private static void requirePlayer(String player) {
+            if (player == null || player.isBlank()) {
+                throw new IllegalArgumentException("player must not be null or blank");
+            }
+        }
+    }
+
+    // =========================================================================
+    // ConcurrentGameScoreBoard — same Singleton shell as the exercise,
+    // every call delegates to the engine
+    // =========================================================================
+
+    static final class ConcurrentGameScoreBoard {
+
+        private static volatile ConcurrentGameScoreBoard instance;
+
+        private final LeaderboardEngine engine;
+        private final long boardCreatedAt;
+
+        private ConcurrentGameScoreBoard() {
+            if (instance != null) {
+                throw new IllegalStateException("Use getInstance()");
+            }
+            this.engine         = new LeaderboardEngine();
+            this.boardCreatedAt = System.currentTimeMillis();
+        }
+
+        public static ConcurrentGameScoreBoard getInstance() {
+            if (instance == null) {
+                synchronized (ConcurrentGameScoreBoard.class) {
+                    if (instance == null) {
+                        instance = new ConcurrentGameScoreBoard();
+                    }
+                }
+            }
+            return instance;
+        }
+
+        public boolean      recordScore(String player, int score) { return engine.recordScore(player, score); }
+        public int          getScore(String player)               { return engine.getScore(player); }
+        public boolean      hasPlayer(String player)              { return engine.hasPlayer(player); }
+        public List<String> getTopPlayers(int n)                  { return engine.getTopPlayers(n); }
+        public int          getRank(String player)                { return engine.getRank(player); }
+        public int          getPlayerCount()                      { return engine.getPlayerCount(); }
+        public void         reset()                               { engine.reset(); }
+        public long         getUptimeMillis()                     { return System.currentTimeMillis() - boardCreatedAt; }
+    }
+
+    // =========================================================================
+    // Main — functional checks, then a multi-threaded stress test
+    // =========================================================================
+
+    public static void main(String[] args) throws InterruptedException {
+
+        System.out.println("═══ Test 1: Singleton + max-score rule ══════════════════");
+        ConcurrentGameScoreBoard board = ConcurrentGameScoreBoard.getInstance();
+        board.recordScore("Alice", 1500);
+        board.recordScore("Bob",   1200);
+        board.recordScore("Alice", 900);    // lower — ignored
+        board.recordScore("Bob",   2000);   // higher — kept
+        boolean t1 = board == ConcurrentGameScoreBoard.getInstance()
+                  && board.getScore("Alice") == 1500
+                  && board.getScore("Bob") == 2000
+                  && board.getTopPlayers(5).equals(List.of("Bob", "Alice"));
+        System.out.println("Alice=" + board.getScore("Alice") + ", Bob=" + board.getScore("Bob")
+                + ", top=" + board.getTopPlayers(5));
+        System.out.println("Test 1 " + (t1 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 2: reset() keeps the singleton ═════════════════");
+        board.reset();
+        boolean t2 = board.getPlayerCount() == 0 && !board.hasPlayer("Alice");
+        System.out.println("Player count after reset: " + board.getPlayerCount());
+        System.out.println("Test 2 " + (t2 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 3: Stress — no lost updates under contention ═══");
+        int threads        = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int perThread      = 2_000_000;
+        int playerCount    = 10_000;
+        LeaderboardEngine engine = new LeaderboardEngine();
+
+        String[] players = new String[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            players[i] = "player-" + i;
+        }
+
+        // Each worker remembers the best score it submitted per player; the
+        // engine must end up holding the max across all workers.
+        int[][] bestPerThread = new int[threads][playerCount];
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done  = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int[] best = bestPerThread[t];
+            Arrays.fill(best, -1);
+            SplittableRandom random = new SplittableRandom(42L + t);
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        int p     = random.nextInt(playerCount);
+                        int score = random.nextInt(1_000_000);
+                        engine.recordScore(players[p], score);
+                        if (score > best[p]) {
+                            best[p] = score;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "writer-" + t).start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsedNanos = System.nanoTime() - begin;
+
+        int mismatches = 0;
+        for (int p = 0; p < playerCount; p++) {
+            int expected = -1;
+            for (int t = 0; t < threads; t++) {
+                expected = Math.max(expected, bestPerThread[t][p]);
+            }
+            if (expected >= 0 && engine.getScore(players[p]) != expected) {
+                mismatches++;
+            }
+        }
+
+        long total = (long) threads * perThread;
+        double perSecond = total / (elapsedNanos / 1_000_000_000.0);
+        System.out.printf("Threads: %d, submissions: %,d, elapsed: %,d ms%n",
+                threads, total, elapsedNanos / 1_000_000);
+        System.out.printf("Throughput: %,.0f submissions/s%n", perSecond);
+        System.out.println("Players with lost updates: " + mismatches);
+        System.out.println("Test 3 " + (mismatches == 0 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 4: Rank index consistent after stress ══════════");
+        List<String> leaders = engine.getTopPlayers(playerCount);
+        boolean ordered = leaders.size() == engine.getPlayerCount();
+        for (int i = 1; i < leaders.size() && ordered; i++) {
+            ordered = engine.getScore(leaders.get(i - 1)) >= engine.getScore(leaders.get(i));
+        }
+        boolean leaderRanked = engine.getRank(leaders.get(0)) == 1;
+        System.out.println("Index size: " + leaders.size() + ", players: " + engine.getPlayerCount());
+        System.out.println("Test 4 " + (ordered && leaderRanked ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 5: getRank — equal scores share a rank ═════════");
+        LeaderboardEngine small = new LeaderboardEngine();
+        small.recordScore("Alice", 300);
+        small.recordScore("Bob",   500);
+        small.recordScore("Carol", 300);
+        small.recordScore("Dave",  100);
+        small.recordScore("Dave",  400);   // improvement re-positions Dave in the index
+        System.out.println("Ranks: Bob=" + small.getRank("Bob") + ", Dave=" + small.getRank("Dave")
+                + ", Alice=" + small.getRank("Alice") + ", Carol=" + small.getRank("Carol"));
+        boolean t5 = small.getRank("Bob") == 1 && small.getRank("Dave") == 2
+                  && small.getRank("Alice") == 3 && small.getRank("Carol") == 3
+                  && small.getTopPlayers(3).equals(List.of("Bob", "Dave", "Alice"));
+        System.out.println("Test 5 " + (t5 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 6: Top-10 at 1M players — index vs full sort ═══");
+        LeaderboardEngine large = new LeaderboardEngine();
+        Map<String, Integer> plain = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 1_000_000; i++) {
+            String player = "p" + i;
+            int score = random.nextInt(10_000_000);
+            large.recordScore(player, score);
+            plain.put(player, score);
+        }
+        int refreshes = 20;
+        List<String> fromIndex = null;
+        long indexStart = System.nanoTime();
+        for (int i = 0; i < refreshes; i++) {
+            fromIndex = large.getTopPlayers(10);
+        }
+        long indexNanos = (System.nanoTime() - indexStart) / refreshes;
+
+        List<Map.Entry<String, Integer>> sorted = null;
+        long sortStart = System.nanoTime();
+        for (int i = 0; i < refreshes; i++) {
+            // what getTopNKeys does today: stream + full sort of every entry
+            sorted = plain.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .limit(10)
+                    .toList();
+        }
+        long sortNanos = (System.nanoTime() - sortStart) / refreshes;
+
+        boolean sameScores = true;
+        for (int i = 0; i < 10; i++) {
+            sameScores &= large.getScore(fromIndex.get(i)) == sorted.get(i).getValue();
+        }
+        System.out.printf("Rank index: %,d µs per refresh%n", indexNanos / 1_000);
+        System.out.printf("Full sort : %,d µs per refresh%n", sortNanos / 1_000);
+        System.out.println("Test 6 " + (sameScores ? "PASSED" : "FAILED"));
+    }
+}
@@ -0,0 +1,573 @@
+package com.ramkumar.lld.designpatterns.creational.singleton.code;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scenario G: Hot-Reloadable Configuration Store
+ *
+ * DCLConfig, HolderConfig and EnumConfig make the INSTANCE creation thread-safe,
+ * but the HashMap inside each one is not: set() mutates it while other threads
+ * call get(), which is a data race (a resize can even make get() miss keys that
+ * are present). Nor can they pick up a changed config file without a restart.
+ *
+ * ConfigStore fixes both with copy-on-write publication:
+ *
+ *   - All values live in an immutable Snapshot held by ONE volatile field.
+ *   - get() = one volatile read + one lookup in an immutable map. No lock,
+ *     no allocation, and a reader always sees a complete, consistent snapshot.
+ *   - set() / replaceAll() / reload build a NEW snapshot off to the side and
+ *     swap the reference. Writers serialize on a lock; readers never wait.
+ *   - Listeners get a ConfigChange (old snapshot, new snapshot, changed keys)
+ *     after each publication, in publication order.
+ *   - watch(file, interval) polls the file's modification time and reloads
+ *     it — a bad file is reported and the last good snapshot stays live.
+ *   - getInt / getLong / getBoolean / getDuration return values parsed once
+ *     when the snapshot is built, instead of parsing a String on every call.
+ *
+ * Config is read millions of times and written a handful of times a day,
+ * which is exactly the workload copy-on-write is built for.
+ */
+public class ConfigStoreDemo {
+
+    // =========================================================================
+    // TypedValue — one config value, parsed once into every form it supports
+    // =========================================================================
+
+    static final class TypedValue {
+
+        final String   raw;
+        final boolean  isLong;
+        final long     longValue;
+        final boolean  isBoolean;
+        final boolean  booleanValue;
+        final Duration duration;          // null when the value is not a duration
+
+        TypedValue(String raw) {
+            this.raw = raw;
+            String trimmed = raw.trim();
+
+            long parsed = 0;
+            boolean numeric;
+            try {
+                parsed  = Long.parseLong(trimmed);
+                numeric = true;
+            } catch (NumberFormatException e) {
+                numeric = false;
+            }
+            this.isLong    = numeric;
+            this.longValue = parsed;
+
+            // Strict: anything other than true/false is not a boolean (unlike Boolean.parseBoolean)
+            this.isBoolean    = trimmed.equalsIgnoreCase("true") || trimmed.equalsIgnoreCase("false");
+            this.booleanValue = trimmed.equalsIgnoreCase("true");
+
+            this.duration = parseDuration(trimmed);
+        }
+
+        // Accepts ISO-8601 ("PT30S") or a number with a unit suffix: ms, s, m, h, d.
+        // A bare number is NOT a duration — its unit would be a guess.
+        private static Duration parseDuration(String text) {
+            if (text.isEmpty()) {
+                return null;
+            }
+            if (text.charAt(0) == 'P' || text.charAt(0) == 'p') {
+                try {
+                    return Duration.parse(text);
+                } catch (DateTimeParseException e) {
+                    return null;
+                }
+            }
+            int unitStart = 0;
+            while (unitStart < text.length() && Character.isDigit(text.charAt(unitStart))) {
+                unitStart++;
+            }
+            if (unitStart == 0 || unitStart == text.length()) {
+                return null;
+            }
+            long amount;
+            try {
+                amount = Long.parseLong(text.substring(0, unitStart));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            try {
+                switch (text.substring(unitStart).trim().toLowerCase()) {
+                    case "ms": return Duration.ofMillis(amount);
+                    case "s":  return Duration.ofSeconds(amount);
+                    case "m":  return Duration.ofMinutes(amount);
+                    case "h":  return Duration.ofHours(amount);
+                    case "d":  return Duration.ofDays(amount);
+                    default:   return null;
+                }
+            } catch (ArithmeticException e) {
+                return null;                          // too large for a Duration, e.g. "999999999999999d"
+            }
+        }
+    }
+
+    // =========================================================================
+    // Snapshot — immutable; safe to hand to any thread
+    // Typed forms are parsed once here, when the snapshot is published, so the
+    // typed getters never parse, box or allocate.
+    // =========================================================================
+
+    static final class Snapshot {
+
+        private final Map<String, String>     values;
+        private final Map<String, TypedValue> typed;
+        private final long version;
+
+        Snapshot(Map<String, String> values, long version) {
+            this.values  = Map.copyOf(values);      // immutable, null-hostile
+            this.version = version;
+            Map<String, TypedValue> parsed = new HashMap<>();
+            for (Map.Entry<String, String> e : this.values.entrySet()) {
+                parsed.put(e.getKey(), new TypedValue(e.getValue()));
+            }
+            this.typed = Map.copyOf(parsed);
+        }
+
+        String              get(String key)   { return values.get(key); }
+        TypedValue          typed(String key) { return typed.get(key); }
+        Map<String, String> asMap()           { return values; }
+        long                version()         { return version; }
+    }
+
+    // =========================================================================
+    // ConfigChange + listener
+    // =========================================================================
+
+    static final class ConfigChange {
+
+        private final Snapshot    previous;
+        private final Snapshot    current;
+        private final Set<String> changedKeys;
+
+        ConfigChange(Snapshot previous, Snapshot current) {
+            this.previous = previous;
+            this.current  = current;
+            Set<String> keys = new LinkedHashSet<>();
+            for (Map.Entry<String, String> e : current.asMap().entrySet()) {
+                if (!e.getValue().equals(previous.get(e.getKey()))) {
+                    keys.add(e.getKey());                 // added or modified
+                }
+            }
+            for (String key : previous.asMap().keySet()) {
+                if (current.get(key) == null) {
+                    keys.add(key);                        // removed
+                }
+            }
+            this.changedKeys = Collections.unmodifiableSet(keys);
+        }
+
+        Snapshot    previous()    { return previous; }
+        Snapshot    current()     { return current; }
+        Set<String> changedKeys() { return changedKeys; }
+    }
+
+    @FunctionalInterface
+    interface ConfigChangeListener {
+        void onChange(ConfigChange change);
+    }
+
+    // =========================================================================
+    // ConfigStore
+    // =========================================================================
+
+    static final class ConfigStore {
+
+        // The single publication point. Readers load it once per call.
+        private volatile Snapshot snapshot;
+
+        private final Object writeLock = new Object();
+        private final List<ConfigChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+        ConfigStore(Map<String, String> initial) {
+            this.snapshot = new Snapshot(initial, 1);
+        }
+
+        /** Builds a store from a .properties file. */
+        static ConfigStore fromFile(Path file) throws IOException {
+            return new ConfigStore(readProperties(file));
+        }
+
+        // ── reads: lock-free, allocation-free ────────────────────────────────
+
+        String get(String key) {
+            return snapshot.get(key);
+        }
+
+        String get(String key, String defaultValue) {
+            String value = snapshot.get(key);
+            return value != null ? value : defaultValue;
+        }
+
+        /** The current snapshot's map — already immutable, so no defensive copy. */
+        Map<String, String> getAll() {
+            return snapshot.asMap();
+        }
+
+        Snapshot snapshot() {
+            return snapshot;
+        }
+
+        // ── typed reads: served from the snapshot's pre-parsed values ────────
+        // Missing key → NoSuchElementException (or the default, where given).
+        // Present but malformed → IllegalArgumentException, default or not:
+        // a typo in config should be loud, not silently replaced.
+
+        int getInt(String key) {
+            return toInt(key, require(key));
+        }
+
+        int getInt(String key, int defaultValue) {
+            TypedValue value = snapshot.typed(key);
+            return value == null ? defaultValue : toInt(key, value);
+        }
+
+        long getLong(String key) {
+            return toLong(key, require(key));
+        }
+
+        long getLong(String key, long defaultValue) {
+            TypedValue value = snapshot.typed(key);
+            return value == null ? defaultValue : toLong(key, value);
+        }
+
+        boolean getBoolean(String key) {
+            return toBoolean(key, require(key));
+        }
+
+        boolean getBoolean(String key, boolean defaultValue) {
+            TypedValue value = snapshot.typed(key);
+            return value == null ? defaultValue : toBoolean(key, value);
+        }
+
+        Duration getDuration(String key) {
+            return toDuration(key, require(key));
+        }
+
+        Duration getDuration(String key, Duration defaultValue) {
+            TypedValue value = snapshot.typed(key);
+            return value == null ? defaultValue : toDuration(key, value);
+        }
+
+        private TypedValue require(String key) {
+            TypedValue value = snapshot.typed(key);
+            if (value == null) {
+                throw new NoSuchElementException("Missing config key: " + key);
+            }
+            return value;
+        }
+
+        private static int toInt(String key, TypedValue value) {
+            if (!value.isLong || value.longValue != (int) value.longValue) {
+                throw new IllegalArgumentException("Not an int: " + key + "=" + value.raw);
+            }
+            return (int) value.longValue;
+        }
+
+        private static long toLong(String key, TypedValue value) {
+            if (!value.isLong) {
+                throw new IllegalArgumentException("Not a long: " + key + "=" + value.raw);
+            }
+            return value.longValue;
+        }
+
+        private static boolean toBoolean(String key, TypedValue value) {
+            if (!value.isBoolean) {
+                throw new IllegalArgumentException("Not a boolean: " + key + "=" + value.raw);
+            }
+            return value.booleanValue;
+        }
+
+        private static Duration toDuration(String key, TypedValue value) {
+            if (value.duration == null) {
+                throw new IllegalArgumentException(
+                        "Not a duration (use e.g. 30s, 500ms or PT1M): " + key + "=" + value.raw);
+            }
+            return value.duration;
+        }
+
+        // ── writes: copy-on-write, serialized ────────────────────────────────
+
+        void set(String key, String value) {
+            Objects.requireNonNull(key, "key");
+            Objects.requireNonNull(value, "value");
+            synchronized (writeLock) {
+                if (value.equals(snapshot.get(key))) {
+                    return;                                // no-op writes do not notify
+                }
+                Map<String, String> next = new HashMap<>(snapshot.asMap());
+                next.put(key, value);
+                publish(next);
+            }
+        }
+
+        void remove(String key) {
+            synchronized (writeLock) {
+                if (snapshot.get(key) == null) {
+                    return;
+                }
+                Map<String, String> next = new HashMap<>(snapshot.asMap());
+                next.remove(key);
+                publish(next);
+            }
+        }
+
+        /** Replaces every value at once — one snapshot, one notification. */
+        void replaceAll(Map<String, String> values) {
+            synchronized (writeLock) {
+                if (values.equals(snapshot.asMap())) {
+                    return;
+                }
+                publish(values);
+            }
+        }
+
+        void reloadFrom(Path file) throws IOException {
+            replaceAll(readProperties(file));
+        }
+
+        void addListener(ConfigChangeListener listener)    { listeners.add(Objects.requireNonNull(listener)); }
+        void removeListener(ConfigChangeListener listener) { listeners.remove(listener); }
+
+        // Called with writeLock held, so listeners observe changes in publication order.
+        // A failing listener must not stop the others or undo the publication.
+        private void publish(Map<String, String> values) {
+            Snapshot previous = snapshot;
+            Snapshot current  = new Snapshot(values, previous.version() + 1);
+            snapshot = current;
+            ConfigChange change = new ConfigChange(previous, current);
+            for (ConfigChangeListener listener : listeners) {
+                try {
+                    listener.onChange(change);
+                } catch (RuntimeException e) {
+                    System.err.println("[ConfigStore] listener failed: " + e);
+                }
+            }
+        }
+
+        // ── file watching ────────────────────────────────────────────────────
+
+        /**
+         * Polls {@code file} every {@code interval} and reloads it when its
+         * modification time or size changes. Close the returned handle to stop.
+         */
+        AutoCloseable watch(Path file, Duration interval) {
+            ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "config-watch-" + file.getFileName());
+                t.setDaemon(true);
+                return t;
+            });
+            Object[] seen = {stamp(file)};
+            poller.scheduleWithFixedDelay(() -> {
+                try {
+                    Object now = stamp(file);
+                    if (now.equals(seen[0])) {
+                        return;
+                    }
+                    reloadFrom(file);
+                    seen[0] = now;
+                } catch (IOException | RuntimeException e) {
+                    // Keep serving the last good snapshot; retry on the next tick.
+                    // Letting it escape would cancel every later poll without a word.
+                    System.err.println("[ConfigStore] reload of " + file + " failed: " + e.getMessage());
+                }
+            }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+            return poller::shutdownNow;
+        }
+
+        private static Object stamp(Path file) {
+            try {
+                FileTime modified = Files.getLastModifiedTime(file);
+                return modified.toMillis() + ":" + Files.size(file);
+            } catch (IOException e) {
+                return "missing";
+            }
+        }
+
+        private static Map<String, String> readProperties(Path file) throws IOException {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            Map<String, String> values = new HashMap<>();
+            for (String name : properties.stringPropertyNames()) {
+                values.put(name, properties.getProperty(name));
+            }
+            return values;
+        }
+    }
+
+    // =========================================================================
+    // Main
+    // =========================================================================
+
+    public static void main(String[] args) throws Exception {
+
+        System.out.println("═══ Test 1: Copy-on-write set() publishes a new snapshot ═");
+        ConfigStore store = new ConfigStore(Map.of("app.name", "Demo", "db.pool.size", "10"));
+        Snapshot before = store.snapshot();
+        store.set("db.pool.size", "20");
+        boolean t1 = "10".equals(before.get("db.pool.size"))          // old snapshot untouched
+                  && "20".equals(store.get("db.pool.size"))
+                  && store.snapshot().version() == before.version() + 1;
+        System.out.println("old=" + before.get("db.pool.size") + ", new=" + store.get("db.pool.size")
+                + ", version=" + store.snapshot().version());
+        System.out.println("Test 1 " + (t1 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 2: Listener sees exactly the changed keys ══════");
+        BlockingQueue<ConfigChange> changes = new ArrayBlockingQueue<>(16);
+        store.addListener(changes::add);
+        store.replaceAll(Map.of("app.name", "Demo", "db.pool.size", "32", "feature.x", "on"));
+        ConfigChange change = changes.poll(1, TimeUnit.SECONDS);
+        System.out.println("Changed keys: " + (change == null ? null : change.changedKeys()));
+        boolean t2 = change != null && change.changedKeys().equals(Set.of("db.pool.size", "feature.x"));
+        System.out.println("Test 2 " + (t2 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 3: File hot reload ═════════════════════════════");
+        Path file = Files.createTempFile("app", ".properties");
+        Files.writeString(file, "app.name=FromFile\ncache.ttl.seconds=3600\n");
+        ConfigStore fileStore = ConfigStore.fromFile(file);
+        BlockingQueue<ConfigChange> reloads = new ArrayBlockingQueue<>(16);
+        fileStore.addListener(reloads::add);
+        AutoCloseable watcher = fileStore.watch(file, Duration.ofMillis(20));
+        boolean t3;
+        try {
+            Thread.sleep(50);
+            Files.writeString(file, "app.name=FromFile\ncache.ttl.seconds=60\nnew.key=yes\n");
+            ConfigChange reload = reloads.poll(5, TimeUnit.SECONDS);
+            System.out.println("Reloaded keys: " + (reload == null ? null : reload.changedKeys()));
+            t3 = reload != null && "60".equals(fileStore.get("cache.ttl.seconds"))
+                    && "yes".equals(fileStore.get("new.key"));
+            // A duration too large for java.time must not stop the watcher
+            Files.writeString(file, "app.name=FromFile\ncache.ttl.seconds=60\nnew.key=yes\nretention=9999999999999999d\n");
+            Files.writeString(file, "app.name=Renamed\ncache.ttl.seconds=60\nnew.key=yes\nretention=9999999999999999d\n");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!"Renamed".equals(fileStore.get("app.name")) && System.nanoTime() < deadline) {
+                reloads.poll(100, TimeUnit.MILLISECONDS);
+            }
+            System.out.println("After an oversized duration: app.name=" + fileStore.get("app.name"));
+            t3 &= "Renamed".equals(fileStore.get("app.name"));
+        } finally {
+            watcher.close();
+        }
+        Files.deleteIfExists(file);
+        System.out.println("Test 3 " + (t3 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 4: Readers never see a torn snapshot ═══════════");
+        // Writer keeps "a" and "b" equal in every snapshot; readers check that
+        // a single snapshot never mixes values from two different writes.
+        ConfigStore pair = new ConfigStore(Map.of("a", "0", "b", "0"));
+        int[] torn = {0};
+        Thread[] readers = new Thread[4];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                for (int n = 0; n < 2_000_000; n++) {
+                    Snapshot s = pair.snapshot();
+                    if (!s.get("a").equals(s.get("b"))) {
+                        synchronized (torn) { torn[0]++; }
+                    }
+                }
+            });
+            readers[i].start();
+        }
+        for (int v = 1; v <= 10_000; v++) {
+            pair.replaceAll(Map.of("a", Integer.toString(v), "b", Integer.toString(v)));
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        System.out.println("Torn reads: " + torn[0]);
+        System.out.println("Test 4 " + (torn[0] == 0 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 5: Typed accessors ══════════════════════════════");
+        ConfigStore typed = new ConfigStore(Map.of(
+                "db.pool.size", "10",
+                "cache.max.bytes", "8589934592",
+                "feature.darkMode", "TRUE",
+                "http.timeout", "1500ms",
+                "session.ttl", "PT30M",
+                "app.name", "Demo"));
+        boolean t5 = typed.getInt("db.pool.size") == 10
+                  && typed.getLong("cache.max.bytes") == 8_589_934_592L
+                  && typed.getBoolean("feature.darkMode")
+                  && typed.getDuration("http.timeout").equals(Duration.ofMillis(1500))
+                  && typed.getDuration("session.ttl").equals(Duration.ofMinutes(30))
+                  && typed.getInt("missing", 7) == 7;
+        try {
+            typed.getInt("app.name");
+            t5 = false;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Caught: " + e.getMessage());
+        }
+        try {
+            typed.getInt("cache.max.bytes");            // fits a long, not an int
+            t5 = false;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Caught: " + e.getMessage());
+        }
+        typed.set("retention", "9999999999999999d");   // overflows Duration: stored, just not a duration
+        try {
+            typed.getDuration("retention");
+            t5 = false;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Caught: " + e.getMessage());
+        }
+        typed.set("db.pool.size", "32");               // new snapshot → re-parsed once
+        t5 &= typed.getInt("db.pool.size") == 32;
+        System.out.println("Test 5 " + (t5 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Benchmark: getInt vs parsing get() each call ════════");
+        int iterations = 20_000_000;
+        long sink = 0;
+        for (int round = 0; round < 3; round++) {          // first rounds warm up the JIT
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += Integer.parseInt(typed.get("db.pool.size"));
+            }
+            long parseNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += typed.getInt("db.pool.size");
+            }
+            long typedNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += typed.getDuration("http.timeout").toMillis();
+            }
+            long durationNanos = System.nanoTime() - start;
+
+            System.out.printf("round %d: parseInt(get) %.1f ns/op, getInt %.1f ns/op, getDuration %.1f ns/op%n",
+                    round + 1, (double) parseNanos / iterations, (double) typedNanos / iterations,
+                    (double) durationNanos / iterations);
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+
+}
@@ -0,0 +1,344 @@
+package com.ramkumar.lld.designpatterns.creational.singleton.code;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Scenario H: Layered Configuration Resolved Once at Startup
+ *
+ * EagerConfig hardcodes its values in the constructor, so the only way to
+ * change a port is to recompile. Services normally stack several sources,
+ * each overriding the one before it:
+ *
+ *   defaults  →  .properties file  →  environment  →  system properties
+ *   (lowest)                                           (highest)
+ *
+ * LayeredConfigSource loads the layers in that order ONCE and flattens them
+ * into an immutable ResolvedConfig. After that, a lookup is a single map read
+ * — no walking the layers, no System.getenv() on the request path.
+ *
+ *   - Sections ("db", "cache", …) are views of the keys under a prefix. They
+ *     are built on first use and cached, so unused sections cost nothing.
+ *   - Every key remembers which layer supplied it, which answers the usual
+ *     "why is the port 9090?" question.
+ *   - A LoadReport records how long each layer took and how many keys it
+ *     supplied or overrode, so slow startup sources are easy to find.
+ *
+ * Naming: environment variables use the prefix + upper snake case
+ * (APP_DB_POOL_SIZE → db.pool.size); system properties use the prefix + the
+ * dotted key (-Dapp.db.pool.size=50 → db.pool.size).
+ */
+public class LayeredConfigDemo {
+
+    // =========================================================================
+    // Layer — one named source of key/value pairs
+    // =========================================================================
+
+    static final class Layer {
+
+        @FunctionalInterface
+        interface Loader {
+            Map<String, String> load() throws IOException;
+        }
+
+        private final String name;
+        private final Loader loader;
+
+        Layer(String name, Loader loader) {
+            this.name   = name;
+            this.loader = loader;
+        }
+
+        String              name()                    { return name; }
+        Map<String, String> load() throws IOException { return loader.load(); }
+    }
+
+    // =========================================================================
+    // LayerTiming + LoadReport — startup instrumentation
+    // =========================================================================
+
+    static final class LayerTiming {
+        final String name;
+        final long   nanos;
+        final int    keys;         // keys this layer supplied
+        final int    overrides;    // of those, how many replaced a lower layer's value
+
+        LayerTiming(String name, long nanos, int keys, int overrides) {
+            this.name      = name;
+            this.nanos     = nanos;
+            this.keys      = keys;
+            this.overrides = overrides;
+        }
+    }
+
+    static final class LoadReport {
+
+        private final List<LayerTiming> layers;
+        private final long totalNanos;
+
+        LoadReport(List<LayerTiming> layers, long totalNanos) {
+            this.layers     = Collections.unmodifiableList(layers);
+            this.totalNanos = totalNanos;
+        }
+
+        List<LayerTiming> layers()     { return layers; }
+        long              totalNanos() { return totalNanos; }
+
+        @Override
+        public String toString() {
+            int width = "layer".length();
+            for (LayerTiming t : layers) {
+                width = Math.max(width, t.name.length());
+            }
+            String row = "%-" + width + "s %10s %6s %10s%n";
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(row, "layer", "µs", "keys", "overrides"));
+            for (LayerTiming t : layers) {
+                sb.append(String.format(row, t.name, String.format("%,d", t.nanos / 1_000), t.keys, t.overrides));
+            }
+            sb.append(String.format(row, "total", String.format("%,d", totalNanos / 1_000), "", ""));
+            return sb.toString();
+        }
+    }
+
+    // =========================================================================
+    // ResolvedConfig — the flat, immutable result
+    // =========================================================================
+
+    static final class ResolvedConfig {
+
+        private final Map<String, String> values;
+        private final Map<String, String> origins;      // key → layer name
+        private final LoadReport report;
+        private final Map<String, Map<String, String>> sections = new ConcurrentHashMap<>();
+
+        ResolvedConfig(Map<String, String> values, Map<String, String> origins, LoadReport report) {
+            this.values  = Map.copyOf(values);
+            this.origins = Map.copyOf(origins);
+            this.report  = report;
+        }
+
+        String get(String key) {
+            return values.get(key);
+        }
+
+        String get(String key, String defaultValue) {
+            String value = values.get(key);
+            return value != null ? value : defaultValue;
+        }
+
+        String require(String key) {
+            String value = values.get(key);
+            if (value == null) {
+                throw new NoSuchElementException("Missing config key: " + key);
+            }
+            return value;
+        }
+
+        /** Name of the layer that supplied {@code key}, or null if it is not set. */
+        String originOf(String key) {
+            return origins.get(key);
+        }
+
+        /**
+         * Keys under "{@code name}." with the prefix stripped, e.g. section("db")
+         * turns db.pool.size into pool.size. Built on first request, then cached.
+         */
+        Map<String, String> section(String name) {
+            return sections.computeIfAbsent(name, n -> {
+                String prefix = n + ".";
+                Map<String, String> view = new HashMap<>();
+                for (Map.Entry<String, String> e : values.entrySet()) {
+                    if (e.getKey().startsWith(prefix)) {
+                        view.put(e.getKey().substring(prefix.length()), e.getValue());
+                    }
+                }
+                return Map.copyOf(view);
+            });
+        }
+
+        Map<String, String> asMap()  { return values; }
+        LoadReport          report() { return report; }
+    }
+
+    // =========================================================================
+    // LayeredConfigSource — ordered layers, resolved once
+    // =========================================================================
+
+    static final class LayeredConfigSource {
+
+        private final List<Layer> layers;
+
+        private LayeredConfigSource(List<Layer> layers) {
+            this.layers = List.copyOf(layers);
+        }
+
+        static Builder builder() {
+            return new Builder();
+        }
+
+        /** Loads every layer in order; later layers override earlier ones. */
+        ResolvedConfig resolve() {
+            Map<String, String> values  = new HashMap<>();
+            Map<String, String> origins = new HashMap<>();
+            List<LayerTiming> timings = new ArrayList<>(layers.size());
+            long start = System.nanoTime();
+            for (Layer layer : layers) {
+                long layerStart = System.nanoTime();
+                Map<String, String> loaded;
+                try {
+                    loaded = layer.load();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to load config layer " + layer.name(), e);
+                }
+                int overrides = 0;
+                for (Map.Entry<String, String> e : loaded.entrySet()) {
+                    if (values.put(e.getKey(), e.getValue()) != null) {
+                        overrides++;
+                    }
+                    origins.put(e.getKey(), layer.name());
+                }
+                timings.add(new LayerTiming(layer.name(), System.nanoTime() - layerStart, loaded.size(), overrides));
+            }
+            LoadReport report = new LoadReport(timings, System.nanoTime() - start);
+            return new ResolvedConfig(values, origins, report);
+        }
+
+        static final class Builder {
+
+            private final List<Layer> layers = new ArrayList<>();
+
+            Builder defaults(Map<String, String> defaults) {
+                Map<String, String> copy = Map.copyOf(defaults);
+                return add("defaults", () -> copy);
+            }
+
+            /** A .properties file; a missing file is an empty layer, not an error. */
+            Builder file(Path path) {
+                return add("file:" + path.getFileName(), () -> {
+                    if (!Files.exists(path)) {
+                        return Map.of();
+                    }
+                    Properties properties = new Properties();
+                    try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                        properties.load(reader);
+                    }
+                    Map<String, String> values = new HashMap<>();
+                    for (String name : properties.stringPropertyNames()) {
+                        values.put(name, properties.getProperty(name));
+                    }
+                    return values;
+                });
+            }
+
+            Builder environment(String prefix) {
+                return environment(prefix, System.getenv());
+            }
+
+            /** PREFIX_DB_POOL_SIZE → db.pool.size; the map is injectable for tests. */
+            Builder environment(String prefix, Map<String, String> environment) {
+                return add("env:" + prefix + "*", () -> {
+                    Map<String, String> values = new HashMap<>();
+                    for (Map.Entry<String, String> e : environment.entrySet()) {
+                        String name = e.getKey();
+                        if (name.startsWith(prefix) && name.length() > prefix.length()) {
+                            String key = name.substring(prefix.length()).toLowerCase(Locale.ROOT).replace('_', '.');
+                            values.put(key, e.getValue());
+                        }
+                    }
+                    return values;
+                });
+            }
+
+            /** -Dprefix.db.pool.size=50 → db.pool.size */
+            Builder systemProperties(String prefix) {
+                return add("sysprops:" + prefix + "*", () -> {
+                    Map<String, String> values = new HashMap<>();
+                    Properties system = System.getProperties();
+                    for (String name : system.stringPropertyNames()) {
+                        if (name.startsWith(prefix) && name.length() > prefix.length()) {
+                            values.put(name.substring(prefix.length()), system.getProperty(name));
+                        }
+                    }
+                    return values;
+                });
+            }
+
+            Builder add(String name, Layer.Loader loader) {
+                layers.add(new Layer(name, loader));
+                return this;
+            }
+
+            LayeredConfigSource build() {
+                if (layers.isEmpty()) {
+                    throw new IllegalStateException("At least one config layer is required");
+                }
+                return new LayeredConfigSource(layers);
+            }
+        }
+    }
+
+    // =========================================================================
+    // Main
+    // =========================================================================
+
+    public static void main(String[] args) throws IOException {
+
+        Path file = Files.createTempFile("service", ".properties");
+        Files.writeString(file, "server.port=9090\ndb.url=jdbc:postgresql://db/prod\ndb.pool.size=20\n");
+        Map<String, String> fakeEnv = Map.of("APP_DB_POOL_SIZE", "40", "APP_CACHE_TTL", "5m", "PATH", "/usr/bin");
+        System.setProperty("app.db.pool.size", "50");
+
+        try {
+            ResolvedConfig config = LayeredConfigSource.builder()
+                    .defaults(Map.of("app.name", "LayeredApp", "server.port", "8080", "db.pool.size", "10"))
+                    .file(file)
+                    .environment("APP_", fakeEnv)
+                    .systemProperties("app.")
+                    .build()
+                    .resolve();
+
+            System.out.println("═══ Test 1: Later layers override earlier ones ══════════");
+            System.out.println("app.name     = " + config.get("app.name") + "  (" + config.originOf("app.name") + ")");
+            System.out.println("server.port  = " + config.get("server.port") + "  (" + config.originOf("server.port") + ")");
+            System.out.println("cache.ttl    = " + config.get("cache.ttl") + "  (" + config.originOf("cache.ttl") + ")");
+            System.out.println("db.pool.size = " + config.get("db.pool.size") + "  (" + config.originOf("db.pool.size") + ")");
+            boolean t1 = "LayeredApp".equals(config.get("app.name"))
+                      && "9090".equals(config.get("server.port"))
+                      && "5m".equals(config.get("cache.ttl"))
+                      && "50".equals(config.get("db.pool.size"))
+                      && config.get("path") == null;            // unprefixed env vars are ignored
+            System.out.println("Test 1 " + (t1 ? "PASSED" : "FAILED"));
+
+            System.out.println("\n═══ Test 2: Sections are lazy views, cached after first use ═");
+            Map<String, String> db = config.section("db");
+            System.out.println("section(db) = " + new TreeMap<>(db));
+            boolean t2 = db.equals(Map.of("url", "jdbc:postgresql://db/prod", "pool.size", "50"))
+                      && config.section("db") == db;
+            System.out.println("Test 2 " + (t2 ? "PASSED" : "FAILED"));
+
+            System.out.println("\n═══ Test 3: Load report ══════════════════════════════════");
+            System.out.print(config.report());
+            boolean t3 = config.report().layers().size() == 4
+                      && config.report().layers().get(3).overrides == 1;
+            System.out.println("Test 3 " + (t3 ? "PASSED" : "FAILED"));
+        } finally {
+            System.clearProperty("app.db.pool.size");
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.ramkumar.lld.designpatterns.creational.singleton.code;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Scenario E: Primitive and Off-Heap Score Storage
+ *
+ * Map<String, Integer> pays for every player three times over: a HashMap.Node
+ * (32 B), a boxed Integer (16 B) and a slot in the bucket table — before the
+ * player's name is even counted. At tens of millions of players that is
+ * gigabytes of small objects for the GC to trace.
+ *
+ * PrimitiveScoreStore replaces that with flat arrays:
+ *
+ *   keys[]   — open-addressing table of interned player ids (linear probing)
+ *   slotOf[] — table index → dense player slot 0..capacity-1
+ *   cells    — one int per slot, either on the heap (int[]) or off-heap
+ *              (direct ByteBuffer, invisible to the GC)
+ *
+ * A caller can intern a player once (slotOf) and then record by slot, which
+ * skips hashing entirely on the hot path. "Max score wins" is a CAS loop
+ * through a VarHandle, so both storage modes stay lock-free for updates.
+ *
+ * Capacity is fixed at construction — a score service knows its player
+ * ceiling, and a fixed table means slots never move and readers never race
+ * a resize. Off-heap uses ByteBuffer rather than MemorySegment because the
+ * Foreign Memory API is still a preview feature on Java 21.
+ */
+public class PrimitiveScoreStoreDemo {
+
+    enum StorageMode { HEAP, OFF_HEAP }
+
+    // =========================================================================
+    // ScoreCells — where the ints live; the store does not care which
+    // =========================================================================
+
+    interface ScoreCells {
+        int     get(int slot);
+        void    set(int slot, int value);
+        boolean compareAndSet(int slot, int expected, int value);
+        long    bytes();
+    }
+
+    static final class HeapScoreCells implements ScoreCells {
+
+        private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+        private final int[] scores;
+
+        HeapScoreCells(int capacity) {
+            this.scores = new int[capacity];
+        }
+
+        @Override public int     get(int slot)                        { return (int) INTS.getVolatile(scores, slot); }
+        @Override public void    set(int slot, int value)             { INTS.setVolatile(scores, slot, value); }
+        @Override public boolean compareAndSet(int slot, int e, int v) { return INTS.compareAndSet(scores, slot, e, v); }
+        @Override public long    bytes()                              { return 4L * scores.length; }
+    }
+
+    static final class OffHeapScoreCells implements ScoreCells {
+
+        // Byte-buffer view: index is a byte offset, so slot i lives at i * 4
+        private static final VarHandle INTS =
+                MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+        private final ByteBuffer buffer;
+
+        OffHeapScoreCells(int capacity) {
+            // Atomic VarHandle access needs every slot at a 4-byte-aligned address, which
+            // allocateDirect does not promise: over-allocate by 3 bytes and let
+            // alignedSlice() pick the aligned start.
+            int bytes = Math.multiplyExact(capacity, Integer.BYTES);
+            this.buffer = ByteBuffer.allocateDirect(Math.addExact(bytes, Integer.BYTES - 1))
+                                    .alignedSlice(Integer.BYTES)
+                                    .slice(0, bytes)
+                                    .order(ByteOrder.nativeOrder());
+        }
+
+        @Override public int     get(int slot)                        { return (int) INTS.getVolatile(buffer, slot << 2); }
+        @Override public void    set(int slot, int value)             { INTS.setVolatile(buffer, slot << 2, value); }
+        @Override public boolean compareAndSet(int slot, int e, int v) { return INTS.compareAndSet(buffer, slot << 2, e, v); }
+        @Override public long    bytes()                              { return buffer.capacity(); }
+    }
+
+    // =========================================================================
+    // PrimitiveScoreStore
+    // =========================================================================
+
+    static final class PrimitiveScoreStore {
+
+        private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(String[].class);
+
+        private final StorageMode mode;
+        private final int         capacity;
+        private final String[]    keys;        // written with release, probed with acquire
+        private final int[]       slotOf;      // written before the key is published
+        private final int         mask;
+        private final ScoreCells  cells;
+
+        private volatile int size;             // also the next free slot; guarded by `this` for writes
+
+        PrimitiveScoreStore(int capacity, StorageMode mode) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("capacity must be >= 1, got: " + capacity);
+            }
+            // Table at most half full keeps linear-probe chains short
+            int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+            this.mode     = mode;
+            this.capacity = capacity;
+            this.keys     = new String[tableSize];
+            this.slotOf   = new int[tableSize];
+            this.mask     = tableSize - 1;
+            this.cells    = mode == StorageMode.HEAP ? new HeapScoreCells(capacity) : new OffHeapScoreCells(capacity);
+        }
+
+        /**
+         * Records a submission, keeping the higher score.
+         *
+         * @return true if the stored score changed (new player or improvement)
+         */
+        boolean recordScore(String player, int score) {
+            requirePlayer(player);
+            requireScore(score);
+            int slot = find(player);
+            if (slot < 0) {
+                int inserted = insert(player, score);
+                if (inserted >= 0) {
+                    return true;                   // new player, stored with this score
+                }
+                slot = -1 - inserted;              // lost the race — update the winner's slot
+            }
+            return recordScore(slot, score);
+        }
+
+        /** Hot-path variant for callers that interned the player once via {@link #slotOf}. */
+        boolean recordScore(int slot, int score) {
+            requireScore(score);
+            if (slot < 0 || slot >= size) {
+                throw new IllegalArgumentException("unknown slot: " + slot);
+            }
+            int current;
+            while ((current = cells.get(slot)) < score) {
+                if (cells.compareAndSet(slot, current, score)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Interns the player (score 0 if new) and returns its stable slot. */
+        int slotOf(String player) {
+            requirePlayer(player);
+            int slot = find(player);
+            if (slot >= 0) {
+                return slot;
+            }
+            int inserted = insert(player, 0);
+            return inserted >= 0 ? inserted : -1 - inserted;
+        }
+
+        int getScore(String player) {
+            requirePlayer(player);
+            int slot = find(player);
+            if (slot < 0) {
+                throw new NoSuchElementException("Player not found: " + player);
+            }
+            return cells.get(slot);
+        }
+
+        boolean hasPlayer(String player) {
+            requirePlayer(player);
+            return find(player) >= 0;
+        }
+
+        int         getPlayerCount() { return size; }
+        int         getCapacity()    { return capacity; }
+        StorageMode getMode()        { return mode; }
+
+        /**
+         * Bytes held by the id table and score cells, excluding the player-name
+         * strings and array headers. Assumes compressed oops (4-byte references,
+         * the HotSpot default for heaps under 32 GB); add 4 B per table slot
+         * without them.
+         */
+        long footprintBytes() {
+            return 4L * keys.length + 4L * slotOf.length + cells.bytes();
+        }
+
+        // ── open addressing ───────────────────────────────────────────────────
+
+        // Lock-free lookup: a key becomes visible only after its slot and score
+        // are written, so an acquire read of the key is enough to trust both.
+        private int find(String player) {
+            int index = spread(player.hashCode()) & mask;
+            while (true) {
+                String key = (String) KEYS.getAcquire(keys, index);
+                if (key == null) {
+                    return -1;
+                }
+                if (key.equals(player)) {
+                    return slotOf[index];
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        // New players are rare compared with score updates, so inserts simply lock.
+        // Returns the new slot, or (-1 - slot) if another thread interned the player first.
+        private synchronized int insert(String player, int score) {
+            int index = spread(player.hashCode()) & mask;
+            while (true) {
+                String key = keys[index];
+                if (key == null) {
+                    break;
+                }
+                if (key.equals(player)) {
+                    return -1 - slotOf[index];
+                }
+                index = (index + 1) & mask;
+            }
+            if (size == capacity) {
+                throw new IllegalStateException("Score store full: capacity " + capacity);
+            }
+            int slot = size;
+            cells.set(slot, score);
+            slotOf[index] = slot;
+            KEYS.setRelease(keys, index, player);   // publish last
+            size = slot + 1;
+            return slot;
+        }
+
+        private static int spread(int h) {
+            return (h ^ (h >>> 16)) * 0x9E3779B9;
+        }
+
+        private static void requirePlayer(String player) {
+            if (player == null || player.isBlank()) {
+                throw new IllegalArgumentException("player must not be null or blank");
+            }
+        }
+
+        private static void requireScore(int score) {
+            if (score < 0) {
+                throw new IllegalArgumentException("score must be >= 0, got: " + score);
+            }
+        }
+    }
+
+    // =========================================================================
+    // Main — correctness checks, then a memory-footprint comparison
+    // =========================================================================
+
+    public static void main(String[] args) throws InterruptedException {
+
+        System.out.println("═══ Test 1: Max-score rule in both modes ════════════════");
+        boolean t1 = true;
+        for (StorageMode mode : StorageMode.values()) {
+            PrimitiveScoreStore store = new PrimitiveScoreStore(16, mode);
+            store.recordScore("Alice", 1500);
+            store.recordScore("Alice", 900);
+            store.recordScore("Bob",   1200);
+            store.recordScore("Bob",   2000);
+            boolean ok = store.getScore("Alice") == 1500 && store.getScore("Bob") == 2000
+                      && store.getPlayerCount() == 2 && !store.hasPlayer("Carol");
+            System.out.println(mode + ": Alice=" + store.getScore("Alice") + ", Bob=" + store.getScore("Bob"));
+            t1 &= ok;
+        }
+        System.out.println("Test 1 " + (t1 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 2: Interned slot is stable, capacity enforced ══");
+        PrimitiveScoreStore tiny = new PrimitiveScoreStore(2, StorageMode.OFF_HEAP);
+        int slot = tiny.slotOf("Alice");
+        tiny.recordScore(slot, 700);
+        tiny.recordScore("Bob", 10);
+        boolean t2 = tiny.slotOf("Alice") == slot && tiny.getScore("Alice") == 700;
+        try {
+            tiny.recordScore("Carol", 5);
+            t2 = false;
+        } catch (IllegalStateException e) {
+            System.out.println("Caught: " + e.getMessage());
+        }
+        System.out.println("Test 2 " + (t2 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 3: Concurrent writers, no lost updates ═════════");
+        int players = 50_000;
+        PrimitiveScoreStore shared = new PrimitiveScoreStore(players, StorageMode.OFF_HEAP);
+        String[] names = names(players);
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int[][] best = new int[threads][players];
+        Thread[] writers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int[] mine = best[t];
+            SplittableRandom random = new SplittableRandom(t);
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < 1_000_000; i++) {
+                    int p = random.nextInt(players);
+                    int score = random.nextInt(1_000_000);
+                    shared.recordScore(names[p], score);
+                    mine[p] = Math.max(mine[p], score);
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        int lost = 0;
+        for (int p = 0; p < players; p++) {
+            int expected = 0;
+            for (int[] mine : best) {
+                expected = Math.max(expected, mine[p]);
+            }
+            if (shared.hasPlayer(names[p]) && shared.getScore(names[p]) != expected) {
+                lost++;
+            }
+        }
+        System.out.println("Players with lost updates: " + lost);
+        System.out.println("Test 3 " + (lost == 0 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Benchmark: memory footprint at 1M players ═══════════");
+        // Names are created up front and shared by every structure, so the
+        // deltas below measure only what each store adds on top of them.
+        int count = 1_000_000;
+        String[] ids = names(count);
+
+        long before = usedHeap();
+        Map<String, Integer> boxed = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            boxed.put(ids[i], i);
+        }
+        long hashMapBytes = usedHeap() - before;
+        int checksum = boxed.size();
+        boxed = null;
+
+        long[] heapBytes = new long[StorageMode.values().length];
+        long[] directBytes = new long[StorageMode.values().length];
+        PrimitiveScoreStore[] stores = new PrimitiveScoreStore[StorageMode.values().length];
+        for (StorageMode mode : StorageMode.values()) {
+            long heapBefore   = usedHeap();
+            long directBefore = usedDirect();
+            PrimitiveScoreStore store = new PrimitiveScoreStore(count, mode);
+            for (int i = 0; i < count; i++) {
+                store.recordScore(ids[i], i);
+            }
+            heapBytes[mode.ordinal()]   = usedHeap() - heapBefore;
+            directBytes[mode.ordinal()] = usedDirect() - directBefore;
+            stores[mode.ordinal()]      = store;
+            checksum += store.getPlayerCount();
+        }
+
+        System.out.printf("%-28s %14s %14s %12s %14s%n", "Store", "heap bytes", "off-heap bytes", "B/player",
+                "computed");
+        System.out.printf("%-28s %,14d %,14d %12.1f %14s%n", "HashMap<String,Integer>",
+                hashMapBytes, 0, (double) hashMapBytes / count, "-");
+        for (PrimitiveScoreStore store : stores) {
+            long heap = heapBytes[store.getMode().ordinal()], direct = directBytes[store.getMode().ordinal()];
+            System.out.printf("%-28s %,14d %,14d %12.1f %,14d%n", "PrimitiveScoreStore/" + store.getMode(),
+                    heap, direct, (double) (heap + direct) / store.getCapacity(), store.footprintBytes());
+        }
+        System.out.println("(computed = footprintBytes(), assuming compressed oops)");
+        System.out.println("(checksum " + checksum + ")");
+    }
+
+    private static String[] names(int count) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = "player-" + i;
+        }
+        return names;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long usedDirect() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,629 @@
+package com.ramkumar.lld.designpatterns.creational.singleton.code;
+
+import com.ramkumar.lld.designpatterns.creational.singleton.code.ConcurrentScoreBoardDemo.LeaderboardEngine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Scenario F: Durable Score Board — append-only log + memory-mapped snapshots
+ *
+ * Everything in the exercise lives on the heap, so a restart loses the board.
+ * DurableScoreBoard wraps a LeaderboardEngine with two files per generation:
+ *
+ *   scores-<gen>.log     append-only binary log of every score IMPROVEMENT
+ *                        record = [u16 nameLen][name UTF-8][i32 score][i32 crc32c]
+ *   snapshot-<gen>.bin   compact image of the whole board, sized by a first pass
+ *                        and streamed straight into mapped windows of the file,
+ *                        published by an atomic rename
+ *                        header = [i32 magic][i32 version][i64 gen][i32 count]
+ *
+ * Because "max score wins" is commutative and idempotent, replay order does
+ * not matter and a record that appears in both a snapshot and a log is
+ * harmless. That keeps the checkpoint protocol simple:
+ *
+ *   checkpoint():  1. rotate the log to gen+1 (new writes go there)
+ *                  2. write snapshot-(gen+1) from the live engine, fsync, rename
+ *                  3. delete files older than gen+1
+ *   recovery:      load the newest snapshot S, then replay every log >= S.
+ *                  A crash between 1 and 2 leaves snapshot S-1 + logs S-1, S —
+ *                  which the same rule replays correctly.
+ *
+ * Durability point: records are buffered and reach disk on flush(),
+ * checkpoint() or close() — the classic group-commit trade-off.
+ */
+public class ScoreBoardPersistenceDemo {
+
+    // =========================================================================
+    // ScoreLog — append-only, buffered, checksummed
+    // =========================================================================
+
+    static final class ScoreLog implements AutoCloseable {
+
+        private static final int BUFFER_BYTES = 64 * 1024;
+        private static final int MAX_NAME_BYTES = 0xFFFF;
+
+        private final Path directory;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final CRC32C crc = new CRC32C();
+
+        private FileChannel channel;
+        private long generation;
+
+        ScoreLog(Path directory, long generation) throws IOException {
+            this.directory  = directory;
+            this.generation = generation;
+            this.channel    = openForAppend(logPath(directory, generation));
+        }
+
+        /** Rejects a name the record format cannot hold; call it before changing any state. */
+        static void checkName(String player) {
+            // At most 3 bytes per char, so only long names need to be measured
+            if (player.length() > MAX_NAME_BYTES / 3 && Snapshot.utf8Length(player) > MAX_NAME_BYTES) {
+                throw new IllegalArgumentException("player name too long: " + Snapshot.utf8Length(player) + " bytes");
+            }
+        }
+
+        void append(String player, int score) {
+            byte[] name = player.getBytes(StandardCharsets.UTF_8);
+            if (name.length > MAX_NAME_BYTES) {
+                throw new IllegalArgumentException("player name too long: " + name.length + " bytes");
+            }
+            int recordBytes = Short.BYTES + name.length + Integer.BYTES + Integer.BYTES;
+            lock.lock();
+            try {
+                if (buffer.remaining() < recordBytes) {
+                    drain();
+                }
+                crc.reset();
+                crc.update(name);
+                crc.update(score >>> 24);
+                crc.update(score >>> 16);
+                crc.update(score >>> 8);
+                crc.update(score);
+                buffer.putShort((short) name.length).put(name).putInt(score).putInt((int) crc.getValue());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** Writes buffered records and forces them to the storage device. */
+        void flush() throws IOException {
+            lock.lock();
+            try {
+                drain();
+                channel.force(false);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** Seals the current log and starts generation + 1; returns the new generation. */
+        long rotate() throws IOException {
+            lock.lock();
+            try {
+                drain();
+                channel.force(false);
+                channel.close();
+                generation++;
+                channel = openForAppend(logPath(directory, generation));
+                return generation;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long sizeBytes() throws IOException {
+            lock.lock();
+            try {
+                return channel.size() + buffer.position();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            lock.lock();
+            try {
+                drain();
+                channel.force(false);
+                channel.close();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private static FileChannel openForAppend(Path path) throws IOException {
+            return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+
+        /**
+         * Replays one log into the engine. Stops at the first torn or corrupt
+         * record (a crash mid-write) and truncates the file there.
+         *
+         * @return number of records replayed
+         */
+        static int replay(Path path, LeaderboardEngine engine) throws IOException {
+            int replayed = 0;
+            // Read through a buffer, not a mapping, so the file can be truncated afterwards
+            try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer chunk = ByteBuffer.allocate(BUFFER_BYTES);
+                CRC32C check = new CRC32C();
+                byte[] name = new byte[256];
+                long validEnd = 0;
+                boolean corrupt = false;
+                while (!corrupt && in.read(chunk) >= 0) {
+                    chunk.flip();
+                    while (chunk.remaining() >= Short.BYTES) {
+                        int length = Short.toUnsignedInt(chunk.getShort(chunk.position()));
+                        int recordBytes = Short.BYTES + length + 2 * Integer.BYTES;
+                        if (recordBytes > chunk.capacity()) {
+                            chunk = grow(chunk, recordBytes);
+                        }
+                        if (chunk.remaining() < recordBytes) {
+                            break;                               // rest of the record is in the next read
+                        }
+                        chunk.getShort();
+                        if (name.length < length) {
+                            name = new byte[length];
+                        }
+                        chunk.get(name, 0, length);
+                        int score = chunk.getInt();
+                        int stored = chunk.getInt();
+                        check.reset();
+                        check.update(name, 0, length);
+                        check.update(score >>> 24);
+                        check.update(score >>> 16);
+                        check.update(score >>> 8);
+                        check.update(score);
+                        if ((int) check.getValue() != stored) {
+                            corrupt = true;                      // corrupt record
+                            break;
+                        }
+                        engine.recordScore(new String(name, 0, length, StandardCharsets.UTF_8), score);
+                        validEnd += recordBytes;
+                        replayed++;
+                    }
+                    chunk.compact();
+                }
+                if (validEnd < in.size()) {
+                    in.truncate(validEnd);                       // torn or corrupt tail
+                }
+            }
+            return replayed;
+        }
+
+        // A record longer than the read buffer (names up to 64 KB) needs a bigger one
+        private static ByteBuffer grow(ByteBuffer chunk, int atLeast) {
+            ByteBuffer bigger = ByteBuffer.allocate(atLeast);
+            bigger.put(chunk);
+            bigger.flip();
+            return bigger;
+        }
+    }
+
+    // =========================================================================
+    // Snapshot — compact board image, written and read through mmap
+    // =========================================================================
+
+    static final class Snapshot {
+
+        private static final int MAGIC   = 0x53434F52;   // "SCOR"
+        private static final int VERSION = 1;
+        private static final int HEADER_BYTES = Integer.BYTES * 2 + Long.BYTES + Integer.BYTES;
+        private static final long WINDOW_BYTES = 64L << 20;
+
+        private Snapshot() { }
+
+        /**
+         * Writes the engine to snapshot-<gen>.bin via a temp file + atomic rename.
+         * A first pass sizes the file; the second streams each record into
+         * mapped windows of at most WINDOW_BYTES, so the board is never
+         * buffered on the heap and boards over 2 GB need no single mapping.
+         */
+        static long write(Path directory, long generation, LeaderboardEngine engine) throws IOException {
+            long[] estimate = {HEADER_BYTES};
+            engine.forEachScore((player, score) -> estimate[0] += Short.BYTES + utf8Length(player) + Integer.BYTES);
+
+            Path temp = directory.resolve("snapshot-" + generation + ".tmp");
+            long total;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedWriter writer = new MappedWriter(out, estimate[0]);
+                engine.forEachScore(writer::append);
+                total = writer.finish();                         // stops using the mapping
+                if (out.size() > total) {
+                    out.truncate(total);                         // players removed by a reset between passes
+                }
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                        .putInt(MAGIC).putInt(VERSION).putLong(generation).putInt(writer.count)
+                        .flip();
+                while (header.hasRemaining()) {
+                    out.write(header, header.position());
+                }
+                out.force(true);
+            }
+            Files.move(temp, snapshotPath(directory, generation),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return total;
+        }
+
+        // Appends records to consecutive READ_WRITE windows of the snapshot file.
+        // Players that join between the two passes still fit: a window mapped
+        // past the estimate grows the file, and write() truncates any excess.
+        private static final class MappedWriter {
+            private final FileChannel channel;
+            private final long estimate;
+            private MappedByteBuffer window;
+            private long windowEnd;
+            private long position = HEADER_BYTES;
+            int count;
+
+            MappedWriter(FileChannel channel, long estimate) {
+                this.channel  = channel;
+                this.estimate = estimate;
+            }
+
+            void append(String player, int score) {
+                byte[] name = player.getBytes(StandardCharsets.UTF_8);
+                if (name.length > ScoreLog.MAX_NAME_BYTES) {
+                    // The length prefix is an unsigned short; writing it would corrupt every later record
+                    throw new IllegalArgumentException("player name too long: " + name.length + " bytes");
+                }
+                int bytes = Short.BYTES + name.length + Integer.BYTES;
+                try {
+                    if (window == null || position + bytes > windowEnd) {
+                        if (window != null) {
+                            window.force();
+                        }
+                        long size = Math.max(bytes, Math.min(WINDOW_BYTES, estimate - position));
+                        window    = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+                        windowEnd = position + size;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                window.putShort((short) name.length).put(name).putInt(score);
+                position += bytes;
+                count++;
+            }
+
+            /** Forces the last window and drops it; returns the bytes written, header included. */
+            long finish() {
+                if (window != null) {
+                    window.force();
+                    window = null;
+                }
+                return position;
+            }
+        }
+
+        private static int utf8Length(String s) {
+            int bytes = 0;
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    bytes += 1;
+                } else if (c < 0x800) {
+                    bytes += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    bytes += 4;
+                    i++;
+                } else {
+                    bytes += 3;
+                }
+            }
+            return bytes;
+        }
+
+        /** Loads a snapshot into the engine; returns the number of players read. */
+        static int load(Path path, LeaderboardEngine engine) throws IOException {
+            try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                if (map.getInt() != MAGIC || map.getInt() != VERSION) {
+                    throw new IOException("Not a score snapshot: " + path);
+                }
+                map.getLong();                                   // generation — also encoded in the name
+                int count = map.getInt();
+                byte[] name = new byte[256];
+                for (int i = 0; i < count; i++) {
+                    int length = Short.toUnsignedInt(map.getShort());
+                    if (name.length < length) {
+                        name = new byte[length];
+                    }
+                    map.get(name, 0, length);
+                    engine.recordScore(new String(name, 0, length, StandardCharsets.UTF_8), map.getInt());
+                }
+                return count;
+            }
+        }
+    }
+
+    // =========================================================================
+    // DurableScoreBoard — engine + log + snapshots, with recovery on open()
+    // =========================================================================
+
+    static final class DurableScoreBoard implements AutoCloseable {
+
+        private final Path directory;
+        private final LeaderboardEngine engine;
+        private final ScoreLog log;
+        private final RecoveryReport recovery;
+        private final ReentrantLock checkpointLock = new ReentrantLock();
+
+        private ScheduledExecutorService scheduler;
+
+        private DurableScoreBoard(Path directory, LeaderboardEngine engine, ScoreLog log, RecoveryReport recovery) {
+            this.directory = directory;
+            this.engine    = engine;
+            this.log       = log;
+            this.recovery  = recovery;
+        }
+
+        /** Opens (or creates) a board in {@code directory}, recovering any persisted state. */
+        static DurableScoreBoard open(Path directory) throws IOException {
+            Files.createDirectories(directory);
+            long start = System.nanoTime();
+            LeaderboardEngine engine = new LeaderboardEngine();
+
+            long snapshotGen = latestGeneration(directory, "snapshot-", ".bin");
+            int fromSnapshot = 0;
+            if (snapshotGen >= 0) {
+                fromSnapshot = Snapshot.load(snapshotPath(directory, snapshotGen), engine);
+            }
+            long snapshotNanos = System.nanoTime() - start;
+
+            int fromLog = 0;
+            long lastLogGen = Math.max(snapshotGen, 0);
+            for (long gen : generations(directory, "scores-", ".log")) {
+                if (gen >= snapshotGen) {
+                    fromLog += ScoreLog.replay(logPath(directory, gen), engine);
+                    lastLogGen = Math.max(lastLogGen, gen);
+                }
+            }
+            long totalNanos = System.nanoTime() - start;
+
+            RecoveryReport report = new RecoveryReport(fromSnapshot, fromLog, snapshotNanos, totalNanos);
+            return new DurableScoreBoard(directory, engine, new ScoreLog(directory, lastLogGen), report);
+        }
+
+        boolean recordScore(String player, int score) {
+            ScoreLog.checkName(player);         // a name the log cannot hold must not reach memory either
+            boolean changed = engine.recordScore(player, score);
+            if (changed) {
+                log.append(player, score);      // only improvements change state, so only they are logged
+            }
+            return changed;
+        }
+
+        int getScore(String player)         { return engine.getScore(player); }
+        int getRank(String player)          { return engine.getRank(player); }
+        List<String> getTopPlayers(int n)   { return engine.getTopPlayers(n); }
+        int getPlayerCount()                { return engine.getPlayerCount(); }
+        RecoveryReport getRecoveryReport()  { return recovery; }
+        long logSizeBytes() throws IOException { return log.sizeBytes(); }
+
+        void flush() throws IOException {
+            log.flush();
+        }
+
+        /** Rotates the log, writes a compact snapshot and drops superseded files. */
+        long checkpoint() throws IOException {
+            checkpointLock.lock();
+            try {
+                long generation = log.rotate();
+                long bytes = Snapshot.write(directory, generation, engine);
+                deleteOlderThan(generation);
+                return bytes;
+            } finally {
+                checkpointLock.unlock();
+            }
+        }
+
+        /** Checkpoints in the background every {@code interval} until close(). */
+        void startPeriodicCheckpoints(Duration interval) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "scoreboard-checkpoint");
+                t.setDaemon(true);
+                return t;
+            });
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    checkpoint();
+                } catch (IOException | RuntimeException e) {
+                    // An escaping exception would cancel every later run of this task
+                    System.err.println("[DurableScoreBoard] checkpoint failed: " + e);
+                }
+            }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+            }
+            log.close();
+        }
+
+        private void deleteOlderThan(long generation) throws IOException {
+            for (long gen : generations(directory, "snapshot-", ".bin")) {
+                if (gen < generation) Files.deleteIfExists(snapshotPath(directory, gen));
+            }
+            for (long gen : generations(directory, "scores-", ".log")) {
+                if (gen < generation) Files.deleteIfExists(logPath(directory, gen));
+            }
+        }
+    }
+
+    // Immutable result of open() — how much came from where, and how long it took
+    static final class RecoveryReport {
+        final int  playersFromSnapshot;
+        final int  recordsFromLog;
+        final long snapshotNanos;
+        final long totalNanos;
+
+        RecoveryReport(int playersFromSnapshot, int recordsFromLog, long snapshotNanos, long totalNanos) {
+            this.playersFromSnapshot = playersFromSnapshot;
+            this.recordsFromLog      = recordsFromLog;
+            this.snapshotNanos       = snapshotNanos;
+            this.totalNanos          = totalNanos;
+        }
+    }
+
+    // ── file naming ──────────────────────────────────────────────────────────
+
+    private static Path logPath(Path directory, long generation) {
+        return directory.resolve("scores-" + generation + ".log");
+    }
+
+    private static Path snapshotPath(Path directory, long generation) {
+        return directory.resolve("snapshot-" + generation + ".bin");
+    }
+
+    private static long latestGeneration(Path directory, String prefix, String suffix) throws IOException {
+        List<Long> all = generations(directory, prefix, suffix);
+        return all.isEmpty() ? -1 : all.get(all.size() - 1);
+    }
+
+    private static List<Long> generations(Path directory, String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(p -> p.getFileName().toString())
+                        .filter(n -> n.startsWith(prefix) && n.endsWith(suffix))
+                        .map(n -> Long.parseLong(n.substring(prefix.length(), n.length() - suffix.length())))
+                        .sorted(Comparator.naturalOrder())
+                        .toList();
+        }
+    }
+
+    // =========================================================================
+    // Main
+    // =========================================================================
+
+    public static void main(String[] args) throws IOException {
+
+        Path root = Files.createTempDirectory("scoreboard");
+
+        System.out.println("═══ Test 1: Scores survive a restart (log only) ═════════");
+        Path dir1 = root.resolve("t1");
+        try (DurableScoreBoard board = DurableScoreBoard.open(dir1)) {
+            board.recordScore("Alice", 1500);
+            board.recordScore("Bob",   1200);
+            board.recordScore("Alice", 900);     // not an improvement — not logged
+            board.recordScore("Bob",   2000);
+        }
+        try (DurableScoreBoard board = DurableScoreBoard.open(dir1)) {
+            RecoveryReport r = board.getRecoveryReport();
+            System.out.println("Replayed " + r.recordsFromLog + " log records, top = " + board.getTopPlayers(2));
+            boolean t1 = board.getScore("Alice") == 1500 && board.getScore("Bob") == 2000 && r.recordsFromLog == 3;
+            System.out.println("Test 1 " + (t1 ? "PASSED" : "FAILED"));
+        }
+
+        System.out.println("\n═══ Test 2: Snapshot + log tail after checkpoint ════════");
+        try (DurableScoreBoard board = DurableScoreBoard.open(dir1)) {
+            board.checkpoint();
+            board.recordScore("Carol", 1800);
+        }
+        try (DurableScoreBoard board = DurableScoreBoard.open(dir1)) {
+            RecoveryReport r = board.getRecoveryReport();
+            System.out.println("From snapshot: " + r.playersFromSnapshot + ", from log: " + r.recordsFromLog);
+            boolean t2 = r.playersFromSnapshot == 2 && r.recordsFromLog == 1
+                      && board.getTopPlayers(3).equals(List.of("Bob", "Carol", "Alice"));
+            System.out.println("Test 2 " + (t2 ? "PASSED" : "FAILED"));
+        }
+
+        System.out.println("\n═══ Test 3: Torn log tail is ignored and truncated ══════");
+        Path dir3 = root.resolve("t3");
+        try (DurableScoreBoard board = DurableScoreBoard.open(dir3)) {
+            board.recordScore("Dave", 500);
+        }
+        Path log = logPath(dir3, 0);
+        Files.write(log, new byte[] {0, 4, 'E', 'v'}, StandardOpenOption.APPEND);   // half a record
+        try (DurableScoreBoard board = DurableScoreBoard.open(dir3)) {
+            boolean t3 = board.getScore("Dave") == 500 && board.getPlayerCount() == 1;
+            System.out.println("Dave=" + board.getScore("Dave") + ", log bytes after repair: " + Files.size(log));
+            System.out.println("Test 3 " + (t3 ? "PASSED" : "FAILED"));
+        }
+
+        System.out.println("\n═══ Test 4: An unloggable name is rejected before it changes state ═");
+        Path dir4 = root.resolve("t4");
+        boolean rejected = false;
+        try (DurableScoreBoard board = DurableScoreBoard.open(dir4)) {
+            board.recordScore("Erin", 700);
+            try {
+                board.recordScore("é".repeat(40_000), 9_999);   // 80,000 UTF-8 bytes, over the 0xFFFF limit
+            } catch (IllegalArgumentException e) {
+                rejected = true;
+                System.out.println("Rejected: " + e.getMessage());
+            }
+            board.checkpoint();                                // would write a corrupt record if it had got in
+        }
+        try (DurableScoreBoard board = DurableScoreBoard.open(dir4)) {
+            boolean t4 = rejected && board.getPlayerCount() == 1 && board.getScore("Erin") == 700
+                      && board.getRecoveryReport().playersFromSnapshot == 1;
+            System.out.println("after reopen: " + board.getPlayerCount() + " player(s), Erin=" + board.getScore("Erin"));
+            System.out.println("Test 4 " + (t4 ? "PASSED" : "FAILED"));
+        }
+
+        System.out.println("\n═══ Report: recovery time vs board size ═════════════════");
+        System.out.printf("%10s %14s %12s %14s %14s%n", "players", "snapshot B", "log B", "snapshot ms", "total ms");
+        for (int players : new int[] {10_000, 100_000, 1_000_000}) {
+            Path dir = root.resolve("size-" + players);
+            long snapshotBytes;
+            long logBytes;
+            try (DurableScoreBoard board = DurableScoreBoard.open(dir)) {
+                for (int i = 0; i < players; i++) {
+                    board.recordScore("player-" + i, i);
+                }
+                snapshotBytes = board.checkpoint();
+                // 10% of players improve after the checkpoint — these live only in the log
+                for (int i = 0; i < players; i += 10) {
+                    board.recordScore("player-" + i, players + i);
+                }
+                board.flush();
+                logBytes = board.logSizeBytes();
+            }
+            try (DurableScoreBoard board = DurableScoreBoard.open(dir)) {
+                RecoveryReport r = board.getRecoveryReport();
+                if (board.getPlayerCount() != players || board.getScore("player-0") != players) {
+                    System.out.println("Recovery FAILED for " + players + " players");
+                }
+                System.out.printf("%,10d %,14d %,12d %,14d %,14d%n", players, snapshotBytes, logBytes,
+                        r.snapshotNanos / 1_000_000, r.totalNanos / 1_000_000);
+            }
+        }
+
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package com.ramkumar.lld.designpatterns.creational.singleton.code;
+
+import com.ramkumar.lld.designpatterns.creational.singleton.code.ConcurrentScoreBoardDemo.LeaderboardEngine;
+import com.ramkumar.lld.designpatterns.creational.singleton.code.ConcurrentScoreBoardDemo.ScoreEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Scenario D: Sharded, Time-Windowed Leaderboards
+ *
+ * The exercise has exactly one global board and a reset() that throws
+ * everything away. Real games want daily, weekly and all-time boards at the
+ * same time, and a single structure becomes the contention point once every
+ * core is recording scores.
+ *
+ * Building blocks (all on top of ConcurrentScoreBoardDemo.LeaderboardEngine):
+ *
+ *   ShardedLeaderboard  — N engines ("stripes"); a player always hashes to the
+ *                         same stripe, so writers on different players rarely
+ *                         share a lock. Reads merge the per-stripe top-N. Each
+ *                         engine keeps a single rank index: the board is
+ *                         already striped, so N engines mean N treaps, not N×16.
+ *   WindowedLeaderboard — one ShardedLeaderboard per epoch bucket (day, week…).
+ *                         When the clock crosses a bucket boundary the first
+ *                         writer CAS-installs a fresh bucket — no global reset,
+ *                         no pause; the bucket just before it stays readable
+ *                         as "previous".
+ *   GameLeaderboards    — the singleton (Holder idiom) that feeds every
+ *                         window from a single recordScore() call.
+ */
+public class WindowedLeaderboardDemo {
+
+    // =========================================================================
+    // Window — how wall-clock time maps to a bucket number
+    // =========================================================================
+
+    enum Window {
+        DAILY(TimeUnit.DAYS.toMillis(1)),
+        WEEKLY(TimeUnit.DAYS.toMillis(7)),
+        ALL_TIME(0);
+
+        // 1970-01-01 was a Thursday; shifting by 3 days makes weekly buckets start on Monday (UTC)
+        private static final long MONDAY_OFFSET_MILLIS = TimeUnit.DAYS.toMillis(3);
+
+        private final long bucketMillis;
+
+        Window(long bucketMillis) {
+            this.bucketMillis = bucketMillis;
+        }
+
+        long bucketOf(long epochMillis) {
+            if (bucketMillis == 0) {
+                return 0;                                    // all-time never rolls over
+            }
+            long shifted = this == WEEKLY ? epochMillis + MONDAY_OFFSET_MILLIS : epochMillis;
+            return Math.floorDiv(shifted, bucketMillis);
+        }
+    }
+
+    // =========================================================================
+    // ShardedLeaderboard — player space striped across N engines
+    // =========================================================================
+
+    static final class ShardedLeaderboard {
+
+        private final LeaderboardEngine[] shards;
+        private final int mask;
+
+        ShardedLeaderboard(int stripes) {
+            if (stripes < 1) {
+                throw new IllegalArgumentException("stripes must be >= 1, got: " + stripes);
+            }
+            // Round up to a power of two so the stripe is a mask, not a modulo
+            int size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+            this.shards = new LeaderboardEngine[size];
+            for (int i = 0; i < size; i++) {
+                shards[i] = new LeaderboardEngine(1);        // striping happens here, not inside
+            }
+            this.mask = size - 1;
+        }
+
+        boolean recordScore(String player, int score) {
+            return shardFor(player).recordScore(player, score);
+        }
+
+        int getScore(String player) {
+            return shardFor(player).getScore(player);
+        }
+
+        boolean hasPlayer(String player) {
+            return shardFor(player).hasPlayer(player);
+        }
+
+        int getPlayerCount() {
+            int count = 0;
+            for (LeaderboardEngine shard : shards) {
+                count += shard.getPlayerCount();
+            }
+            return count;
+        }
+
+        int getStripeCount() {
+            return shards.length;
+        }
+
+        /**
+         * Global competition rank: 1 + players with a higher score on every stripe.
+         * O(S · log P/S) — each stripe answers from its own rank index.
+         */
+        int getRank(String player) {
+            int score = getScore(player);
+            int ahead = 0;
+            for (LeaderboardEngine shard : shards) {
+                ahead += shard.countHigherThan(score);
+            }
+            return ahead + 1;
+        }
+
+        /**
+         * Global top n: every stripe contributes at most n entries, already sorted,
+         * and a k-way merge takes the best n — O(S · n) reads, O(n log S) merge.
+         */
+        List<ScoreEntry> getTopEntries(int n) {
+            if (n <= 0) {
+                throw new IllegalArgumentException("n must be >= 1, got: " + n);
+            }
+            List<List<ScoreEntry>> perShard = new ArrayList<>(shards.length);
+            // Cursor = {shard, position}; heap ordered by the entry each cursor points at
+            PriorityQueue<int[]> heads = new PriorityQueue<>(shards.length, (a, b) -> {
+                ScoreEntry x = perShard.get(a[0]).get(a[1]);
+                ScoreEntry y = perShard.get(b[0]).get(b[1]);
+                if (x.getScore() != y.getScore()) {
+                    return Integer.compare(y.getScore(), x.getScore());
+                }
+                return x.getPlayer().compareTo(y.getPlayer());
+            });
+            for (int i = 0; i < shards.length; i++) {
+                perShard.add(shards[i].getTopEntries(n));
+                if (!perShard.get(i).isEmpty()) {
+                    heads.add(new int[] {i, 0});
+                }
+            }
+
+            List<ScoreEntry> merged = new ArrayList<>(n);
+            while (merged.size() < n && !heads.isEmpty()) {
+                int[] cursor = heads.poll();
+                List<ScoreEntry> source = perShard.get(cursor[0]);
+                merged.add(source.get(cursor[1]));
+                if (++cursor[1] < source.size()) {
+                    heads.add(cursor);
+                }
+            }
+            return Collections.unmodifiableList(merged);
+        }
+
+        List<String> getTopPlayers(int n) {
+            List<String> top = new ArrayList<>();
+            for (ScoreEntry entry : getTopEntries(n)) {
+                top.add(entry.getPlayer());
+            }
+            return Collections.unmodifiableList(top);
+        }
+
+        // Spread the hash so names differing only in high bits do not share a stripe
+        private LeaderboardEngine shardFor(String player) {
+            if (player == null) {
+                throw new IllegalArgumentException("player must not be null or blank");
+            }
+            int h = player.hashCode();
+            return shards[(h ^ (h >>> 16)) & mask];
+        }
+    }
+
+    // =========================================================================
+    // WindowedLeaderboard — rolls over to a fresh board at each bucket boundary
+    // =========================================================================
+
+    static final class WindowedLeaderboard {
+
+        // previousBoard is linked in before the bucket is published, so a reader that
+        // sees the bucket sees its predecessor too. Only the board is kept, not the
+        // previous Bucket, so closed buckets do not chain back forever.
+        private static final class Bucket {
+            final long               number;
+            final ShardedLeaderboard board;
+            final ShardedLeaderboard previousBoard;   // bucket number - 1, or null if it never existed
+
+            Bucket(long number, ShardedLeaderboard board, ShardedLeaderboard previousBoard) {
+                this.number        = number;
+                this.board         = board;
+                this.previousBoard = previousBoard;
+            }
+        }
+
+        private final Window       window;
+        private final int          stripes;
+        private final LongSupplier clock;
+
+        private final AtomicReference<Bucket> current;
+
+        WindowedLeaderboard(Window window, int stripes, LongSupplier clock) {
+            this.window  = window;
+            this.stripes = stripes;
+            this.clock   = clock;
+            this.current = new AtomicReference<>(newBucket(window.bucketOf(clock.getAsLong()), null));
+        }
+
+        boolean recordScore(String player, int score) {
+            return currentBucket().board.recordScore(player, score);
+        }
+
+        /** The board for the current bucket — rolls over first if the clock has moved on. */
+        ShardedLeaderboard current() {
+            return currentBucket().board;
+        }
+
+        /**
+         * The board for the bucket immediately before the current one, e.g. "yesterday".
+         * Throws if that bucket was never opened — nobody scored in it, or it predates this board.
+         */
+        ShardedLeaderboard previous() {
+            Bucket installed = currentBucket();
+            if (installed.previousBoard == null) {
+                throw new NoSuchElementException("No " + window + " window " + (installed.number - 1) + " on record");
+            }
+            return installed.previousBoard;
+        }
+
+        long currentBucketNumber() {
+            return currentBucket().number;
+        }
+
+        // Roll-over protocol:
+        //   - Every caller computes the bucket for "now" and compares it with the
+        //     installed one — a volatile read, no lock.
+        //   - On a boundary, callers race a compareAndSet; exactly one installs the
+        //     new bucket, which already links the old board if it is the window
+        //     just before. Losers re-read.
+        //   - A writer that loaded the old bucket just before the swap finishes its
+        //     write there: it is credited to the window it was submitted in.
+        private Bucket currentBucket() {
+            long now = window.bucketOf(clock.getAsLong());
+            while (true) {
+                Bucket installed = current.get();
+                if (installed.number >= now) {
+                    return installed;                 // clocks never move a board backwards
+                }
+                Bucket fresh = newBucket(now, installed.number == now - 1 ? installed.board : null);
+                if (current.compareAndSet(installed, fresh)) {
+                    return fresh;
+                }
+            }
+        }
+
+        private Bucket newBucket(long number, ShardedLeaderboard previousBoard) {
+            return new Bucket(number, new ShardedLeaderboard(stripes), previousBoard);
+        }
+    }
+
+    // =========================================================================
+    // GameLeaderboards — the single entry point that records into every window
+    // =========================================================================
+
+    static final class GameLeaderboards {
+
+        private final Map<Window, WindowedLeaderboard> windows = new EnumMap<>(Window.class);
+
+        GameLeaderboards(int stripes, LongSupplier clock) {
+            for (Window window : Window.values()) {
+                windows.put(window, new WindowedLeaderboard(window, stripes, clock));
+            }
+        }
+
+        // Holder idiom — the production instance uses wall-clock time and one
+        // stripe per core; tests construct their own with a controllable clock.
+        private static class Holder {
+            private static final GameLeaderboards INSTANCE = new GameLeaderboards(
+                    Runtime.getRuntime().availableProcessors(), System::currentTimeMillis);
+        }
+
+        public static GameLeaderboards getInstance() {
+            return Holder.INSTANCE;
+        }
+
+        public void recordScore(String player, int score) {
+            if (player == null || player.isBlank()) {
+                throw new IllegalArgumentException("player must not be null or blank");
+            }
+            if (score < 0) {
+                throw new IllegalArgumentException("score must be >= 0, got: " + score);
+            }
+            for (WindowedLeaderboard board : windows.values()) {
+                board.recordScore(player, score);
+            }
+        }
+
+        public List<String> getTopPlayers(Window window, int n)     { return windows.get(window).current().getTopPlayers(n); }
+        public int          getRank(Window window, String player)   { return windows.get(window).current().getRank(player); }
+        public int          getScore(Window window, String player)  { return windows.get(window).current().getScore(player); }
+        public boolean      hasPlayer(Window window, String player) { return windows.get(window).current().hasPlayer(player); }
+        public WindowedLeaderboard window(Window window)            { return windows.get(window); }
+    }
+
+    // =========================================================================
+    // Main
+    // =========================================================================
+
+    public static void main(String[] args) throws InterruptedException {
+
+        // Monday 2024-01-01 00:00 UTC — a controllable clock for roll-over tests
+        long monday = 1_704_067_200_000L;
+        AtomicLong now = new AtomicLong(monday);
+        GameLeaderboards boards = new GameLeaderboards(4, now::get);
+
+        System.out.println("═══ Test 1: One submission feeds every window ═══════════");
+        boards.recordScore("Alice", 1500);
+        boards.recordScore("Bob",   1200);
+        boolean t1 = true;
+        for (Window window : Window.values()) {
+            System.out.println(window + " top: " + boards.getTopPlayers(window, 5));
+            t1 &= boards.getTopPlayers(window, 5).equals(List.of("Alice", "Bob"));
+        }
+        System.out.println("Test 1 " + (t1 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 2: Daily rolls over, weekly and all-time keep ══");
+        now.addAndGet(TimeUnit.DAYS.toMillis(1));            // Tuesday
+        boards.recordScore("Carol", 900);
+        List<String> daily  = boards.getTopPlayers(Window.DAILY, 5);
+        List<String> weekly = boards.getTopPlayers(Window.WEEKLY, 5);
+        List<String> lastDay = boards.window(Window.DAILY).previous().getTopPlayers(5);
+        System.out.println("DAILY    : " + daily);
+        System.out.println("Yesterday: " + lastDay);
+        System.out.println("WEEKLY   : " + weekly);
+        boolean t2 = daily.equals(List.of("Carol"))
+                  && lastDay.equals(List.of("Alice", "Bob"))
+                  && weekly.equals(List.of("Alice", "Bob", "Carol"));
+        System.out.println("Test 2 " + (t2 ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 3: Weekly rolls over on Monday ═════════════════");
+        now.set(monday + TimeUnit.DAYS.toMillis(6));          // Sunday — same week
+        long sundayWeek = boards.window(Window.WEEKLY).currentBucketNumber();
+        now.set(monday + TimeUnit.DAYS.toMillis(7));          // next Monday
+        long mondayWeek = boards.window(Window.WEEKLY).currentBucketNumber();
+        boolean weeklyEmpty = !boards.hasPlayer(Window.WEEKLY, "Alice");
+        boolean allTimeKept = boards.getScore(Window.ALL_TIME, "Alice") == 1500;
+        System.out.println("Sunday bucket: " + sundayWeek + ", Monday bucket: " + mondayWeek);
+        System.out.println("Weekly empty: " + weeklyEmpty + ", all-time kept Alice: " + allTimeKept);
+        System.out.println("Test 3 " + (mondayWeek == sundayWeek + 1 && weeklyEmpty && allTimeKept ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 4: Merged top-N across stripes matches one engine ═");
+        ShardedLeaderboard sharded = new ShardedLeaderboard(8);
+        LeaderboardEngine single = new LeaderboardEngine();
+        SplittableRandom random = new SplittableRandom(11);
+        for (int i = 0; i < 200_000; i++) {
+            String player = "p" + random.nextInt(50_000);
+            int score = random.nextInt(1_000_000);
+            sharded.recordScore(player, score);
+            single.recordScore(player, score);
+        }
+        boolean sameTop  = sharded.getTopPlayers(100).equals(single.getTopPlayers(100));
+        boolean sameRank = sharded.getRank("p123") == single.getRank("p123");
+        System.out.println("Stripes: " + sharded.getStripeCount() + ", players: " + sharded.getPlayerCount());
+        System.out.println("Top 5: " + sharded.getTopEntries(5));
+        System.out.println("Rank of p123: sharded=" + sharded.getRank("p123") + ", single=" + single.getRank("p123"));
+        System.out.println("Test 4 " + (sameTop && sameRank ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 5: Writers keep going across a daily roll-over ═══");
+        int threads   = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int perThread = 500_000;
+        AtomicLong clock = new AtomicLong(monday);
+        WindowedLeaderboard dailyBoard = new WindowedLeaderboard(Window.DAILY, 16, clock::get);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done  = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom local = new SplittableRandom(t);
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        dailyBoard.recordScore("p" + local.nextInt(100_000), local.nextInt(1_000_000));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "writer-" + t).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        Thread.sleep(20);
+        clock.addAndGet(TimeUnit.DAYS.toMillis(1));           // midnight while writers are busy
+        done.await();
+        long elapsedMillis = (System.nanoTime() - begin) / 1_000_000;
+        int before = dailyBoard.previous().getPlayerCount();
+        int after  = dailyBoard.current().getPlayerCount();
+        System.out.printf("%,d submissions in %,d ms across a roll-over%n", (long) threads * perThread, elapsedMillis);
+        System.out.println("Players before midnight: " + before + ", after: " + after);
+        System.out.println("Test 5 " + (after > 0 && dailyBoard.currentBucketNumber()
+                == Window.DAILY.bucketOf(clock.get()) ? "PASSED" : "FAILED"));
+
+        System.out.println("\n═══ Test 6: previous() is the window just before, never older ═");
+        AtomicLong day = new AtomicLong(monday);
+        WindowedLeaderboard gaps = new WindowedLeaderboard(Window.DAILY, 4, day::get);
+        gaps.recordScore("Mon", 1);
+        day.addAndGet(TimeUnit.DAYS.toMillis(1));
+        gaps.recordScore("Tue", 2);
+        boolean adjacent = gaps.previous().getTopPlayers(5).equals(List.of("Mon"));
+        day.addAndGet(TimeUnit.DAYS.toMillis(2));             // Thursday — nobody played on Wednesday
+        boolean gapRejected;
+        try {
+            System.out.println("Thursday's previous(): " + gaps.previous().getTopPlayers(5));
+            gapRejected = false;
+        } catch (NoSuchElementException e) {
+            gapRejected = true;
+            System.out.println("Thursday's previous(): " + e.getMessage());
+        }
+        System.out.println("Tuesday's previous() was Monday: " + adjacent + ", empty Wednesday reported as missing: " + gapRejected);
+        System.out.println("Test 6 " + (adjacent && gapRejected ? "PASSED" : "FAILED"));
+    }
+}